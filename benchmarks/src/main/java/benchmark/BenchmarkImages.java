@@ -0,0 +1,96 @@
+package benchmark;
+
+import controller.ImageUtil;
+import java.io.File;
+import java.util.Random;
+import model.colorscheme.Pixels;
+import model.colorscheme.RGBPixel;
+import model.imagetransformation.advancedoperations.Downscale;
+
+/**
+ * The {@code BenchmarkImages} class creates the square input images the benchmarks run on.
+ *
+ * <p>Synthetic images are seeded random noise, so almost every pixel has its own colour and no
+ * pixel objects are shared. Sample images are {@code Landscape.png} from {@code res/SampleImages},
+ * resized to the requested size with bilinear interpolation. The sample directory is read from the
+ * {@code images.dir} system property and defaults to {@code ../res/SampleImages}, which is where it
+ * is when the benchmarks run from the {@code benchmarks} directory.</p>
+ */
+public final class BenchmarkImages {
+
+  private static final long SEED = 42;
+
+  private BenchmarkImages() {
+  }
+
+  /**
+   * Creates an image of the given kind and size.
+   *
+   * @param input the kind of image, either {@code synthetic} or {@code sample}
+   * @param size  the width and height of the image
+   * @return the pixels of the image
+   * @throws IllegalArgumentException if the kind is unknown
+   */
+  public static Pixels[][] create(String input, int size) {
+    switch (input) {
+      case "synthetic":
+        return synthetic(size);
+      case "sample":
+        return sample(size);
+      default:
+        throw new IllegalArgumentException("Unknown benchmark input: " + input);
+    }
+  }
+
+  /**
+   * Creates an image of seeded random noise.
+   *
+   * @param size the width and height of the image
+   * @return the pixels of the image
+   */
+  public static Pixels[][] synthetic(int size) {
+    Random random = new Random(SEED);
+    Pixels[][] pixels = new RGBPixel[size][size];
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < size; j++) {
+        int rgb = random.nextInt();
+        pixels[i][j] = RGBPixel.of((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+      }
+    }
+    return pixels;
+  }
+
+  /**
+   * Loads the sample landscape and resizes it to the given size.
+   *
+   * @param size the width and height of the image
+   * @return the pixels of the image
+   * @throws IllegalStateException if the sample image cannot be loaded
+   */
+  public static Pixels[][] sample(int size) {
+    String directory = System.getProperty("images.dir", "../res/SampleImages");
+    String path = directory + File.separator + "Landscape.png";
+    Pixels[][] pixels = ImageUtil.loadImage(path);
+    if (pixels == null) {
+      throw new IllegalStateException("Could not load the sample image " + path);
+    }
+    return new Downscale(size, size).apply(pixels);
+  }
+
+  /**
+   * Creates a mask that is black on its left half and white on its right half, so a masked
+   * operation transforms half of the image.
+   *
+   * @param size the width and height of the mask
+   * @return the pixels of the mask
+   */
+  public static Pixels[][] halfMask(int size) {
+    Pixels[][] mask = new RGBPixel[size][size];
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < size; j++) {
+        mask[i][j] = j < size / 2 ? RGBPixel.of(0, 0, 0) : RGBPixel.of(255, 255, 255);
+      }
+    }
+    return mask;
+  }
+}
@@ -0,0 +1,59 @@
+package benchmark;
+
+import java.io.IOException;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The {@code BenchmarkMain} class runs the benchmarks from the command line. It accepts the usual
+ * JMH options, for example {@code -p size=256} or a benchmark name pattern, and always adds the GC
+ * profiler so that the allocation rate of every operation is reported. Like the JMH launcher, it
+ * only prints the help or a listing, without running anything, when given {@code -h},
+ * {@code -l}, {@code -lp}, {@code -lprof} or {@code -lrf}.
+ */
+public final class BenchmarkMain {
+
+  private BenchmarkMain() {
+  }
+
+  /**
+   * Runs the benchmarks selected by the given JMH options.
+   *
+   * @param args the JMH command line options
+   * @throws CommandLineOptionException if the options cannot be parsed
+   * @throws RunnerException            if the benchmarks fail to run
+   * @throws IOException                if the help cannot be printed
+   */
+  public static void main(String[] args)
+      throws CommandLineOptionException, RunnerException, IOException {
+    CommandLineOptions options = new CommandLineOptions(args);
+    if (options.shouldHelp()) {
+      options.showHelp();
+      return;
+    }
+    if (options.shouldList()) {
+      new Runner(options).list();
+      return;
+    }
+    if (options.shouldListWithParams()) {
+      new Runner(options).listWithParams(options);
+      return;
+    }
+    if (options.shouldListProfilers()) {
+      options.listProfilers();
+      return;
+    }
+    if (options.shouldListResultFormats()) {
+      options.listResultFormats();
+      return;
+    }
+    new Runner(new OptionsBuilder()
+        .parent(options)
+        .addProfiler(GCProfiler.class)
+        .build()).run();
+  }
+}
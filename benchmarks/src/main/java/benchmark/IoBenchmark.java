@@ -0,0 +1,264 @@
+package benchmark;
+
+import controller.ImageUtil;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+import model.colorscheme.Pixels;
+import model.imageview.ArrayView;
+
+/**
+ * The {@code IoBenchmark} class measures how fast every image format is loaded and saved through
+ * {@link ImageUtil}, and writes the results as JSON so that runs on different commits can be
+ * compared.
+ *
+ * <p>For every input, size and format, the image is first saved to a fixture file in a temporary
+ * directory, which is deleted afterwards. After the warm-up runs, each measured run reports:</p>
+ * <ul>
+ *   <li>encode and decode throughput, in pixels per second, from the median run;</li>
+ *   <li>the time to first pixel, which is the time {@link ImageUtil#loadImage(String, int, int)}
+ *   takes to return a {@value #PREVIEW_SIZE} pixel preview, the way
+ *   {@code load <file> <key> <targetWidth> <targetHeight>} does;</li>
+ *   <li>the peak heap used by a decode and by an encode, above the heap in use before it
+ *   started.</li>
+ * </ul>
+ *
+ * <p>Options: {@code --sizes 256,2048}, {@code --inputs synthetic,sample},
+ * {@code --formats png,jpg,ppm,haar}, {@code --warmup 2}, {@code --iterations 5},
+ * {@code --commit <id>} and {@code --output <file>}. Without {@code --output} the JSON is printed,
+ * on its own: what the savers and loaders print while they are measured is discarded.
+ * The {@code images.dir} system property locates the sample image, see {@link BenchmarkImages}.</p>
+ */
+public final class IoBenchmark {
+
+  private static final int PREVIEW_SIZE = 256;
+
+  private List<Integer> sizes = List.of(256, 2048);
+  private List<String> inputs = List.of("synthetic", "sample");
+  private List<String> formats = List.of("png", "jpg", "ppm", "haar");
+  private int warmup = 2;
+  private int iterations = 5;
+  private String commit = "unknown";
+  private String output;
+
+  private IoBenchmark() {
+  }
+
+  /**
+   * Runs the benchmark with the given options.
+   *
+   * @param args the command line options
+   * @throws IOException if the fixtures or the results cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    IoBenchmark benchmark = new IoBenchmark();
+    benchmark.parse(args);
+    benchmark.run();
+  }
+
+  /**
+   * Reads the command line options.
+   *
+   * @param args the command line options
+   * @throws IllegalArgumentException if an option is unknown or has no value
+   */
+  private void parse(String[] args) {
+    for (int i = 0; i < args.length; i += 2) {
+      if (i + 1 >= args.length) {
+        throw new IllegalArgumentException("Missing value for " + args[i]);
+      }
+      String value = args[i + 1];
+      switch (args[i]) {
+        case "--sizes":
+          sizes = new ArrayList<>();
+          for (String size : value.split(",")) {
+            sizes.add(Integer.parseInt(size.trim()));
+          }
+          break;
+        case "--inputs":
+          inputs = Arrays.asList(value.split(","));
+          break;
+        case "--formats":
+          formats = Arrays.asList(value.split(","));
+          break;
+        case "--warmup":
+          warmup = Integer.parseInt(value);
+          break;
+        case "--iterations":
+          iterations = Integer.parseInt(value);
+          break;
+        case "--commit":
+          commit = value;
+          break;
+        case "--output":
+          output = value;
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+    }
+    if (iterations < 1) {
+      throw new IllegalArgumentException("At least one iteration is required.");
+    }
+  }
+
+  /**
+   * Measures every combination of input, size and format and writes the results.
+   *
+   * @throws IOException if the fixtures or the results cannot be written
+   */
+  private void run() throws IOException {
+    Path directory = Files.createTempDirectory("image-io-benchmark");
+    List<String> results = new ArrayList<>();
+    PrintStream console = System.out;
+    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    try {
+      for (String input : inputs) {
+        for (int size : sizes) {
+          Pixels[][] pixels = BenchmarkImages.create(input, size);
+          for (String format : formats) {
+            Path file = directory.resolve(input + "-" + size + "." + format);
+            results.add(measure(input, size, format, pixels, file.toString()));
+            Files.deleteIfExists(file);
+          }
+        }
+      }
+    } finally {
+      System.setOut(console);
+      try (Stream<Path> files = Files.walk(directory)) {
+        files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+      }
+    }
+    write(results);
+  }
+
+  /**
+   * Measures saving and loading one image in one format.
+   *
+   * @param input  the kind of image
+   * @param size   the width and height of the image
+   * @param format the file extension of the format
+   * @param pixels the image
+   * @param file   the path of the fixture file
+   * @return the results as a JSON object
+   * @throws IOException if the size of the fixture cannot be read
+   */
+  private String measure(String input, int size, String format, Pixels[][] pixels, String file)
+      throws IOException {
+    ArrayView view = new ArrayView(pixels);
+    for (int i = 0; i < warmup; i++) {
+      ImageUtil.saveImage(file, view);
+      ImageUtil.loadImage(file);
+      ImageUtil.loadImage(file, PREVIEW_SIZE, PREVIEW_SIZE);
+    }
+
+    long[] encodeNanos = new long[iterations];
+    long[] decodeNanos = new long[iterations];
+    long[] previewNanos = new long[iterations];
+    long encodePeak = 0;
+    long decodePeak = 0;
+    for (int i = 0; i < iterations; i++) {
+      long baseline = resetPeakHeap();
+      long start = System.nanoTime();
+      ImageUtil.saveImage(file, view);
+      encodeNanos[i] = System.nanoTime() - start;
+      encodePeak = Math.max(encodePeak, ResourceUsage.peakHeap() - baseline);
+
+      baseline = resetPeakHeap();
+      start = System.nanoTime();
+      Pixels[][] loaded = ImageUtil.loadImage(file);
+      decodeNanos[i] = System.nanoTime() - start;
+      decodePeak = Math.max(decodePeak, ResourceUsage.peakHeap() - baseline);
+      if (loaded.length != size || loaded[0].length != size) {
+        throw new IllegalStateException("Decoded " + format + " image has the wrong size.");
+      }
+
+      start = System.nanoTime();
+      Pixels[][] preview = ImageUtil.loadImage(file, PREVIEW_SIZE, PREVIEW_SIZE);
+      previewNanos[i] = System.nanoTime() - start;
+      if (preview.length == 0 || preview[0].length == 0 || preview[0][0] == null) {
+        throw new IllegalStateException("Decoded " + format + " preview has no pixels.");
+      }
+    }
+
+    long pixelCount = (long) size * size;
+    long encodeMedian = median(encodeNanos);
+    long decodeMedian = median(decodeNanos);
+    return String.format(Locale.ROOT, "    {\"input\": \"%s\", \"size\": %d, \"format\": \"%s\", "
+            + "\"fileBytes\": %d, "
+            + "\"encodeMillis\": %.3f, \"encodePixelsPerSecond\": %.0f, "
+            + "\"encodePeakHeapBytes\": %d, "
+            + "\"decodeMillis\": %.3f, \"decodePixelsPerSecond\": %.0f, "
+            + "\"decodePeakHeapBytes\": %d, "
+            + "\"timeToFirstPixelMillis\": %.3f}",
+        input, size, format, Files.size(Paths.get(file)),
+        encodeMedian / 1e6, pixelCount * 1e9 / encodeMedian, encodePeak,
+        decodeMedian / 1e6, pixelCount * 1e9 / decodeMedian, decodePeak,
+        median(previewNanos) / 1e6);
+  }
+
+  /**
+   * Collects garbage and resets the peak usage of every heap pool.
+   *
+   * @return the heap in use after collecting garbage
+   */
+  private static long resetPeakHeap() {
+    System.gc();
+    return ResourceUsage.resetPeakHeap();
+  }
+
+  /**
+   * Returns the median of the given times.
+   *
+   * @param nanos the times in nanoseconds
+   * @return the median time
+   */
+  private static long median(long[] nanos) {
+    long[] sorted = nanos.clone();
+    Arrays.sort(sorted);
+    return sorted[sorted.length / 2];
+  }
+
+  /**
+   * Writes the results, with the commit and environment they were measured on, as one JSON
+   * document.
+   *
+   * @param results the results of every measurement as JSON objects
+   * @throws IOException if the output file cannot be written
+   */
+  private void write(List<String> results) throws IOException {
+    StringBuilder json = new StringBuilder();
+    json.append("{\n");
+    json.append("  \"commit\": \"").append(commit).append("\",\n");
+    json.append("  \"timestamp\": \"").append(Instant.now()).append("\",\n");
+    json.append("  \"javaVersion\": \"").append(System.getProperty("java.version")).append("\",\n");
+    json.append("  \"maxHeapBytes\": ").append(Runtime.getRuntime().maxMemory()).append(",\n");
+    json.append("  \"warmup\": ").append(warmup).append(",\n");
+    json.append("  \"iterations\": ").append(iterations).append(",\n");
+    json.append("  \"results\": [\n");
+    json.append(String.join(",\n", results));
+    json.append("\n  ]\n}\n");
+
+    if (output == null) {
+      System.out.print(json);
+    } else {
+      try (PrintWriter writer = new PrintWriter(
+          Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8))) {
+        writer.print(json);
+      }
+      System.out.println("Wrote " + results.size() + " results to " + output);
+    }
+  }
+}
@@ -0,0 +1,160 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+import model.EnhancedImage;
+import model.EnhancedImageModel;
+import model.imagetransformation.advancedoperations.Downscale;
+import model.imagetransformation.basicoperation.Flip.Direction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The {@code ModelBenchmark} class measures the throughput of every operation of the image model,
+ * called through {@link EnhancedImageModel} the way the controller calls it, with the source image
+ * stored under one key and the result saved under another.
+ *
+ * <p>Some operations store a lazy view or a compact greyscale image instead of pixels, and
+ * compression reuses the coefficients it cached for the source image. The {@link #materialize}
+ * parameter selects whether every invocation also reads the result back with
+ * {@link EnhancedImageModel#getStoredPixels(String)}, which includes the cost of expanding it.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx16g"})
+public class ModelBenchmark {
+
+  private static final String SOURCE = "image";
+  private static final String RESULT = "result";
+
+  @Param({"256", "2048", "8192"})
+  public int size;
+
+  @Param({"synthetic", "sample"})
+  public String input;
+
+  @Param({"brighten", "greyscale", "sepia", "blur", "sharpen", "luma-component",
+      "value-component", "intensity-component", "red-component", "green-component",
+      "blue-component", "horizontal-flip", "vertical-flip", "split", "combine", "levels-adjust",
+      "color-correction", "compress", "compress-ycbcr", "preview-compression", "histogram",
+      "split-blur", "downscale", "masked-blur"})
+  public String operation;
+
+  @Param({"false", "true"})
+  public boolean materialize;
+
+  private EnhancedImageModel model;
+  private long pixelCount;
+
+  /**
+   * Creates the model and stores the input image, and the channels and mask some operations
+   * need.
+   */
+  @Setup
+  public void setUp() {
+    model = new EnhancedImage();
+    model.storePixels(SOURCE, BenchmarkImages.create(input, size));
+    model.storePixels("mask", BenchmarkImages.halfMask(size));
+    model.split(SOURCE, "red", "green", "blue");
+    pixelCount = (long) size * size;
+  }
+
+  /**
+   * Runs the operation once on the stored image.
+   *
+   * @param counter the count of processed pixels
+   * @return the stored result if it is read back, which JMH consumes, or {@code null}
+   * @throws IllegalArgumentException if the operation is unknown
+   */
+  @Benchmark
+  public Object run(PixelCounter counter) {
+    counter.pixels += pixelCount;
+    switch (operation) {
+      case "brighten":
+        model.brighten(10, SOURCE, RESULT);
+        break;
+      case "greyscale":
+        model.greyScale(SOURCE, RESULT);
+        break;
+      case "sepia":
+        model.sepia(SOURCE, RESULT);
+        break;
+      case "blur":
+        model.blur(SOURCE, RESULT);
+        break;
+      case "sharpen":
+        model.sharpen(SOURCE, RESULT);
+        break;
+      case "luma-component":
+        model.luma(SOURCE, RESULT);
+        break;
+      case "value-component":
+        model.value(SOURCE, RESULT);
+        break;
+      case "intensity-component":
+        model.intensity(SOURCE, RESULT);
+        break;
+      case "red-component":
+        model.getRedChannel(SOURCE, RESULT);
+        break;
+      case "green-component":
+        model.getGreenChannel(SOURCE, RESULT);
+        break;
+      case "blue-component":
+        model.getBlueChannel(SOURCE, RESULT);
+        break;
+      case "horizontal-flip":
+        model.flip(SOURCE, RESULT, Direction.HORIZONTAL);
+        break;
+      case "vertical-flip":
+        model.flip(SOURCE, RESULT, Direction.VERTICAL);
+        break;
+      case "split":
+        model.split(SOURCE, RESULT, RESULT + "-green", RESULT + "-blue");
+        break;
+      case "combine":
+        model.combine(RESULT, "red", "green", "blue");
+        break;
+      case "levels-adjust":
+        model.adjustLevel(20, 100, 255, SOURCE, RESULT);
+        break;
+      case "color-correction":
+        model.colorCorrection(SOURCE, RESULT);
+        break;
+      case "compress":
+        model.compress(SOURCE, RESULT, 50);
+        break;
+      case "compress-ycbcr":
+        model.compressYCbCr(SOURCE, RESULT, 50, 80, 3);
+        break;
+      case "preview-compression":
+        return model.previewCompression(SOURCE, 50, 3, 1);
+      case "histogram":
+        model.histogram(SOURCE, RESULT);
+        break;
+      case "split-blur":
+        model.splitAndTransform(SOURCE, RESULT, 50, "blur");
+        break;
+      case "downscale":
+        model.downscale(SOURCE, size / 3, size / 3, RESULT, Downscale.Mode.AREA);
+        break;
+      case "masked-blur":
+        model.maskedOperation(SOURCE, "blur", "mask", RESULT);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown operation: " + operation);
+    }
+    return materialize ? model.getStoredPixels(RESULT) : null;
+  }
+}
@@ -0,0 +1,27 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The {@code PixelCounter} class counts the pixels a benchmark processes. JMH reports its public
+ * field as a secondary result next to the operations per second, which gives the throughput in
+ * pixels per second.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class PixelCounter {
+
+  public long pixels;
+
+  /**
+   * Clears the count before every iteration.
+   */
+  @Setup(Level.Iteration)
+  public void reset() {
+    pixels = 0;
+  }
+}
@@ -0,0 +1,141 @@
+package benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+/**
+ * The {@code ResourceUsage} class records what a piece of work cost: its wall time, the CPU time
+ * of the whole process, the bytes allocated by every live thread and the peak heap in use while
+ * it ran.
+ *
+ * <p>CPU time and allocated bytes are counted for every thread, not only the calling one, since
+ * several operations run on the common fork-join pool. They also include any JIT and GC work done
+ * meanwhile, so they are meant for comparing runs rather than as exact costs.</p>
+ */
+public final class ResourceUsage {
+
+  private static final com.sun.management.OperatingSystemMXBean OPERATING_SYSTEM =
+      (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+  private static final com.sun.management.ThreadMXBean THREADS =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private final long wallNanos;
+  private final long cpuNanos;
+  private final long allocatedBytes;
+  private final long peakHeapBytes;
+
+  /**
+   * Constructs a record of the resources used by a piece of work.
+   *
+   * @param wallNanos      the elapsed time in nanoseconds
+   * @param cpuNanos       the CPU time of the process in nanoseconds
+   * @param allocatedBytes the bytes allocated by every thread
+   * @param peakHeapBytes  the peak heap in use
+   */
+  public ResourceUsage(long wallNanos, long cpuNanos, long allocatedBytes, long peakHeapBytes) {
+    this.wallNanos = wallNanos;
+    this.cpuNanos = cpuNanos;
+    this.allocatedBytes = allocatedBytes;
+    this.peakHeapBytes = peakHeapBytes;
+  }
+
+  /**
+   * Runs a piece of work and records the resources it used.
+   *
+   * @param work the work to run
+   * @return the resources used by the work
+   */
+  public static ResourceUsage measure(Runnable work) {
+    resetPeakHeap();
+    long cpu = OPERATING_SYSTEM.getProcessCpuTime();
+    long allocated = allocatedBytes();
+    long start = System.nanoTime();
+    work.run();
+    long wall = System.nanoTime() - start;
+    return new ResourceUsage(wall, OPERATING_SYSTEM.getProcessCpuTime() - cpu,
+        allocatedBytes() - allocated, peakHeap());
+  }
+
+  /**
+   * Resets the peak usage of every heap pool.
+   *
+   * @return the heap in use when the peaks were reset
+   */
+  public static long resetPeakHeap() {
+    long used = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        pool.resetPeakUsage();
+        used += pool.getUsage().getUsed();
+      }
+    }
+    return used;
+  }
+
+  /**
+   * Returns the sum of the peak usage of every heap pool since the last reset.
+   *
+   * @return the peak heap usage in bytes
+   */
+  public static long peakHeap() {
+    long peak = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        peak += pool.getPeakUsage().getUsed();
+      }
+    }
+    return peak;
+  }
+
+  /**
+   * Returns the bytes allocated so far by every live thread.
+   *
+   * @return the allocated bytes
+   */
+  private static long allocatedBytes() {
+    long total = 0;
+    for (long bytes : THREADS.getThreadAllocatedBytes(THREADS.getAllThreadIds())) {
+      if (bytes > 0) {
+        total += bytes;
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Returns the elapsed time.
+   *
+   * @return the wall time in nanoseconds
+   */
+  public long getWallNanos() {
+    return wallNanos;
+  }
+
+  /**
+   * Returns the CPU time of the process.
+   *
+   * @return the CPU time in nanoseconds
+   */
+  public long getCpuNanos() {
+    return cpuNanos;
+  }
+
+  /**
+   * Returns the bytes allocated by every thread.
+   *
+   * @return the allocated bytes
+   */
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  /**
+   * Returns the peak heap in use.
+   *
+   * @return the peak heap in bytes
+   */
+  public long getPeakHeapBytes() {
+    return peakHeapBytes;
+  }
+}
@@ -0,0 +1,346 @@
+package benchmark;
+
+import controller.ImageController;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Consumer;
+import model.EnhancedImage;
+import model.EnhancedImageModel;
+
+/**
+ * The {@code ScriptBenchmark} class runs reference scripts end to end through the
+ * {@code ScriptReader}, the way {@code -file} runs them, and measures every command and every
+ * script as a whole.
+ *
+ * <p>Each script runs on a fresh model and controller for a number of warm-up iterations and then
+ * for the measured iterations. For every command, in the order it runs, and for every script, the
+ * median wall time, CPU time, allocated bytes and peak heap are reported, see
+ * {@link ResourceUsage}. The console output of the commands is suppressed while they run. Missing
+ * directories that {@code save} commands write into are created first.</p>
+ *
+ * <p>The medians can be stored as a baseline file and compared with a later run. A metric regresses
+ * when it grows by more than the threshold, in percent, over the baseline, and the runner then
+ * exits with status 1. A time must also grow by more than a floor to regress, since short
+ * commands are dominated by noise and CPU time is only counted in coarse ticks on some
+ * systems.</p>
+ *
+ * <p>Options: {@code --scripts res/PNGScript.txt}, {@code --warmup 2}, {@code --iterations 5},
+ * {@code --baseline <file>}, {@code --save-baseline <file>}, {@code --threshold 10},
+ * {@code --memory-threshold 10} and {@code --min-millis 20}. Scripts refer to images relative to
+ * the working directory, so the runner is started from the project directory.</p>
+ */
+public final class ScriptBenchmark {
+
+  private static final String[] METRICS = {"wallMillis", "cpuMillis", "allocatedBytes",
+      "peakHeapBytes"};
+
+  private List<String> scripts = List.of("res/PNGScript.txt");
+  private int warmup = 2;
+  private int iterations = 5;
+  private String baseline;
+  private String saveBaseline;
+  private double threshold = 10;
+  private double memoryThreshold = 10;
+  private double minMillis = 20;
+
+  private ScriptBenchmark() {
+  }
+
+  /**
+   * Runs the benchmark with the given options, exiting with status 1 if a metric regressed.
+   *
+   * @param args the command line options
+   * @throws IOException if a script, the baseline or the new baseline cannot be read or written
+   */
+  public static void main(String[] args) throws IOException {
+    ScriptBenchmark benchmark = new ScriptBenchmark();
+    benchmark.parse(args);
+    if (!benchmark.run()) {
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Reads the command line options.
+   *
+   * @param args the command line options
+   * @throws IllegalArgumentException if an option is unknown or has no value
+   */
+  private void parse(String[] args) {
+    for (int i = 0; i < args.length; i += 2) {
+      if (i + 1 >= args.length) {
+        throw new IllegalArgumentException("Missing value for " + args[i]);
+      }
+      String value = args[i + 1];
+      switch (args[i]) {
+        case "--scripts":
+          scripts = Arrays.asList(value.split(","));
+          break;
+        case "--warmup":
+          warmup = Integer.parseInt(value);
+          break;
+        case "--iterations":
+          iterations = Integer.parseInt(value);
+          break;
+        case "--baseline":
+          baseline = value;
+          break;
+        case "--save-baseline":
+          saveBaseline = value;
+          break;
+        case "--threshold":
+          threshold = Double.parseDouble(value);
+          break;
+        case "--memory-threshold":
+          memoryThreshold = Double.parseDouble(value);
+          break;
+        case "--min-millis":
+          minMillis = Double.parseDouble(value);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+    }
+    if (iterations < 1) {
+      throw new IllegalArgumentException("At least one iteration is required.");
+    }
+  }
+
+  /**
+   * Measures every script, prints the results and compares them with the baseline.
+   *
+   * @return {@code false} if any metric regressed beyond its threshold
+   * @throws IOException if a script, the baseline or the new baseline cannot be read or written
+   */
+  private boolean run() throws IOException {
+    Map<String, double[]> results = new LinkedHashMap<>();
+    for (String script : scripts) {
+      createOutputDirectories(script);
+      List<List<Sample>> runs = new ArrayList<>();
+      for (int i = 0; i < warmup + iterations; i++) {
+        System.gc();
+        List<Sample> samples = runScript(script);
+        if (i >= warmup) {
+          runs.add(samples);
+        }
+      }
+      summarize(script, runs, results);
+    }
+
+    for (Map.Entry<String, double[]> entry : results.entrySet()) {
+      double[] values = entry.getValue();
+      System.out.printf(Locale.ROOT, "%-60s %10.2f ms wall %10.2f ms cpu %14.0f B alloc"
+          + " %14.0f B peak%n", entry.getKey(), values[0], values[1], values[2], values[3]);
+    }
+    if (saveBaseline != null) {
+      store(results, saveBaseline);
+      System.out.println("Saved baseline to " + saveBaseline);
+    }
+    return baseline == null || compare(results, load(baseline));
+  }
+
+  /**
+   * Runs a script once on a fresh model and controller.
+   *
+   * @param script the path of the script
+   * @return the resources used by every command, in the order they ran, followed by the script
+   * @throws IOException if the script cannot be read
+   */
+  private List<Sample> runScript(String script) throws IOException {
+    List<Sample> samples = new ArrayList<>();
+    TimedController controller = new TimedController(new EnhancedImage(), samples);
+    PrintStream console = System.out;
+    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    try {
+      ResourceUsage usage = ResourceUsage.measure(() -> controller.handleScript(
+          new String[]{"run-script", script}));
+      // Every command resets the peak heap, so the script's peak is the highest of theirs
+      long peak = usage.getPeakHeapBytes();
+      for (Sample sample : samples) {
+        peak = Math.max(peak, sample.usage.getPeakHeapBytes());
+      }
+      samples.add(new Sample("total", new ResourceUsage(usage.getWallNanos(),
+          usage.getCpuNanos(), usage.getAllocatedBytes(), peak)));
+    } finally {
+      System.setOut(console);
+    }
+    if (samples.size() == 1) {
+      throw new IOException("No commands ran from " + script);
+    }
+    return samples;
+  }
+
+  /**
+   * Adds the medians of the measured runs of a script to the results, keyed by the script, the
+   * position of the command and its name.
+   *
+   * @param script  the path of the script
+   * @param runs    the resources used by every command in every measured run
+   * @param results the results to add to
+   */
+  private void summarize(String script, List<List<Sample>> runs, Map<String, double[]> results) {
+    int commands = runs.get(0).size();
+    for (int c = 0; c < commands; c++) {
+      double[][] values = new double[METRICS.length][runs.size()];
+      for (int r = 0; r < runs.size(); r++) {
+        ResourceUsage usage = runs.get(r).get(c).usage;
+        values[0][r] = usage.getWallNanos() / 1e6;
+        values[1][r] = usage.getCpuNanos() / 1e6;
+        values[2][r] = usage.getAllocatedBytes();
+        values[3][r] = usage.getPeakHeapBytes();
+      }
+      double[] medians = new double[METRICS.length];
+      for (int m = 0; m < METRICS.length; m++) {
+        Arrays.sort(values[m]);
+        medians[m] = values[m][values[m].length / 2];
+      }
+      String name = runs.get(0).get(c).command;
+      String key = name.equals("total") ? script + "|total"
+          : String.format(Locale.ROOT, "%s|%03d|%s", script, c + 1, name);
+      results.put(key, medians);
+    }
+  }
+
+  /**
+   * Compares the results with a baseline and prints every regression.
+   *
+   * @param results  the results of this run
+   * @param previous the baseline
+   * @return {@code false} if any metric regressed beyond its threshold
+   */
+  private boolean compare(Map<String, double[]> results, Properties previous) {
+    boolean passed = true;
+    for (Map.Entry<String, double[]> entry : results.entrySet()) {
+      for (int m = 0; m < METRICS.length; m++) {
+        String stored = previous.getProperty(entry.getKey() + "." + METRICS[m]);
+        if (stored == null) {
+          continue;
+        }
+        double before = Double.parseDouble(stored);
+        double now = entry.getValue()[m];
+        boolean time = m < 2;
+        if (before <= 0 || (time && now - before < minMillis)) {
+          continue;
+        }
+        double limit = before * (1 + (time ? threshold : memoryThreshold) / 100);
+        if (now > limit) {
+          System.out.printf(Locale.ROOT, "REGRESSION %s %s: %.2f -> %.2f (+%.1f%%)%n",
+              entry.getKey(), METRICS[m], before, now, (now / before - 1) * 100);
+          passed = false;
+        }
+      }
+    }
+    System.out.println(passed ? "No regressions against " + baseline
+        : "Regressions found against " + baseline);
+    return passed;
+  }
+
+  /**
+   * Creates the missing directories that the {@code save} commands of a script write into.
+   *
+   * @param script the path of the script
+   * @throws IOException if the script cannot be read
+   */
+  private static void createOutputDirectories(String script) throws IOException {
+    for (String line : Files.readAllLines(Paths.get(script))) {
+      String[] parts = line.trim().split("\\s+");
+      if (parts.length == 3 && parts[0].equalsIgnoreCase("save")) {
+        File parent = new File(parts[1]).getParentFile();
+        if (parent != null) {
+          parent.mkdirs();
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the results to a baseline file.
+   *
+   * @param results the results to store
+   * @param path    the path of the baseline file
+   * @throws IOException if the file cannot be written
+   */
+  private static void store(Map<String, double[]> results, String path) throws IOException {
+    Properties properties = new Properties();
+    for (Map.Entry<String, double[]> entry : results.entrySet()) {
+      for (int m = 0; m < METRICS.length; m++) {
+        properties.setProperty(entry.getKey() + "." + METRICS[m],
+            String.format(Locale.ROOT, "%.3f", entry.getValue()[m]));
+      }
+    }
+    try (Writer writer = Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8)) {
+      properties.store(writer, "Script benchmark baseline");
+    }
+  }
+
+  /**
+   * Reads a baseline file.
+   *
+   * @param path the path of the baseline file
+   * @return the stored results
+   * @throws IOException if the file cannot be read
+   */
+  private static Properties load(String path) throws IOException {
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+      properties.load(reader);
+    }
+    return properties;
+  }
+
+  /**
+   * The resources used by one command of a script.
+   */
+  private static final class Sample {
+
+    private final String command;
+    private final ResourceUsage usage;
+
+    private Sample(String command, ResourceUsage usage) {
+      this.command = command;
+      this.usage = usage;
+    }
+  }
+
+  /**
+   * A controller whose commands record the resources they use. The script reader looks its
+   * commands up through {@link #getCommandMap()}, so every command it runs is measured, including
+   * the commands of nested scripts.
+   */
+  private static final class TimedController extends ImageController {
+
+    private final List<Sample> samples;
+
+    private TimedController(EnhancedImageModel model, List<Sample> samples) {
+      super(model);
+      this.samples = samples;
+    }
+
+    @Override
+    public Map<String, Consumer<String[]>> getCommandMap() {
+      Map<String, Consumer<String[]>> timed = new HashMap<>();
+      for (Map.Entry<String, Consumer<String[]>> entry : super.getCommandMap().entrySet()) {
+        String command = entry.getKey();
+        Consumer<String[]> handler = entry.getValue();
+        timed.put(command, args -> samples.add(
+            new Sample(command, ResourceUsage.measure(() -> handler.accept(args)))));
+      }
+      return timed;
+    }
+  }
+}
@@ -0,0 +1,171 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import model.colorscheme.Pixels;
+import model.imagetransformation.advancedoperations.AdjustLevel;
+import model.imagetransformation.advancedoperations.ColorCorrection;
+import model.imagetransformation.advancedoperations.Compression;
+import model.imagetransformation.advancedoperations.Downscale;
+import model.imagetransformation.advancedoperations.Histogram;
+import model.imagetransformation.advancedoperations.MaskedOperation;
+import model.imagetransformation.basicoperation.Brighten;
+import model.imagetransformation.basicoperation.ChannelExtractor;
+import model.imagetransformation.basicoperation.Combine;
+import model.imagetransformation.basicoperation.Flip;
+import model.imagetransformation.basicoperation.Intensity;
+import model.imagetransformation.basicoperation.Luma;
+import model.imagetransformation.basicoperation.Value;
+import model.imagetransformation.colortransformation.GreyScale;
+import model.imagetransformation.colortransformation.Sepia;
+import model.imagetransformation.filtering.Blur;
+import model.imagetransformation.filtering.Sharpen;
+import model.imageview.ArrayView;
+import model.imageview.GreyscaleImage;
+import model.imageview.ImageView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The {@code TransformationBenchmark} class measures the throughput of every transformation in
+ * {@code model.imagetransformation}, called directly on an array of pixels.
+ *
+ * <p>Each operation runs on square images of every size in {@link #size}, both synthetic and
+ * sample, see {@link BenchmarkImages}. Besides operations per second, the {@link PixelCounter}
+ * reports pixels per second, and the GC profiler added by {@link BenchmarkMain} reports the
+ * allocation rate and the bytes allocated per operation.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx16g"})
+public class TransformationBenchmark {
+
+  @Param({"256", "2048", "8192"})
+  public int size;
+
+  @Param({"synthetic", "sample"})
+  public String input;
+
+  @Param({"brighten", "greyscale", "sepia", "blur", "sharpen", "luma-component",
+      "value-component", "intensity-component", "red-component", "green-component",
+      "blue-component", "horizontal-flip", "vertical-flip", "split", "combine", "levels-adjust",
+      "color-correction", "compress", "histogram", "downscale-bilinear", "downscale-area",
+      "masked-blur"})
+  public String operation;
+
+  private long pixelCount;
+  private Supplier<Object> task;
+
+  /**
+   * Creates the input image and prepares the operation to measure.
+   *
+   * @throws IllegalArgumentException if the operation is unknown
+   */
+  @Setup
+  public void setUp() {
+    Pixels[][] pixels = BenchmarkImages.create(input, size);
+    pixelCount = (long) size * size;
+    switch (operation) {
+      case "brighten":
+        task = () -> new Brighten(10).apply(pixels);
+        break;
+      case "greyscale":
+        task = () -> new GreyScale().apply(pixels);
+        break;
+      case "sepia":
+        task = () -> new Sepia().apply(pixels);
+        break;
+      case "blur":
+        task = () -> new Blur().apply(pixels);
+        break;
+      case "sharpen":
+        task = () -> new Sharpen().apply(pixels);
+        break;
+      case "luma-component":
+        task = () -> new Luma().apply(pixels);
+        break;
+      case "value-component":
+        task = () -> new Value().apply(pixels);
+        break;
+      case "intensity-component":
+        task = () -> new Intensity().apply(pixels);
+        break;
+      case "red-component":
+        task = () -> new ChannelExtractor(1).apply(pixels);
+        break;
+      case "green-component":
+        task = () -> new ChannelExtractor(2).apply(pixels);
+        break;
+      case "blue-component":
+        task = () -> new ChannelExtractor(3).apply(pixels);
+        break;
+      case "horizontal-flip":
+        task = () -> new Flip().apply(pixels, Flip.Direction.HORIZONTAL);
+        break;
+      case "vertical-flip":
+        task = () -> new Flip().apply(pixels, Flip.Direction.VERTICAL);
+        break;
+      case "split":
+        ImageView view = new ArrayView(pixels);
+        task = () -> new GreyscaleImage[] {
+            new ChannelExtractor(1).applyGreyscale(view),
+            new ChannelExtractor(2).applyGreyscale(view),
+            new ChannelExtractor(3).applyGreyscale(view)};
+        break;
+      case "combine":
+        Pixels[][] red = new ChannelExtractor(1).apply(pixels);
+        Pixels[][] green = new ChannelExtractor(2).apply(pixels);
+        Pixels[][] blue = new ChannelExtractor(3).apply(pixels);
+        task = () -> new Combine().apply(red, green, blue);
+        break;
+      case "levels-adjust":
+        task = () -> new AdjustLevel(20, 100, 255).apply(pixels);
+        break;
+      case "color-correction":
+        task = () -> new ColorCorrection().apply(pixels);
+        break;
+      case "compress":
+        task = () -> new Compression(50).apply(pixels);
+        break;
+      case "histogram":
+        task = () -> new Histogram().apply(pixels);
+        break;
+      case "downscale-bilinear":
+        task = () -> new Downscale(size / 2, size / 2, Downscale.Mode.BILINEAR).apply(pixels);
+        break;
+      case "downscale-area":
+        task = () -> new Downscale(size / 3, size / 3, Downscale.Mode.AREA).apply(pixels);
+        break;
+      case "masked-blur":
+        Pixels[][] mask = BenchmarkImages.halfMask(size);
+        task = () -> new MaskedOperation(new Blur(), mask).apply(pixels);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown operation: " + operation);
+    }
+  }
+
+  /**
+   * Runs the operation once on the input image.
+   *
+   * @param counter the count of processed pixels
+   * @return the result, which JMH consumes so that the work is not optimized away
+   */
+  @Benchmark
+  public Object transform(PixelCounter counter) {
+    counter.pixels += pixelCount;
+    return task.get();
+  }
+}
@@ -1,7 +1,17 @@
+import controller.CommandProfiler;
 import controller.ImageController;
 import controller.ImageGUIController;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import javax.swing.SwingUtilities;
 import model.EnhancedImage;
+import model.Tracer;
 import view.ImageProcessorGUI;
 
 /**
@@ -9,10 +19,14 @@ import view.ImageProcessorGUI;
  * determines the mode of the application based on the provided arguments: - Launches a GUI if no
  * arguments are provided. - Runs a script if the `-file` argument with a file path is provided. -
  * Launches an interactive command-line interface if the `-text` argument is provided. If the
- * arguments are invalid, a message is displayed to guide the user.
+ * arguments are invalid, a message is displayed to guide the user. Adding `-profile` to the script
+ * or interactive mode measures every command and prints a summary when the mode ends, and adding
+ * `-trace` records a timeline of the commands, operations and image loads and saves.
  */
 public class Main {
 
+  private static final String TRACE_FILE = "trace.json";
+
   /**
    * The entry point for the application.
    *
@@ -24,19 +38,132 @@ public class Main {
    *   <li>Invalid arguments: Displays usage instructions.</li>
    * </ul>
    *
+   * <p>The script and interactive modes also accept <code>-profile [file.csv|file.json]</code>,
+   * which profiles every command, prints a summary table when the mode ends and, if a file is
+   * given, writes every command to it. They also accept <code>-trace [file.json]</code>, which
+   * writes a Chrome trace-event timeline of the run to the file, {@value #TRACE_FILE} by
+   * default.</p>
+   *
    * @param args the command-line arguments specifying the mode of operation.
    */
   public static void main(String[] args) {
-    if (args.length == 0) {
+    List<String> arguments = new ArrayList<>(Arrays.asList(args));
+    boolean profile = false;
+    String profileFile = null;
+    int profileIndex = arguments.indexOf("-profile");
+    if (profileIndex >= 0) {
+      profile = true;
+      arguments.remove(profileIndex);
+      if (profileIndex < arguments.size() && isProfileFile(arguments.get(profileIndex))) {
+        profileFile = arguments.remove(profileIndex);
+      }
+    }
+
+    String traceFile = null;
+    int traceIndex = arguments.indexOf("-trace");
+    if (traceIndex >= 0) {
+      arguments.remove(traceIndex);
+      traceFile = TRACE_FILE;
+      if (traceIndex < arguments.size()
+          && arguments.get(traceIndex).toLowerCase().endsWith(".json")) {
+        traceFile = arguments.remove(traceIndex);
+      }
+    }
+
+    if (arguments.isEmpty() && !profile && traceFile == null) {
       loadGui();
-    } else if (args.length == 2 && args[0].equals("-file")) {
-      runScript(args[1]);
-    } else if (args.length == 1 && args[0].equals("-text")) {
-      launchInteractiveMode();
+    } else if (arguments.size() == 2 && arguments.get(0).equals("-file")) {
+      EnhancedImage model = new EnhancedImage();
+      ImageController imageController = new ImageController(model);
+      CommandProfiler profiler = profile ? attachProfiler(model, imageController) : null;
+      startTrace(traceFile);
+      runScript(imageController, arguments.get(1));
+      reportProfile(profiler, profileFile);
+      writeTrace(traceFile);
+    } else if (arguments.size() == 1 && arguments.get(0).equals("-text")) {
+      EnhancedImage model = new EnhancedImage();
+      ImageController imageController = new ImageController(model);
+      CommandProfiler profiler = profile ? attachProfiler(model, imageController) : null;
+      startTrace(traceFile);
+      launchInteractiveMode(imageController);
+      reportProfile(profiler, profileFile);
+      writeTrace(traceFile);
     } else {
       System.out.println(
           "Invalid arguments. Use -file <file path> to run a script or -text to run the command"
-              + " line interface.");
+              + " line interface, optionally with -profile [file.csv|file.json] and"
+              + " -trace [file.json].");
+    }
+  }
+
+  /**
+   * Checks whether an argument names a file to write the profile to.
+   *
+   * @param argument the argument following {@code -profile}
+   * @return {@code true} if the argument ends in {@code .csv} or {@code .json}
+   */
+  private static boolean isProfileFile(String argument) {
+    String lower = argument.toLowerCase();
+    return lower.endsWith(".csv") || lower.endsWith(".json");
+  }
+
+  /**
+   * Creates a profiler and attaches it to the controller's commands.
+   *
+   * @param model           the model the controller works on
+   * @param imageController the controller to profile
+   * @return the attached profiler
+   */
+  private static CommandProfiler attachProfiler(EnhancedImage model,
+      ImageController imageController) {
+    CommandProfiler profiler = new CommandProfiler(model);
+    profiler.attach(imageController);
+    return profiler;
+  }
+
+  /**
+   * Prints the profile summary and writes the profile file, if profiling is enabled.
+   *
+   * @param profiler    the profiler, or {@code null} if profiling is disabled
+   * @param profileFile the file to write every command to, or {@code null} for none
+   */
+  private static void reportProfile(CommandProfiler profiler, String profileFile) {
+    if (profiler == null) {
+      return;
+    }
+    profiler.printSummary();
+    if (profileFile != null) {
+      profiler.write(profileFile);
+    }
+  }
+
+  /**
+   * Starts recording a trace, if tracing is enabled.
+   *
+   * @param traceFile the file to write the trace to, or {@code null} if tracing is disabled
+   */
+  private static void startTrace(String traceFile) {
+    if (traceFile != null) {
+      Tracer.global().start();
+    }
+  }
+
+  /**
+   * Stops recording the trace and writes it to its file, if tracing is enabled.
+   *
+   * @param traceFile the file to write the trace to, or {@code null} if tracing is disabled
+   */
+  private static void writeTrace(String traceFile) {
+    if (traceFile == null) {
+      return;
+    }
+    Tracer tracer = Tracer.global();
+    tracer.stop();
+    try (Writer writer = Files.newBufferedWriter(Paths.get(traceFile), StandardCharsets.UTF_8)) {
+      tracer.write(writer);
+      System.out.println("Trace of " + tracer.size() + " spans written to " + traceFile);
+    } catch (IOException e) {
+      System.out.println("Error writing trace: " + e.getMessage());
     }
   }
 
@@ -56,11 +183,10 @@ public class Main {
    * Runs a script located at the specified file path. The script contains commands that are
    * processed by the image controller.
    *
-   * @param scriptPath the path to the script file containing commands to be executed
+   * @param imageController the controller that runs the commands
+   * @param scriptPath      the path to the script file containing commands to be executed
    */
-  private static void runScript(String scriptPath) {
-    EnhancedImage model = new EnhancedImage();
-    ImageController imageController = new ImageController(model);
+  private static void runScript(ImageController imageController, String scriptPath) {
     imageController.handleScript(new String[]{"run-script", scriptPath});
   }
 
@@ -68,10 +194,10 @@ public class Main {
    * Launches the interactive command-line mode for the image processing application. The user is
    * presented with a menu of available operations, and the application waits for the user's input
    * to process commands.
+   *
+   * @param imageController the controller that runs the commands
    */
-  private static void launchInteractiveMode() {
-    EnhancedImage model = new EnhancedImage();
-    ImageController imageController = new ImageController(model);
+  private static void launchInteractiveMode(ImageController imageController) {
     imageController.printMenu();
     imageController.run();
   }
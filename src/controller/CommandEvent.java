@@ -0,0 +1,60 @@
+package controller;
+
+import java.util.function.Consumer;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import model.Tracer;
+
+/**
+ * The {@code CommandEvent} class is the Java Flight Recorder event emitted for every command an
+ * {@link ImageController} dispatches, whether it comes from a script, from the interactive prompt
+ * or from a nested {@code run-script}. The duration of the event is the time the command took,
+ * so the transformation and I/O events recorded inside it can be attributed to the command.
+ * While the {@link Tracer} traces, every command is also recorded as a span.
+ */
+@Name("imageprocessing.ScriptCommand")
+@Label("Script Command")
+@Category({"Image Processing", "Controller"})
+@Description("A command dispatched by the image controller")
+public class CommandEvent extends Event {
+
+  @Label("Command")
+  String command;
+
+  @Label("Arguments")
+  String arguments;
+
+  /**
+   * Wraps the handler of a command so that every call of it is recorded, including calls that
+   * throw.
+   *
+   * @param name    the name of the command
+   * @param handler the handler of the command
+   * @return the recording handler
+   */
+  static Consumer<String[]> record(String name, Consumer<String[]> handler) {
+    return args -> {
+      CommandEvent event = new CommandEvent();
+      long startNanos = System.nanoTime();
+      event.begin();
+      try {
+        handler.accept(args);
+      } finally {
+        event.end();
+        Tracer tracer = Tracer.global();
+        if (tracer.isEnabled()) {
+          tracer.record(name, Tracer.COMMAND, startNanos, System.nanoTime(),
+              "line", String.join(" ", args));
+        }
+        if (event.shouldCommit()) {
+          event.command = name;
+          event.arguments = String.join(" ", args);
+          event.commit();
+        }
+      }
+    };
+  }
+}
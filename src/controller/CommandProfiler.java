@@ -0,0 +1,273 @@
+package controller;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import model.ImageModel;
+
+/**
+ * The {@code CommandProfiler} class measures every command an {@link ImageController} dispatches
+ * through its command map, in script mode as well as in interactive mode.
+ *
+ * <p>For every command it records the wall time, the CPU time and the bytes allocated by the
+ * thread that ran it, read from the {@link ThreadMXBean}, and the size of the images the command
+ * read and wrote. Work that an operation hands to other threads, such as the parallel filters, is
+ * not included in the CPU time or the allocated bytes. An image counts as written if the command
+ * stored a new image under one of its arguments, and as read if one of its arguments named an
+ * image before the command ran.</p>
+ *
+ * <p>{@link #printSummary()} prints the commands grouped by name and sorted by their total time,
+ * followed by the slowest single commands, and {@link #write(String)} writes every command to a
+ * CSV or JSON file.</p>
+ */
+public class CommandProfiler {
+
+  private static final int SLOWEST_COMMANDS = 10;
+
+  private final ImageModel imageModel;
+  private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+  private final List<Record> records = Collections.synchronizedList(new ArrayList<>());
+
+  /**
+   * Constructs a profiler that reads image sizes from the given model.
+   *
+   * @param imageModel the model the profiled controller works on
+   */
+  public CommandProfiler(ImageModel imageModel) {
+    this.imageModel = imageModel;
+  }
+
+  /**
+   * Wraps every command in the controller's command map, so that each command it dispatches from
+   * now on is measured.
+   *
+   * @param controller the controller to profile
+   */
+  public void attach(ImageController controller) {
+    Map<String, Consumer<String[]>> commandMap = controller.getCommandMap();
+    commandMap.replaceAll((name, handler) -> args -> profile(name, handler, args));
+  }
+
+  /**
+   * Runs a command and records what it cost. The command is recorded even if it throws.
+   *
+   * @param name    the name of the command
+   * @param handler the handler of the command
+   * @param args    the arguments of the command, starting with its name
+   */
+  private void profile(String name, Consumer<String[]> handler, String[] args) {
+    long[] versions = new long[args.length];
+    List<String> inputs = new ArrayList<>();
+    for (int i = 1; i < args.length; i++) {
+      versions[i] = imageModel.getStoredVersion(args[i]);
+      addSize(inputs, args[i]);
+    }
+
+    long cpu = threadCpuTime();
+    long allocated = threadAllocatedBytes();
+    long start = System.nanoTime();
+    try {
+      handler.accept(args);
+    } finally {
+      long wall = System.nanoTime() - start;
+      long cpuUsed = cpu < 0 ? -1 : threadCpuTime() - cpu;
+      long allocatedBytes = allocated < 0 ? -1 : threadAllocatedBytes() - allocated;
+
+      List<String> outputs = new ArrayList<>();
+      for (int i = 1; i < args.length; i++) {
+        long version = imageModel.getStoredVersion(args[i]);
+        if (version != 0 && version != versions[i]) {
+          addSize(outputs, args[i]);
+        }
+      }
+      records.add(new Record(name, String.join(" ", args), wall, cpuUsed, allocatedBytes,
+          String.join(" ", inputs), String.join(" ", outputs)));
+    }
+  }
+
+  /**
+   * Adds the key and size of an image to a list, if an image is stored under the key.
+   *
+   * @param sizes the list to add to
+   * @param key   the argument that may name an image
+   */
+  private void addSize(List<String> sizes, String key) {
+    int[] size = imageModel.getStoredSize(key);
+    if (size != null && !sizes.contains(key + "=" + size[0] + "x" + size[1])) {
+      sizes.add(key + "=" + size[0] + "x" + size[1]);
+    }
+  }
+
+  /**
+   * Returns the CPU time of the current thread.
+   *
+   * @return the CPU time in nanoseconds, or -1 if it cannot be measured
+   */
+  private long threadCpuTime() {
+    return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : -1;
+  }
+
+  /**
+   * Returns the bytes allocated so far by the current thread.
+   *
+   * @return the allocated bytes, or -1 if they cannot be measured
+   */
+  private long threadAllocatedBytes() {
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) threads)
+          .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return -1;
+  }
+
+  /**
+   * Prints the profiled commands grouped by name and sorted by their total wall time, followed by
+   * the slowest single commands.
+   */
+  public void printSummary() {
+    List<Record> snapshot = snapshot();
+    Map<String, long[]> totals = new LinkedHashMap<>();
+    for (Record record : snapshot) {
+      long[] total = totals.computeIfAbsent(record.command, name -> new long[4]);
+      total[0]++;
+      total[1] += record.wallNanos;
+      total[2] += Math.max(0, record.cpuNanos);
+      total[3] += Math.max(0, record.allocatedBytes);
+    }
+    List<Map.Entry<String, long[]>> byTime = new ArrayList<>(totals.entrySet());
+    byTime.sort((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]));
+
+    System.out.println();
+    System.out.println("Profile of " + snapshot.size() + " commands");
+    System.out.println(String.format(Locale.ROOT, "%-20s %6s %12s %12s %12s %14s",
+        "Command", "Calls", "Wall ms", "Mean ms", "CPU ms", "Allocated MB"));
+    for (Map.Entry<String, long[]> entry : byTime) {
+      long[] total = entry.getValue();
+      System.out.println(String.format(Locale.ROOT, "%-20s %6d %12.1f %12.1f %12.1f %14.1f",
+          entry.getKey(), total[0], total[1] / 1e6, total[1] / 1e6 / total[0], total[2] / 1e6,
+          total[3] / 1048576.0));
+    }
+
+    List<Record> slowest = new ArrayList<>(snapshot);
+    slowest.sort((a, b) -> Long.compare(b.wallNanos, a.wallNanos));
+    System.out.println();
+    System.out.println("Slowest commands");
+    for (Record record : slowest.subList(0, Math.min(SLOWEST_COMMANDS, slowest.size()))) {
+      System.out.println(String.format(Locale.ROOT, "%10.1f ms  %s  [in: %s] [out: %s]",
+          record.wallNanos / 1e6, record.line, record.inputs, record.outputs));
+    }
+  }
+
+  /**
+   * Writes every profiled command to a file, as JSON if the file name ends in {@code .json} and
+   * as CSV otherwise. Times are in milliseconds, and -1 marks a value that could not be measured.
+   *
+   * @param filename the path of the file to write
+   */
+  public void write(String filename) {
+    boolean json = filename.toLowerCase().endsWith(".json");
+    try (PrintWriter writer = new PrintWriter(
+        Files.newBufferedWriter(Paths.get(filename), StandardCharsets.UTF_8))) {
+      List<Record> snapshot = snapshot();
+      if (json) {
+        writer.println("[");
+      } else {
+        writer.println("index,command,line,wallMillis,cpuMillis,allocatedBytes,inputs,outputs");
+      }
+      for (int i = 0; i < snapshot.size(); i++) {
+        Record record = snapshot.get(i);
+        double cpuMillis = record.cpuNanos < 0 ? -1 : record.cpuNanos / 1e6;
+        if (json) {
+          writer.print(String.format(Locale.ROOT, "  {\"index\": %d, \"command\": \"%s\", "
+                  + "\"line\": \"%s\", \"wallMillis\": %.3f, \"cpuMillis\": %.3f, "
+                  + "\"allocatedBytes\": %d, \"inputs\": \"%s\", \"outputs\": \"%s\"}",
+              i + 1, escapeJson(record.command), escapeJson(record.line),
+              record.wallNanos / 1e6, cpuMillis, record.allocatedBytes,
+              escapeJson(record.inputs), escapeJson(record.outputs)));
+          writer.println(i + 1 < snapshot.size() ? "," : "");
+        } else {
+          writer.println(String.format(Locale.ROOT, "%d,%s,%s,%.3f,%.3f,%d,%s,%s",
+              i + 1, escapeCsv(record.command), escapeCsv(record.line),
+              record.wallNanos / 1e6, cpuMillis, record.allocatedBytes,
+              escapeCsv(record.inputs), escapeCsv(record.outputs)));
+        }
+      }
+      if (json) {
+        writer.println("]");
+      }
+      System.out.println("Profile written to " + filename);
+    } catch (IOException e) {
+      System.out.println("Error writing profile: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Returns a copy of the records, so they can be read while commands are still being recorded.
+   *
+   * @return the records so far
+   */
+  private List<Record> snapshot() {
+    synchronized (records) {
+      return new ArrayList<>(records);
+    }
+  }
+
+  /**
+   * Escapes a value for a JSON string.
+   *
+   * @param value the value
+   * @return the value with backslashes and quotes escaped
+   */
+  private static String escapeJson(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+
+  /**
+   * Quotes a CSV field if it contains a separator or a quote.
+   *
+   * @param value the value
+   * @return the value as a CSV field
+   */
+  private static String escapeCsv(String value) {
+    if (value.contains(",") || value.contains("\"")) {
+      return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+    return value;
+  }
+
+  /**
+   * What a single command cost.
+   */
+  private static class Record {
+
+    private final String command;
+    private final String line;
+    private final long wallNanos;
+    private final long cpuNanos;
+    private final long allocatedBytes;
+    private final String inputs;
+    private final String outputs;
+
+    private Record(String command, String line, long wallNanos, long cpuNanos,
+        long allocatedBytes, String inputs, String outputs) {
+      this.command = command;
+      this.line = line;
+      this.wallNanos = wallNanos;
+      this.cpuNanos = cpuNanos;
+      this.allocatedBytes = allocatedBytes;
+      this.inputs = inputs;
+      this.outputs = outputs;
+    }
+  }
+}
@@ -1,16 +1,25 @@
 package controller;
 
+import controller.imageformat.ImageFormat;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.CancellationException;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import model.EnhancedImageModel;
+import model.MetricsRegistry;
 import model.colorscheme.Pixels;
-import model.colorscheme.RGBPixel;
+import model.imagetransformation.advancedoperations.Downscale;
 import model.imagetransformation.basicoperation.Flip.Direction;
+import model.imageview.ArrayView;
+import model.imageview.ImageView;
 
 /**
  * The ImageController class handles user commands for image processing operations. It interacts
@@ -92,7 +101,8 @@ public class ImageController implements ImageControllerInterface {
   }
 
   /**
-   * Initializes the command map with available commands and their associated methods.
+   * Initializes the command map with available commands and their associated methods. Every
+   * handler records a {@link CommandEvent} when Java Flight Recorder is recording.
    */
   private void initializeCommandMap() {
     commandMap.put("load", this::handleLoad);
@@ -113,13 +123,16 @@ public class ImageController implements ImageControllerInterface {
     commandMap.put("green-component", this::applyOperation);
     commandMap.put("blue-component", this::applyOperation);
     commandMap.put("compress", this::handleCompression);
+    commandMap.put("compress-ycbcr", this::handleYCbCrCompression);
     commandMap.put("histogram", this::applyOperation);
     commandMap.put("color-correction", this::applyOperation);
     commandMap.put("levels-adjust", this::handleLevelsAdjust);
     commandMap.put("split", this::handleSplit);
     commandMap.put("downscale", this::handleDownscale);
     commandMap.put("run-script", this::handleScript);
+    commandMap.put("metrics", this::handleMetrics);
     commandMap.put("exit", args -> exitFlag = true);
+    commandMap.replaceAll(CommandEvent::record);
   }
 
   /**
@@ -175,21 +188,38 @@ public class ImageController implements ImageControllerInterface {
   }
 
   /**
-   * Loads an image from the specified file and stores it in the model.
+   * Loads an image from the specified file and stores it in the model. Two optional trailing
+   * arguments give the size the image will be downscaled to, which lets the file be decoded at a
+   * reduced resolution.
    *
-   * @param args the command arguments for loading an image
+   * @param args the command arguments for loading an image in the format:{@code load <filename>
+   *             <key> [targetWidth targetHeight]}
    */
   public void handleLoad(String[] args) {
-    if (args.length == 3) {
+    if (args.length == 3 || args.length == 5) {
       try {
-        Pixels[][] pixels = ImageUtil.loadImage(args[1]);
+        Pixels[][] pixels;
+        if (args.length == 5) {
+          int targetWidth = Integer.parseInt(args[3]);
+          int targetHeight = Integer.parseInt(args[4]);
+          if (targetWidth <= 0 || targetHeight <= 0) {
+            System.out.println("Invalid target size. Width and height must be positive.");
+            return;
+          }
+          pixels = ImageUtil.loadImage(args[1], targetWidth, targetHeight);
+        } else {
+          pixels = ImageUtil.loadImage(args[1]);
+        }
         imageModel.storePixels(args[2], pixels);
         System.out.println("Loaded Image " + args[2]);
+      } catch (NumberFormatException e) {
+        System.out.println("Invalid target size. Please enter whole numbers.");
       } catch (IllegalArgumentException e) {
         System.out.println(e.getMessage());
       }
     } else {
-      System.out.println("Invalid load command. Usage: load <filename> <key>");
+      System.out.println(
+          "Invalid load command. Usage: load <filename> <key> [targetWidth targetHeight]");
     }
   }
 
@@ -201,9 +231,9 @@ public class ImageController implements ImageControllerInterface {
   public void handleSave(String[] args) {
     if (args.length == 3) {
       try {
-        Pixels[][] pixels = imageModel.getStoredPixels(args[2]);
-        if (pixels != null) {
-          ImageUtil.saveImage(args[1], pixels);
+        ImageView image = imageModel.getStoredView(args[2]);
+        if (image != null) {
+          ImageUtil.saveImage(args[1], image);
           System.out.println("Saved Image " + args[2]);
         } else {
           System.out.println("No imageModel found with key: " + args[2]);
@@ -281,6 +311,8 @@ public class ImageController implements ImageControllerInterface {
       }
       imageModel.split(srcKey, args[2], args[3], args[4]);
       System.out.println("Split Image " + srcKey + " into red, green and blue");
+    } catch (CancellationException e) {
+      throw e;
     } catch (Exception e) {
       System.out.println("Error processing command: " + e.getMessage());
     }
@@ -316,47 +348,95 @@ public class ImageController implements ImageControllerInterface {
     if (pixels == null || pixels.length == 0) {
       throw new IllegalArgumentException("No pixels to convert.");
     }
+    return ImageFormat.toBufferedImage(new ArrayView(pixels));
+  }
 
-    int height = pixels.length;
-    int width = pixels[0].length;
-    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        if (pixels[y][x] instanceof RGBPixel) {
-          RGBPixel rgbPixel = (RGBPixel) pixels[y][x];
-          int rgb = (rgbPixel.getRed() << 16) | (rgbPixel.getGreen() << 8) | rgbPixel.getBlue();
-          image.setRGB(x, y, rgb);
-        }
-      }
+  /**
+   * Converts a view of an image into a BufferedImage, reading the red, green and blue values of
+   * each pixel directly from the view so compact images are not expanded into pixels.
+   *
+   * @param image a view of the image
+   * @return a BufferedImage constructed from the view
+   * @throws IllegalArgumentException if the view is null or empty
+   */
+  public BufferedImage convertViewToBufferedImage(ImageView image) {
+    if (image == null || image.getHeight() == 0) {
+      throw new IllegalArgumentException("No pixels to convert.");
     }
-
-    return image;
+    return ImageFormat.toBufferedImage(image);
   }
 
 
+
   /**
-   * Compresses an image by a specified compression ratio and saves it with a new key.
+   * Compresses an image by a specified compression ratio and saves it with a new key. An optional
+   * fifth argument selects the number of levels of the Haar transform.
    *
    * @param args the command-line arguments for compressing the image in the format:{@code compress
-   *             <ratio> <srcKey> <destKey>}
+   *             <ratio> <srcKey> <destKey> [levels]}
    */
   public void handleCompression(String[] args) {
-    if (args.length == 4) {
+    if (args.length == 4 || args.length == 5) {
       try {
         double compressionRatio = Double.parseDouble(args[1]);
         if (compressionRatio < 0 || compressionRatio > 100) {
           System.out.println("Invalid compression ratio. Must be between 0 and 100.");
           return;
         }
+        if (args.length == 5) {
+          int levels = Integer.parseInt(args[4]);
+          if (levels < 1) {
+            System.out.println("Invalid number of levels. Must be at least 1.");
+            return;
+          }
+          System.out.println("Applying compression to " + args[2] + " with ratio "
+              + compressionRatio + " and " + levels + " levels");
+          imageModel.compress(args[2], args[3], compressionRatio, levels);
+          return;
+        }
         System.out.println(
             "Applying compression to " + args[2] + " with ratio " + compressionRatio);
         imageModel.compress(args[2], args[3], compressionRatio);
       } catch (NumberFormatException e) {
-        System.out.println("Invalid compression ratio. Please enter a number.");
+        System.out.println("Invalid compression ratio or levels. Please enter a number.");
+      }
+    } else {
+      System.out.println(
+          "Invalid compression command. Usage: compress <ratio> <srcKey> <destKey> [levels]");
+    }
+  }
+
+  /**
+   * Compresses an image in the YCbCr colour space with separate ratios for the luma and the chroma
+   * channels and saves it with a new key. An optional sixth argument selects the number of levels
+   * of the Haar transform, which defaults to 1.
+   *
+   * @param args the command-line arguments for compressing the image in the format:{@code
+   *             compress-ycbcr <lumaRatio> <chromaRatio> <srcKey> <destKey> [levels]}
+   */
+  public void handleYCbCrCompression(String[] args) {
+    if (args.length == 5 || args.length == 6) {
+      try {
+        double lumaRatio = Double.parseDouble(args[1]);
+        double chromaRatio = Double.parseDouble(args[2]);
+        if (lumaRatio < 0 || lumaRatio > 100 || chromaRatio < 0 || chromaRatio > 100) {
+          System.out.println("Invalid compression ratio. Must be between 0 and 100.");
+          return;
+        }
+        int levels = args.length == 6 ? Integer.parseInt(args[5]) : 1;
+        if (levels < 1) {
+          System.out.println("Invalid number of levels. Must be at least 1.");
+          return;
+        }
+        System.out.println("Applying YCbCr compression to " + args[3] + " with luma ratio "
+            + lumaRatio + ", chroma ratio " + chromaRatio + " and " + levels + " levels");
+        imageModel.compressYCbCr(args[3], args[4], lumaRatio, chromaRatio, levels);
+      } catch (NumberFormatException e) {
+        System.out.println("Invalid compression ratio or levels. Please enter a number.");
       }
     } else {
-      System.out.println("Invalid compression command. Usage: compress <ratio> <srcKey> <destKey>");
+      System.out.println("Invalid compression command. Usage: compress-ycbcr <lumaRatio> "
+          + "<chromaRatio> <srcKey> <destKey> [levels]");
     }
   }
 
@@ -443,35 +523,50 @@ public class ImageController implements ImageControllerInterface {
       System.out.println("Split and transformed image " + srcKey + " with operation " + operation);
     } catch (NumberFormatException e) {
       System.out.println("Invalid split value. Please enter a valid number.");
+    } catch (CancellationException e) {
+      throw e;
     } catch (Exception e) {
       System.out.println("Error processing command: " + e.getMessage());
     }
   }
 
   /**
-   * Handles the downscale operation.
+   * Handles the downscale operation. An optional sixth argument selects the resampling mode,
+   * either {@code bilinear} (the default) or {@code area}.
    *
-   * @param args the command arguments for downscaling an image
+   * @param args the command arguments for downscaling an image in the format:{@code downscale
+   *             <srcKey> <newWidth> <newHeight> <destKey> [bilinear|area]}
    */
   public void handleDownscale(String[] args) {
-    if (args.length == 5) {
+    if (args.length == 5 || args.length == 6) {
       try {
         String srcKey = args[1];
         int newWidth = Integer.parseInt(args[2]);
         int newHeight = Integer.parseInt(args[3]);
         String destKey = args[4];
-        imageModel.downscale(srcKey, newWidth, newHeight, destKey);
+        if (args.length == 6) {
+          Downscale.Mode mode;
+          try {
+            mode = Downscale.Mode.valueOf(args[5].toUpperCase());
+          } catch (IllegalArgumentException e) {
+            System.out.println("Invalid downscale mode. Use bilinear or area.");
+            return;
+          }
+          imageModel.downscale(srcKey, newWidth, newHeight, destKey, mode);
+        } else {
+          imageModel.downscale(srcKey, newWidth, newHeight, destKey);
+        }
         System.out.println(
             "Downscaled image " + srcKey + " to " + newWidth + "x" + newHeight + " and saved as "
                 + destKey);
       } catch (NumberFormatException e) {
         System.out.println(
             "Invalid dimensions for downscale command. Usage: downscale <srcKey> <newWidth> "
-                + "<newHeight> <destKey>");
+                + "<newHeight> <destKey> [bilinear|area]");
       }
     } else {
-      System.out.println(
-          "Invalid downscale command. Usage: downscale <srcKey> <newWidth> <newHeight> <destKey>");
+      System.out.println("Invalid downscale command. Usage: downscale <srcKey> <newWidth> "
+          + "<newHeight> <destKey> [bilinear|area]");
     }
   }
 
@@ -523,6 +618,33 @@ public class ImageController implements ImageControllerInterface {
       System.out.println("Script executed successfully: " + scriptPath);
     } catch (IOException e) {
       System.out.println("Error reading script: " + e.getMessage());
+    } catch (CancellationException e) {
+      System.out.println("Script cancelled: " + scriptPath);
+    }
+  }
+
+  /**
+   * Prints the metrics collected so far in the plain-text exposition format, or writes them to a
+   * file.
+   *
+   * @param args the command arguments in the format:{@code metrics [filename]}
+   */
+  public void handleMetrics(String[] args) {
+    if (args.length == 1) {
+      try {
+        MetricsRegistry.global().write(System.out);
+      } catch (IOException e) {
+        System.out.println("Error writing metrics: " + e.getMessage());
+      }
+    } else if (args.length == 2) {
+      try (Writer writer = Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+        MetricsRegistry.global().write(writer);
+        System.out.println("Metrics written to " + args[1]);
+      } catch (IOException e) {
+        System.out.println("Error writing metrics: " + e.getMessage());
+      }
+    } else {
+      System.out.println("Invalid metrics command. Usage: metrics [filename]");
     }
   }
 
@@ -560,9 +682,11 @@ public class ImageController implements ImageControllerInterface {
     System.out.println("22. Split-And-Transform");
     System.out.println("\n---- Enhanced Image Operations ----");
     System.out.println("23. downscale");
+    System.out.println("24. compress-ycbcr");
     System.out.println("\n---- Additional Operations ----");
-    System.out.println("24. run-script");
-    System.out.println("25. Exit Program");
+    System.out.println("25. run-script");
+    System.out.println("26. metrics");
+    System.out.println("27. Exit Program");
     System.out.println("============================================");
   }
 }
\ No newline at end of file
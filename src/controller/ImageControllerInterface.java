@@ -28,11 +28,11 @@ public interface ImageControllerInterface {
   void run();
 
   /**
-   * Loads an image from the specified file and stores it using the provided key.
+   * Loads an image from the specified file and stores it using the provided key, optionally at a
+   * reduced resolution for the size it will be downscaled to.
    *
-   * @param args an array containing the filename and storage key in the format:
-   *             {@code load <filename>
-   *             <key>}
+   * @param args an array containing the filename, storage key and optional target size in the
+   *             format: {@code load <filename> <key> [targetWidth targetHeight]}
    */
   void handleLoad(String[] args);
 
@@ -76,8 +76,9 @@ public interface ImageControllerInterface {
   /**
    * Compresses an image to the specified compression ratio, saving the result with a new key.
    *
-   * @param args an array containing the compression ratio, source key, and destination key in the
-   *             format: {@code compress <ratio> <srcKey> <destKey>}
+   * @param args an array containing the compression ratio, source key, destination key and an
+   *             optional number of levels in the format:
+   *             {@code compress <ratio> <srcKey> <destKey> [levels]}
    */
   void handleCompression(String[] args);
 
@@ -1,30 +1,49 @@
 package controller;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.File;
 import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.function.Consumer;
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 import model.EnhancedImage;
 import model.EnhancedImageModel;
 import model.colorscheme.Pixels;
+import model.imagetransformation.advancedoperations.Downscale;
+import model.imagetransformation.advancedoperations.Histogram;
 import model.imagetransformation.basicoperation.Flip.Direction;
+import model.imageview.ImageView;
 import view.ImageProcessorGUI;
+import view.ImageProcessorGUIInterface;
 
 /**
  * Controller for handling the GUI interactions of the image processor application. This class
  * manages the communication between the view (GUI) and the model, processes user inputs, and
  * executes image-related operations.
+ *
+ * <p>Previews are computed on a display-resolution proxy of the current image rather than on the
+ * image itself, so how long a preview takes does not depend on the size of the image. The proxy is
+ * an area-averaged downscale that fits the preview dialog, kept in the model and made again only
+ * when the current image changes. The full-resolution image is only processed once the user
+ * applies an operation.</p>
  */
 public class ImageGUIController extends ImageController implements ImageGUIControllerInterface {
 
+  private static final int DRAFT_REDUCTION = 1;
+  private static final int PROXY_SIZE = 600;
+  private static final String PROXY_KEY = "preview-proxy";
+
   String latest;
   private final ImageController imageController;
-  ImageProcessorGUI gui;
+  ImageProcessorGUIInterface gui;
   EnhancedImageModel i1;
   String original;
+  private String proxySource;
+  private long proxyVersion;
 
   /**
    * Constructs an ImageGUIController with the specified model and controller.
@@ -72,6 +91,8 @@ public class ImageGUIController extends ImageController implements ImageGUIContr
         gui.displayImage(image);
       } catch (IllegalArgumentException ex) {
         gui.showError("Error loading image: " + ex.getMessage());
+      } catch (CancellationException ex) {
+        throw ex;
       } catch (Exception ex) {
         gui.showError("An unexpected error occurred: " + ex.getMessage());
       }
@@ -114,13 +135,26 @@ public class ImageGUIController extends ImageController implements ImageGUIContr
    */
   @Override
   public void applyHistogram(String[] args) {
-    String key = latest;
-    String dest = latest + "_histogram";
-    String[] command = {"histogram", key, dest};
-    imageController.applyOperation(command);
-    Pixels[][] pixels = imageModel.getStoredPixels(dest);
-    BufferedImage image = imageController.convertPixelsToBufferedImage(pixels);
-    gui.displayHistogram(image);
+    Pixels[][] pixels = imageModel.getStoredPixels(latest);
+    if (pixels == null) {
+      return;
+    }
+    gui.displayHistogram(createHistogramImage(pixels));
+  }
+
+  /**
+   * Draws the histogram of the given pixels straight into the backing array of a new
+   * {@link BufferedImage}, without storing an intermediate histogram image in the model.
+   *
+   * @param pixels the pixels to draw the histogram for
+   * @return a 256x256 image of the red, green and blue histograms
+   */
+  public BufferedImage createHistogramImage(Pixels[][] pixels) {
+    BufferedImage image = new BufferedImage(Histogram.SIZE, Histogram.SIZE,
+        BufferedImage.TYPE_INT_RGB);
+    int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    Histogram.render(Histogram.channelCounts(pixels), data);
+    return image;
   }
 
 
@@ -130,16 +164,18 @@ public class ImageGUIController extends ImageController implements ImageGUIContr
    * @param gui The GUI instance for displaying the image.
    * @param key The key associated with the image.
    */
-  public void displayImageByKey(ImageProcessorGUI gui, String key) {
+  public void displayImageByKey(ImageProcessorGUIInterface gui, String key) {
     try {
-      Pixels[][] pixels = imageModel.getStoredPixels(key);
-      if (pixels == null) {
+      ImageView view = imageModel.getStoredView(key);
+      if (view == null) {
         throw new IllegalArgumentException("No image found with key: " + key);
       }
-      BufferedImage image = imageController.convertPixelsToBufferedImage(pixels);
+      BufferedImage image = imageController.convertViewToBufferedImage(view);
       gui.displayImage(image);
     } catch (IllegalArgumentException ex) {
       gui.showError("Error displaying image: " + ex.getMessage());
+    } catch (CancellationException ex) {
+      throw ex;
     } catch (Exception ex) {
       gui.showError("An unexpected error occurred: " + ex.getMessage());
     }
@@ -199,10 +235,14 @@ public class ImageGUIController extends ImageController implements ImageGUIContr
         // Optionally, display the saved image (if needed)
         displayImageByKey(gui, latest);
 
-        // Show a success message
-        JOptionPane.showMessageDialog(null,
-            "Image saved successfully to " + fileToSave.getAbsolutePath(),
-            "Save Success", JOptionPane.INFORMATION_MESSAGE);
+        // Show a success message, on the event dispatch thread as the save may run in the
+        // background
+        String savedPath = fileToSave.getAbsolutePath();
+        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null,
+            "Image saved successfully to " + savedPath,
+            "Save Success", JOptionPane.INFORMATION_MESSAGE));
+      } catch (CancellationException e) {
+        throw e;
       } catch (Exception e) {
         gui.showError("An error occurred while saving the image: " + e.getMessage());
       }
@@ -236,6 +276,8 @@ public class ImageGUIController extends ImageController implements ImageGUIContr
         displayImageByKey(gui, latest);
       } catch (NumberFormatException e) {
         gui.showError("Invalid brighten command. Please enter a valid integer for the factor.");
+      } catch (CancellationException e) {
+        throw e;
       } catch (Exception e) {
         gui.showError("An unexpected error occurred: " + e.getMessage());
       }
@@ -264,6 +306,8 @@ public class ImageGUIController extends ImageController implements ImageGUIContr
       try {
         // Display the updated image
         displayImageByKey(gui, latest);
+      } catch (CancellationException e) {
+        throw e;
       } catch (Exception e) {
         gui.showError("Error displaying the previous version of the image: " + e.getMessage());
       }
@@ -296,6 +340,8 @@ public class ImageGUIController extends ImageController implements ImageGUIContr
         displayImageByKey(gui, latest);
       } catch (NumberFormatException e) {
         gui.showError("Invalid compression ratio. Please enter a valid number.");
+      } catch (CancellationException e) {
+        throw e;
       } catch (Exception e) {
         gui.showError("An unexpected error occurred: " + e.getMessage());
       }
@@ -304,6 +350,54 @@ public class ImageGUIController extends ImageController implements ImageGUIContr
     }
   }
 
+  /**
+   * Returns a preview of the current image compressed at the given ratio, computed on its
+   * display-resolution proxy. The Haar coefficients of the proxy are cached by the model, so moving
+   * the ratio only costs an inverse transform, and a draft preview skips the finest level of that
+   * as well.
+   *
+   * @param compressionRatio the compression ratio (0 to 100)
+   * @param draft            whether a reduced resolution preview is sufficient
+   * @return the preview image
+   * @throws IllegalArgumentException if there is no current image or the ratio is out of range
+   */
+  @Override
+  public BufferedImage previewCompression(double compressionRatio, boolean draft) {
+    Pixels[][] pixels = imageModel.previewCompression(proxyKey(), compressionRatio, 1,
+        draft ? DRAFT_REDUCTION : 0);
+    return imageController.convertPixelsToBufferedImage(pixels);
+  }
+
+  /**
+   * Returns the key of the display-resolution proxy of the current image, no larger than
+   * {@value #PROXY_SIZE} pixels on either side. The proxy is an area-averaged downscale of the
+   * image, made again only when the current image or the image stored under its key changes. An
+   * image that already fits is its own proxy.
+   *
+   * @return the key of the proxy
+   * @throws IllegalArgumentException if there is no current image
+   */
+  String proxyKey() {
+    int[] size = imageModel.getStoredSize(latest);
+    if (size == null) {
+      throw new IllegalArgumentException("No image found with key: " + latest);
+    }
+    int longest = Math.max(size[0], size[1]);
+    if (longest <= PROXY_SIZE) {
+      return latest;
+    }
+    long version = imageModel.getStoredVersion(latest);
+    if (!latest.equals(proxySource) || version != proxyVersion || version == 0
+        || imageModel.getStoredSize(PROXY_KEY) == null) {
+      int width = Math.max(1, (int) ((long) size[0] * PROXY_SIZE / longest));
+      int height = Math.max(1, (int) ((long) size[1] * PROXY_SIZE / longest));
+      imageModel.downscale(latest, width, height, PROXY_KEY, Downscale.Mode.AREA);
+      proxySource = latest;
+      proxyVersion = version;
+    }
+    return PROXY_KEY;
+  }
+
   /**
    * Handles the levels adjustment operation for an image, with optional split and preview
    * functionality.
@@ -316,7 +410,8 @@ public class ImageGUIController extends ImageController implements ImageGUIContr
    *                           <li>args[3] - optional split percentage (integer, 0-100)</li>
    *                         </ul>
    *             Displays the adjusted image or a preview in the GUI, and handles errors for
-   *             invalid inputs or exceptions.
+   *             invalid inputs or exceptions. The preview is computed on the display-resolution
+   *             proxy of the image.
    */
   @Override
   public void handleLevelsAdjust(String[] args) {
@@ -349,6 +444,8 @@ public class ImageGUIController extends ImageController implements ImageGUIContr
       } catch (NumberFormatException e) {
         gui.showError(
             "Invalid level values. Please enter integers for black, mid, and white points.");
+      } catch (CancellationException e) {
+        throw e;
       } catch (Exception e) {
         gui.showError("An unexpected error occurred: " + e.getMessage());
       }
@@ -364,8 +461,8 @@ public class ImageGUIController extends ImageController implements ImageGUIContr
           throw new IllegalArgumentException("Split percentage must be between 0 and 100.");
         }
 
-        String key = latest;
-        String dest = key + "_split-levels-adjusted";
+        String key = proxyKey();
+        String dest = PROXY_KEY + "_split-levels-adjusted";
 
         String[] command = {
             "levels-adjust",
@@ -380,10 +477,13 @@ public class ImageGUIController extends ImageController implements ImageGUIContr
 
         // Execute the levels adjustment command
         System.out.println("ImageGUIController " + Arrays.toString(command));
+        long previous = imageModel.getStoredVersion(dest);
         imageController.handleLevelsAdjust(command);
 
-        // Retrieve the preview image
-        Pixels[][] previewPixels = imageModel.getStoredPixels(dest);
+        // Retrieve the preview image, which must have been stored by this adjustment as the
+        // preview key is reused
+        Pixels[][] previewPixels = imageModel.getStoredVersion(dest) == previous ? null
+            : imageModel.getStoredPixels(dest);
         if (previewPixels == null) {
           throw new IllegalArgumentException(
               "Failed to generate preview for split levels adjustment.");
@@ -398,6 +498,8 @@ public class ImageGUIController extends ImageController implements ImageGUIContr
         gui.showError("Invalid level values or split percentage. Please enter integers.");
       } catch (IllegalArgumentException e) {
         gui.showError(e.getMessage());
+      } catch (CancellationException e) {
+        throw e;
       } catch (Exception e) {
         gui.showError("An unexpected error occurred: " + e.getMessage());
       }
@@ -413,7 +515,7 @@ public class ImageGUIController extends ImageController implements ImageGUIContr
   /**
    * Handles the split operation on the currently loaded image. This method splits the image based
    * on the specified operation and split percentage. The result is displayed as a preview in the
-   * GUI.
+   * GUI, computed on the display-resolution proxy of the image.
    *
    * @param args the command arguments. The array must contain at least two elements:
    *             <ul>
@@ -427,15 +529,22 @@ public class ImageGUIController extends ImageController implements ImageGUIContr
   public void handleSplit(String[] args) {
     if (args.length >= 2) {
       String operation = args[0];
-      String key = latest;
-      String dest = key + "_split-" + operation;
       String splitPercentage = args[1];
       try {
+        String key = proxyKey();
+        String dest = PROXY_KEY + "_split-" + operation;
         String[] command = {operation, key, dest, "split", splitPercentage};
+        long previous = imageModel.getStoredVersion(dest);
         imageController.handleSplit(command);
+        if (imageModel.getStoredVersion(dest) == previous) {
+          // The preview key is reused, so what is stored there is an earlier preview
+          throw new IllegalArgumentException("Failed to generate preview for " + operation + ".");
+        }
         BufferedImage preview = convertPixelsToBufferedImage(imageModel.getStoredPixels(dest));
 
         gui.showPreview(preview, operation);
+      } catch (CancellationException e) {
+        throw e;
       } catch (Exception e) {
         gui.showError("Error processing split command: " + e.getMessage());
       }
@@ -473,6 +582,8 @@ public class ImageGUIController extends ImageController implements ImageGUIContr
         imageController.handleFlip(command, direction); // Perform the flip operation
         latest = dest;
         displayImageByKey(gui, dest);// Display the flipped image
+      } catch (CancellationException e) {
+        throw e;
       } catch (Exception e) {
         gui.showError("Error processing flip command: " + e.getMessage());
       }
@@ -514,6 +625,8 @@ public class ImageGUIController extends ImageController implements ImageGUIContr
 
     } catch (NumberFormatException e) {
       gui.showError("Invalid dimensions. Please enter valid integers for width and height.");
+    } catch (CancellationException e) {
+      throw e;
     } catch (Exception e) {
       gui.showError("An unexpected error occurred: " + e.getMessage());
     }
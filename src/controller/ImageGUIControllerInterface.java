@@ -1,7 +1,9 @@
 package controller;
 
+import java.awt.image.BufferedImage;
 import javax.swing.JFileChooser;
 import view.ImageProcessorGUI;
+import view.ImageProcessorGUIInterface;
 
 /**
  * Interface that defines the methods for controlling the image processing GUI. This interface
@@ -64,13 +66,24 @@ public interface ImageGUIControllerInterface extends ImageControllerInterface {
    */
   void applyHistogram(String[] args);
 
+  /**
+   * Returns a preview of the current image compressed at the given ratio, without changing the
+   * current image. A draft preview is rendered at a reduced resolution so it can follow a slider
+   * while it is being dragged.
+   *
+   * @param compressionRatio the compression ratio (0 to 100)
+   * @param draft            whether a reduced resolution preview is sufficient
+   * @return the preview image
+   */
+  BufferedImage previewCompression(double compressionRatio, boolean draft);
+
   /**
    * Displays an image in the GUI using the specified image key.
    *
-   * @param gui the instance of {@link ImageProcessorGUI} where the image will be displayed.
+   * @param gui the GUI where the image will be displayed.
    * @param key the key that identifies the image to be displayed.
    */
-  void displayImageByKey(ImageProcessorGUI gui, String key);
+  void displayImageByKey(ImageProcessorGUIInterface gui, String key);
 
   void handleDownscale(String widthInput, String heightInput);
 }
@@ -0,0 +1,106 @@
+package controller;
+
+import java.io.File;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import model.MetricsRegistry;
+import model.Tracer;
+import model.colorscheme.Pixels;
+
+/**
+ * The {@code ImageIoEvent} class is the Java Flight Recorder event emitted every time
+ * {@link ImageUtil} loads or saves an image file, with the format, the path, the size of the file
+ * and the size of the image. The duration of the event is the time spent decoding or encoding,
+ * including the file access.
+ *
+ * <p>Every load and save is also recorded in the {@link MetricsRegistry}, whether or not a
+ * recording is running, and as a decode or encode span of the {@link Tracer} while it
+ * traces.</p>
+ */
+@Name("imageprocessing.ImageIO")
+@Label("Image I/O")
+@Category({"Image Processing", "I/O"})
+@Description("An image file loaded or saved by the image formats")
+public class ImageIoEvent extends Event {
+
+  @Label("Operation")
+  String operation;
+
+  @Label("Format")
+  String format;
+
+  @Label("Path")
+  String path;
+
+  @Label("File Size")
+  @DataAmount(DataAmount.BYTES)
+  long bytes;
+
+  @Label("Width")
+  int width;
+
+  @Label("Height")
+  int height;
+
+  private transient long startNanos;
+
+  /**
+   * Creates an event for loading or saving a file and starts timing it.
+   *
+   * @param operation {@code load} or {@code save}
+   * @param path      the path of the file
+   * @return the started event
+   */
+  static ImageIoEvent start(String operation, String path) {
+    ImageIoEvent event = new ImageIoEvent();
+    event.operation = operation;
+    event.path = path;
+    event.startNanos = System.nanoTime();
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Stops timing the event, records it in the metrics and the trace and commits it if it is
+   * enabled, with the size of the given image.
+   *
+   * @param pixels the image that was loaded or saved, or {@code null} if the format returned none
+   */
+  void end(Pixels[][] pixels) {
+    if (pixels == null || pixels.length == 0) {
+      end(-1, -1);
+    } else {
+      end(pixels[0].length, pixels.length);
+    }
+  }
+
+  /**
+   * Stops timing the event, records it in the metrics and the trace and commits it if it is
+   * enabled. The size of the file is read after it was loaded or saved.
+   *
+   * @param width  the width of the image
+   * @param height the height of the image
+   */
+  void end(int width, int height) {
+    end();
+    this.format = path.substring(path.lastIndexOf('.') + 1).toLowerCase();
+    this.bytes = new File(path).length();
+    long endNanos = System.nanoTime();
+    MetricsRegistry.global().recordImageIo(operation, format, bytes, endNanos - startNanos);
+    Tracer tracer = Tracer.global();
+    if (tracer.isEnabled()) {
+      String category = operation.equals("load") ? Tracer.DECODE : Tracer.ENCODE;
+      tracer.record(operation + " " + format, category, startNanos, endNanos,
+          "path", path, "bytes", bytes, "size", width + "x" + height);
+    }
+    if (shouldCommit()) {
+      this.width = width;
+      this.height = height;
+      commit();
+    }
+  }
+}
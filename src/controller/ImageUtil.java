@@ -1,13 +1,17 @@
 package controller;
 
+import controller.imageformat.ImageFormat;
 import controller.imageformat.JPGImage;
 import controller.imageformat.PNGImage;
 import controller.imageformat.PPMImage;
+import controller.imageformat.WaveletImage;
 import model.colorscheme.Pixels;
+import model.imageview.ImageView;
 
 /**
  * Utility class for loading and saving image files in various formats. The class supports PNG, JPG,
- * and PPM image formats and provides methods to load and save images as 2D arrays of Pixels.
+ * PPM and the sparse Haar wavelet (HAAR) image formats and provides methods to load and save images
+ * as 2D arrays of Pixels.
  */
 public class ImageUtil {
 
@@ -22,31 +26,80 @@ public class ImageUtil {
    *                                  during loading.
    */
   public static Pixels[][] loadImage(String filename) {
-    String fileExtension = filename.substring(filename.lastIndexOf("."));
-    Pixels[][] pixels = null;
+    try {
+      ImageIoEvent event = ImageIoEvent.start("load", filename);
+      Pixels[][] pixels = formatFor(filename).load(filename);
+      event.end(pixels);
+      return pixels;
+    } catch (Exception e) {
+      throw new IllegalArgumentException("Error loading image: " + e.getMessage());
+    }
+  }
 
+  /**
+   * Loads an image from the specified file at a reduced resolution for a target size. Formats that
+   * can skip pixels while decoding never materialise the full image, and return an image shrunk by
+   * a whole factor that is still at least as large as the target. The result is meant to be
+   * downscaled to the exact target afterwards.
+   *
+   * @param filename     the path to the image file to be loaded.
+   * @param targetWidth  the width the image will be downscaled to.
+   * @param targetHeight the height the image will be downscaled to.
+   * @return a 2D array of Pixels representing the reduced image.
+   * @throws IllegalArgumentException if the image format is unsupported or if there is an error
+   *                                  during loading.
+   */
+  public static Pixels[][] loadImage(String filename, int targetWidth, int targetHeight) {
     try {
-      switch (fileExtension.toLowerCase()) {
-        case ".png":
-          PNGImage pngFormat = new PNGImage();
-          pixels = pngFormat.load(filename);
-          break;
-        case ".jpg":
-          JPGImage jpgFormat = new JPGImage();
-          pixels = jpgFormat.load(filename);
-          break;
-        case ".ppm":
-          PPMImage ppmFormat = new PPMImage();
-          pixels = ppmFormat.load(filename);
-          break;
-        default:
-          throw new IllegalArgumentException("Unsupported image format");
-      }
+      ImageIoEvent event = ImageIoEvent.start("load", filename);
+      Pixels[][] pixels = formatFor(filename).load(filename, targetWidth, targetHeight);
+      event.end(pixels);
+      return pixels;
     } catch (Exception e) {
       throw new IllegalArgumentException("Error loading image: " + e.getMessage());
     }
+  }
 
-    return pixels;
+  /**
+   * Saves a view of an image to an image file with the specified filename. Formats that read the
+   * view directly save compact images without expanding them into pixels.
+   *
+   * @param filename the path where the image will be saved.
+   * @param image    a view of the image to be saved.
+   * @throws IllegalArgumentException if the image format is unsupported or if there is an error
+   *                                  during saving.
+   */
+  public static void saveImage(String filename, ImageView image) {
+    try {
+      ImageIoEvent event = ImageIoEvent.start("save", filename);
+      formatFor(filename).save(filename, image);
+      event.end(image.getWidth(), image.getHeight());
+    } catch (Exception e) {
+      throw new IllegalArgumentException("Error saving image: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Returns the image format handler for the extension of the given file.
+   *
+   * @param filename the path to the image file.
+   * @return the handler for the file's format.
+   * @throws IllegalArgumentException if the image format is unsupported.
+   */
+  private static ImageFormat formatFor(String filename) {
+    String fileExtension = filename.substring(filename.lastIndexOf("."));
+    switch (fileExtension.toLowerCase()) {
+      case ".png":
+        return new PNGImage();
+      case ".jpg":
+        return new JPGImage();
+      case ".ppm":
+        return new PPMImage();
+      case ".haar":
+        return new WaveletImage();
+      default:
+        throw new IllegalArgumentException("Unsupported image format");
+    }
   }
 
   /**
@@ -63,6 +116,7 @@ public class ImageUtil {
     String fileExtension = filename.substring(filename.lastIndexOf("."));
 
     try {
+      ImageIoEvent event = ImageIoEvent.start("save", filename);
       switch (fileExtension.toLowerCase()) {
         case ".png":
           PNGImage pngFormat = new PNGImage();
@@ -76,9 +130,14 @@ public class ImageUtil {
           PPMImage ppmFormat = new PPMImage();
           ppmFormat.save(filename, pixels);
           break;
+        case ".haar":
+          WaveletImage waveletFormat = new WaveletImage();
+          waveletFormat.save(filename, pixels);
+          break;
         default:
           throw new IllegalArgumentException("Unsupported image format");
       }
+      event.end(pixels);
     } catch (Exception e) {
       throw new IllegalArgumentException("Error saving image: " + e.getMessage());
     }
@@ -5,13 +5,25 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.function.Consumer;
+import model.TaskContext;
 
 /**
  * The ScriptReader class is responsible for reading commands from a script file and executing them
  * using the associated ImageController instance. The script file contains commands that are mapped
  * to specific image processing operations, which are executed in sequence.
+ *
+ * <p>The whole script is read before it runs, so commands can be planned together. A {@code load}
+ * that is immediately followed by a bilinear {@code downscale} of the loaded image is given the
+ * target size, so the file is decoded at a reduced resolution instead of in full. This only
+ * happens when no later command needs the full-resolution image.</p>
+ *
+ * <p>The script reports its progress, one unit per command, to the {@link TaskContext} of the
+ * thread that runs it, and stops before the next command once the context is cancelled.</p>
  */
 public class ScriptReader {
 
@@ -32,15 +44,17 @@ public class ScriptReader {
    * unrecognized, an error message is printed to the console.
    *
    * @param scriptPath the path to the script file to be read
-   * @throws IOException       if an I/O error occurs reading from the file, or if the file is
-   *                           malformed or contains unmappable byte sequences
-   * @throws SecurityException if access to the script file is denied
+   * @throws IOException           if an I/O error occurs reading from the file, or if the file is
+   *                               malformed or contains unmappable byte sequences
+   * @throws SecurityException     if access to the script file is denied
+   * @throws CancellationException if the task context of the current thread is cancelled
    */
   public void readScript(String scriptPath) throws IOException {
     if (!Files.exists(Paths.get(scriptPath))) {
       throw new IOException("Script file does not exist: " + scriptPath);
     }
 
+    List<String[]> commands = new ArrayList<>();
     try (BufferedReader reader = new BufferedReader(new FileReader(scriptPath))) {
       String line;
 
@@ -51,17 +65,91 @@ public class ScriptReader {
           continue;
         }
 
-        String[] parts = line.split("\\s+");
-        String command = parts[0].toLowerCase();
-
-        if (commandMap.containsKey(command)) {
-          commandMap.get(command).accept(parts);
-        } else {
-          System.out.println("Unknown command in Script: " + command);
-        }
+        commands.add(line.split("\\s+"));
       }
     } catch (SecurityException e) {
       throw new IOException("Access to script file denied: " + scriptPath, e);
     }
+
+    TaskContext.Task task = TaskContext.current().begin("run-script " + scriptPath,
+        commands.size());
+    for (int i = 0; i < commands.size(); i++) {
+      String[] parts = plan(commands, i);
+      String command = parts[0].toLowerCase();
+
+      if (commandMap.containsKey(command)) {
+        commandMap.get(command).accept(parts);
+      } else {
+        System.out.println("Unknown command in Script: " + command);
+      }
+      task.advance(1);
+    }
+  }
+
+  /**
+   * Returns the command to run at the given position of the script. A {@code load} followed by a
+   * bilinear {@code downscale} of the loaded image gets the downscale's target size appended, as
+   * long as no later command refers to the full-resolution image.
+   *
+   * @param commands the commands of the script, split into their arguments
+   * @param index    the position of the command to run
+   * @return the command to run
+   */
+  private String[] plan(List<String[]> commands, int index) {
+    String[] load = commands.get(index);
+    if (index + 1 >= commands.size() || load.length != 3
+        || !load[0].equalsIgnoreCase("load")) {
+      return load;
+    }
+    String[] downscale = commands.get(index + 1);
+    boolean bilinear = downscale.length == 5
+        || (downscale.length == 6 && downscale[5].equalsIgnoreCase("bilinear"));
+    if (!downscale[0].equalsIgnoreCase("downscale") || !bilinear
+        || !downscale[1].equals(load[2]) || !isPositiveInteger(downscale[2])
+        || !isPositiveInteger(downscale[3])) {
+      return load;
+    }
+    if (!downscale[4].equals(load[2]) && isReferencedAfter(commands, index + 2, load[2])) {
+      return load;
+    }
+    return new String[]{load[0], load[1], load[2], downscale[2], downscale[3]};
+  }
+
+  /**
+   * Checks whether any command from the given position on refers to an image key. Nested scripts
+   * cannot be inspected, so they count as referring to every key.
+   *
+   * @param commands the commands of the script, split into their arguments
+   * @param from     the position of the first command to check
+   * @param key      the image key
+   * @return {@code true} if a later command may use the key
+   */
+  private boolean isReferencedAfter(List<String[]> commands, int from, String key) {
+    for (int i = from; i < commands.size(); i++) {
+      String[] parts = commands.get(i);
+      if (parts[0].equalsIgnoreCase("run-script")) {
+        return true;
+      }
+      for (int j = 1; j < parts.length; j++) {
+        if (parts[j].equals(key)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks whether an argument is a whole number greater than zero.
+   *
+   * @param argument the argument to check
+   * @return {@code true} if the argument is a positive integer
+   */
+  private boolean isPositiveInteger(String argument) {
+    try {
+      return Integer.parseInt(argument) > 0;
+    } catch (NumberFormatException e) {
+      return false;
+    }
   }
-}
\ No newline at end of file
+}
@@ -3,7 +3,11 @@ package controller.imageformat;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.Iterator;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import model.colorscheme.Pixels;
 import model.colorscheme.RGBPixel;
 
@@ -12,6 +16,9 @@ import model.colorscheme.RGBPixel;
  * such as JPG and PNG. It provides a common `load` method for loading image files into a 2D array
  * of RGB pixels. Specific image formats that extend this class need to implement the `save` method
  * to define how images are saved.
+ *
+ * <p>Loading for a target size asks the image reader to subsample the source, so only the kept
+ * pixels are ever decoded into the image.</p>
  */
 
 public abstract class AbstractCompressedImageFormat implements ImageFormat {
@@ -28,28 +35,71 @@ public abstract class AbstractCompressedImageFormat implements ImageFormat {
     try {
       File file = new File(filename);
       BufferedImage bufferedImage = ImageIO.read(file);
-      int width = bufferedImage.getWidth();
-      int height = bufferedImage.getHeight();
-
-      Pixels[][] pixels = new RGBPixel[height][width];
-      for (int y = 0; y < height; y++) {
-        for (int x = 0; x < width; x++) {
-          int rgb = bufferedImage.getRGB(x, y);
-          int red = (rgb >> 16) & 0xFF;
-          int green = (rgb >> 8) & 0xFF;
-          int blue = rgb & 0xFF;
-          pixels[y][x] = new RGBPixel(red, green, blue);
-        }
-      }
+      return toPixels(bufferedImage);
 
-      return pixels;
+    } catch (IOException e) {
+      System.out.println("Error loading image: " + e.getMessage());
+    }
+    return null;
+  }
 
+  /**
+   * Loads an image from the specified file, decoding only every n-th row and column so that the
+   * result is still at least as large as the target size.
+   *
+   * @param filename     the path to the image file to be loaded.
+   * @param targetWidth  the width the image will be downscaled to.
+   * @param targetHeight the height the image will be downscaled to.
+   * @return a 2D array of Pixels representing the subsampled image, or {@code null} if an error
+   *         occurs.
+   */
+  @Override
+  public Pixels[][] load(String filename, int targetWidth, int targetHeight) {
+    try (ImageInputStream input = ImageIO.createImageInputStream(new File(filename))) {
+      Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+      if (readers == null || !readers.hasNext()) {
+        System.out.println("Error loading image: no reader for " + filename);
+        return null;
+      }
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(input, true, true);
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceSubsampling(ImageFormat.subsampling(reader.getWidth(0), targetWidth),
+            ImageFormat.subsampling(reader.getHeight(0), targetHeight), 0, 0);
+        return toPixels(reader.read(0, param));
+      } finally {
+        reader.dispose();
+      }
     } catch (IOException e) {
       System.out.println("Error loading image: " + e.getMessage());
     }
     return null;
   }
 
+  /**
+   * Converts a decoded image into a 2D array of Pixels.
+   *
+   * @param bufferedImage the decoded image.
+   * @return a 2D array of Pixels with the same dimensions as the image.
+   */
+  private Pixels[][] toPixels(BufferedImage bufferedImage) {
+    int width = bufferedImage.getWidth();
+    int height = bufferedImage.getHeight();
+
+    Pixels[][] pixels = new RGBPixel[height][width];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int rgb = bufferedImage.getRGB(x, y);
+        int red = (rgb >> 16) & 0xFF;
+        int green = (rgb >> 8) & 0xFF;
+        int blue = rgb & 0xFF;
+        pixels[y][x] = RGBPixel.of(red, green, blue);
+      }
+    }
+    return pixels;
+  }
+
   /**
    * Saves a 2D array of RGB pixel data to an image file. This method must be implemented by any
    * subclass to specify the details of saving pixel data to a particular compressed image format.
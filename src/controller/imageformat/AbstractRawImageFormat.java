@@ -10,6 +10,9 @@ import model.colorscheme.RGBPixel;
  * AbstractRawImageFormat is an abstract class for handling raw image formats like PPM. It provides
  * a `load` method to read and convert PPM image data (in P3 format) into a 2D array of RGB pixels.
  * Specific raw formats should implement the `save` method to define how files are written.
+ *
+ * <p>Loading for a target size still has to read past every value of the text file, but it only
+ * parses and creates pixels for the kept rows and columns, and stops after the last kept row.</p>
  */
 public abstract class AbstractRawImageFormat implements ImageFormat {
 
@@ -22,6 +25,22 @@ public abstract class AbstractRawImageFormat implements ImageFormat {
    * @throws NumberFormatException if the file contains invalid numerical values.
    */
   public Pixels[][] load(String fileName) {
+    // A target no smaller than any image keeps every pixel
+    return load(fileName, Integer.MAX_VALUE, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Loads a P3 PPM image file keeping only every n-th row and column, so that the result is still
+   * at least as large as the target size.
+   *
+   * @param fileName     the path to the PPM file to be loaded.
+   * @param targetWidth  the width the image will be downscaled to.
+   * @param targetHeight the height the image will be downscaled to.
+   * @return a 2D array of Pixels representing the subsampled image, or {@code null} if the file
+   *        format is invalid or an error occurs during loading.
+   */
+  @Override
+  public Pixels[][] load(String fileName, int targetWidth, int targetHeight) {
     Scanner scanner = null;
     try {
       File file = new File(fileName);
@@ -57,10 +76,21 @@ public abstract class AbstractRawImageFormat implements ImageFormat {
           return null;
         }
 
-        Pixels[][] pixels = new RGBPixel[height][width];
+        int columnStep = ImageFormat.subsampling(width, targetWidth);
+        int rowStep = ImageFormat.subsampling(height, targetHeight);
+        int keptWidth = (width + columnStep - 1) / columnStep;
+        int keptHeight = (height + rowStep - 1) / rowStep;
+        Pixels[][] pixels = new RGBPixel[keptHeight][keptWidth];
 
-        for (int y = 0; y < height; y++) {
+        for (int y = 0; y < keptHeight; y++) {
+          if (y > 0) {
+            skipPixels(scanner, (rowStep - 1) * width);
+          }
           for (int x = 0; x < width; x++) {
+            if (x % columnStep != 0) {
+              skipPixels(scanner, 1);
+              continue;
+            }
             while (scanner.hasNext("#")) {
               scanner.nextLine();
             }
@@ -69,7 +99,7 @@ public abstract class AbstractRawImageFormat implements ImageFormat {
             int green = scanner.nextInt();
             int blue = scanner.nextInt();
 
-            pixels[y][x] = new RGBPixel(red, green, blue);
+            pixels[y][x / columnStep] = RGBPixel.of(red, green, blue);
           }
         }
 
@@ -88,6 +118,23 @@ public abstract class AbstractRawImageFormat implements ImageFormat {
     return null;
   }
 
+  /**
+   * Reads past the values of the given number of pixels without parsing them.
+   *
+   * @param scanner the scanner positioned at the next pixel.
+   * @param count   the number of pixels to skip.
+   */
+  private void skipPixels(Scanner scanner, long count) {
+    for (long i = 0; i < count; i++) {
+      while (scanner.hasNext("#")) {
+        scanner.nextLine();
+      }
+      scanner.next();
+      scanner.next();
+      scanner.next();
+    }
+  }
+
   /**
    * Saves a 2D array of RGB pixel data to an image file in a raw format. Subclasses must implement
    * this method to specify the saving behavior for the specific file format.
@@ -1,6 +1,9 @@
 package controller.imageformat;
 
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
 import model.colorscheme.Pixels;
+import model.imageview.ImageView;
 
 /**
  * The ImageFormat interface defines the structure for processing different image formats within the
@@ -17,6 +20,57 @@ public interface ImageFormat {
    */
   Pixels[][] load(String filename);
 
+  /**
+   * Loads an image file at a reduced resolution for a target size. Formats that can skip pixels
+   * while decoding shrink the image by a whole factor along each dimension, picked so that the
+   * result is still at least as large as the target, and never materialise the full image. The
+   * result is meant to be downscaled to the exact target afterwards. Formats that cannot skip
+   * pixels load the full image.
+   *
+   * @param filename     The name or path of the image file to load.
+   * @param targetWidth  The width the image will be downscaled to.
+   * @param targetHeight The height the image will be downscaled to.
+   * @return A 2D array of {@link Pixels} at least as large as the target, unless the image itself
+   *     is smaller.
+   */
+  default Pixels[][] load(String filename, int targetWidth, int targetHeight) {
+    return load(filename);
+  }
+
+  /**
+   * Returns the factor a dimension can be shrunk by while staying at least as long as the target.
+   *
+   * @param length       The length of the dimension in the file.
+   * @param targetLength The length the dimension will be downscaled to.
+   * @return The largest whole factor that keeps {@code ceil(length / factor) >= targetLength}, or
+   *     1 if the target is not smaller than the image.
+   */
+  static int subsampling(int length, int targetLength) {
+    return Math.max(1, length / Math.max(1, targetLength));
+  }
+
+  /**
+   * Converts a view of an image into an RGB image that ImageIO can write and Swing can display.
+   * The view packs each row itself, see {@link ImageView#getRGBRow(int, int[])}, and the row is
+   * copied into the image in one call.
+   *
+   * @param image A view of the image.
+   * @return An RGB image with the same dimensions as the view.
+   */
+  static BufferedImage toBufferedImage(ImageView image) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+
+    BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    WritableRaster raster = bufferedImage.getRaster();
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      image.getRGBRow(y, row);
+      raster.setDataElements(0, y, width, 1, row);
+    }
+    return bufferedImage;
+  }
+
   /**
    * Saves a 2D array of RGB pixel data to an image file.
    *
@@ -26,4 +80,16 @@ public interface ImageFormat {
    */
   void save(String filename, Pixels[][] pixels);
 
+  /**
+   * Saves a view of an image to an image file. Formats that can read the view directly override
+   * this, so compact images are saved without being expanded into pixels; the default expands the
+   * view and saves its pixels.
+   *
+   * @param filename The name or path of the file where the image will be saved.
+   * @param image    A view of the image to be saved.
+   */
+  default void save(String filename, ImageView image) {
+    save(filename, image.materialize());
+  }
+
 }
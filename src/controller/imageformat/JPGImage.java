@@ -5,7 +5,8 @@ import java.io.File;
 import java.io.IOException;
 import javax.imageio.ImageIO;
 import model.colorscheme.Pixels;
-import model.colorscheme.RGBPixel;
+import model.imageview.ArrayView;
+import model.imageview.ImageView;
 
 /**
  * The JPGImage class provides functionality to save images in JPG format. It extends
@@ -25,25 +26,25 @@ public class JPGImage extends AbstractCompressedImageFormat {
    */
   @Override
   public void save(String filename, Pixels[][] pixels) {
-    {
-      int width = pixels[0].length;
-      int height = pixels.length;
+    save(filename, new ArrayView(pixels));
+  }
 
-      BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-      for (int y = 0; y < height; y++) {
-        for (int x = 0; x < width; x++) {
-          RGBPixel pixel = (RGBPixel) pixels[y][x];  // Cast to RGBPixel
-          int rgb = (pixel.getRed() << 16) | (pixel.getGreen() << 8) | pixel.getBlue();
-          image.setRGB(x, y, rgb);
-        }
-      }
-      try {
-        File outputFile = new File(filename);
-        ImageIO.write(image, "jpg", outputFile);
-        System.out.println("Image saved as: " + outputFile.getPath());
-      } catch (IOException e) {
-        System.out.println("Error saving the image: " + e.getMessage());
-      }
+  /**
+   * Saves a view of an image to a JPG image file, reading the red, green and blue values of each
+   * pixel directly from the view.
+   *
+   * @param filename The name or path of the file where the image will be saved.
+   * @param image    A view of the image to be saved.
+   */
+  @Override
+  public void save(String filename, ImageView image) {
+    BufferedImage bufferedImage = ImageFormat.toBufferedImage(image);
+    try {
+      File outputFile = new File(filename);
+      ImageIO.write(bufferedImage, "jpg", outputFile);
+      System.out.println("Image saved as: " + outputFile.getPath());
+    } catch (IOException e) {
+      System.out.println("Error saving the image: " + e.getMessage());
     }
   }
 }
@@ -4,6 +4,8 @@ import java.io.FileNotFoundException;
 import java.io.PrintWriter;
 import model.colorscheme.Pixels;
 import model.colorscheme.RGBPixel;
+import model.imageview.ArrayView;
+import model.imageview.ImageView;
 
 /**
  * The PPMImage class provides functionality for saving images in the PPM (Portable Pixmap) format.
@@ -23,22 +25,41 @@ public class PPMImage extends AbstractRawImageFormat {
    */
   @Override
   public void save(String filename, Pixels[][] pixels) {
-    String outputPath = filename;
     if (pixels == null || pixels.length == 0 || pixels[0].length == 0) {
       System.out.println("Invalid pixel data.");
       return;
     }
 
+    save(filename, new ArrayView(pixels));
+  }
+
+  /**
+   * Saves a view of an image to a PPM file in P3 format, reading the red, green and blue values of
+   * each pixel directly from the view.
+   *
+   * @param filename The path of the output file where the PPM image will be saved.
+   * @param image    A view of the image to be saved, which must not be empty.
+   */
+  @Override
+  public void save(String filename, ImageView image) {
+    String outputPath = filename;
+    if (image.getHeight() == 0 || image.getWidth() == 0) {
+      System.out.println("Invalid pixel data.");
+      return;
+    }
+
     try (PrintWriter writer = new PrintWriter(outputPath)) {
       writer.println("P3");
-      int height = pixels.length;
-      int width = pixels[0].length;
+      int height = image.getHeight();
+      int width = image.getWidth();
       writer.println(width + " " + height);
       writer.println("255");
+      int[] row = new int[width];
       for (int y = 0; y < height; y++) {
+        image.getRGBRow(y, row);
         for (int x = 0; x < width; x++) {
-          RGBPixel pixel = (RGBPixel) pixels[y][x];
-          writer.println(pixel.getRed() + " " + pixel.getGreen() + " " + pixel.getBlue());
+          int rgb = row[x];
+          writer.println((rgb >> 16) + " " + ((rgb >> 8) & 0xFF) + " " + (rgb & 0xFF));
         }
       }
 
@@ -50,4 +71,3 @@ public class PPMImage extends AbstractRawImageFormat {
     }
   }
 }
-
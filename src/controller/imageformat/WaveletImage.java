@@ -0,0 +1,456 @@
+package controller.imageformat;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.stream.IntStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import model.colorscheme.Pixels;
+import model.colorscheme.RGBPixel;
+import model.imagetransformation.advancedoperations.HaarTransform;
+
+/**
+ * The WaveletImage class saves and loads images as sparse Haar wavelet coefficients, so that the
+ * coefficients zeroed out by compression also save space on disk.
+ *
+ * <p>Saving transforms the red, green and blue channels with the lossless lifting Haar transform,
+ * using the number of levels (up to {@value #MAX_LEVELS}) that leaves the most zero coefficients.
+ * An image compressed with the same number of levels transforms back into exactly the coefficients
+ * the compression kept, so the file size follows the compression ratio. The coefficients are
+ * written from the coarsest level to the finest, as the number of zeros before every non-zero
+ * coefficient followed by the values of the non-zero coefficients, all as variable-length
+ * integers. The stream is then deflated.
+ * Loading decodes the coefficients and runs a single inverse transform, and reproduces the saved
+ * pixels exactly. Loading for a target size skips the finest levels of the inverse transform that
+ * the target does not need, which yields the averages of whole blocks of pixels instead.</p>
+ *
+ * <p>A file starts with the magic bytes {@code HAAR} and a version byte, followed by the deflated
+ * width, height, number of levels and the three channels.</p>
+ */
+public class WaveletImage implements ImageFormat {
+
+  private static final byte[] MAGIC = {'H', 'A', 'A', 'R'};
+  private static final int VERSION = 1;
+  private static final int MAX_LEVELS = 6;
+
+  /**
+   * Loads a wavelet image file and reconstructs it into a 2D array of Pixels.
+   *
+   * @param filename the path to the wavelet image file to be loaded.
+   * @return a 2D array of Pixels representing the image, or {@code null} if the file is invalid or
+   *         an error occurs during loading.
+   */
+  @Override
+  public Pixels[][] load(String filename) {
+    // A target no smaller than any image keeps every level
+    return load(filename, Integer.MAX_VALUE, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Loads a wavelet image file, skipping as many of the finest levels of the inverse transform as
+   * keep the result at least as large as the target size. Every skipped level halves the image.
+   *
+   * @param filename     the path to the wavelet image file to be loaded.
+   * @param targetWidth  the width the image will be downscaled to.
+   * @param targetHeight the height the image will be downscaled to.
+   * @return a 2D array of Pixels representing the reduced image, or {@code null} if the file is
+   *         invalid or an error occurs during loading.
+   */
+  @Override
+  public Pixels[][] load(String filename, int targetWidth, int targetHeight) {
+    try (InputStream file = new BufferedInputStream(new FileInputStream(filename))) {
+      for (byte expected : MAGIC) {
+        if (file.read() != expected) {
+          System.out.println("Not a wavelet image file.");
+          return null;
+        }
+      }
+      int version = file.read();
+      if (version != VERSION) {
+        System.out.println("Unsupported wavelet image version: " + version);
+        return null;
+      }
+
+      try (InputStream in = new BufferedInputStream(new InflaterInputStream(file))) {
+        int width = readVarint(in);
+        int height = readVarint(in);
+        int levels = readVarint(in);
+        if (width <= 0 || height <= 0 || levels < 1) {
+          System.out.println("Invalid wavelet image header.");
+          return null;
+        }
+        int rowLevels = HaarTransform.levelsFor(height, levels);
+        int columnLevels = HaarTransform.levelsFor(width, levels);
+        checkSize(width, height, rowLevels, columnLevels);
+
+        int[][][] planes = new int[3][HaarTransform.paddedLength(height, rowLevels)]
+            [HaarTransform.paddedLength(width, columnLevels)];
+        for (int[][] plane : planes) {
+          readChannel(in, plane, rowLevels, columnLevels);
+        }
+
+        int reduction = Math.min(halvings(height, targetHeight), halvings(width, targetWidth));
+        int rowShift = Math.min(reduction, rowLevels);
+        int columnShift = Math.min(reduction, columnLevels);
+        IntStream.range(0, planes.length).parallel().forEach(c -> {
+          planes[c] = subsample(planes[c], rowShift, columnShift);
+          HaarTransform.inverse(planes[c], rowLevels - rowShift, columnLevels - columnShift);
+        });
+
+        int outputHeight = (height + (1 << rowShift) - 1) >> rowShift;
+        int outputWidth = (width + (1 << columnShift) - 1) >> columnShift;
+        Pixels[][] pixels = new RGBPixel[outputHeight][outputWidth];
+        for (int y = 0; y < outputHeight; y++) {
+          for (int x = 0; x < outputWidth; x++) {
+            pixels[y][x] = RGBPixel.of(planes[0][y][x], planes[1][y][x], planes[2][y][x]);
+          }
+        }
+        return pixels;
+      }
+    } catch (IOException e) {
+      System.out.println("Error loading image: " + e.getMessage());
+    }
+    return null;
+  }
+
+  /**
+   * Saves the given pixel data as a wavelet image file.
+   *
+   * @param filename The name or path of the file where the image will be saved.
+   * @param pixels   A 2D array of {@link Pixels} representing the RGB values of each pixel to be
+   *                 saved in the image file.
+   */
+  @Override
+  public void save(String filename, Pixels[][] pixels) {
+    if (pixels == null || pixels.length == 0 || pixels[0].length == 0) {
+      System.out.println("Invalid pixel data.");
+      return;
+    }
+
+    int height = pixels.length;
+    int width = pixels[0].length;
+    int maxRowLevels = HaarTransform.levelsFor(height, MAX_LEVELS);
+    int maxColumnLevels = HaarTransform.levelsFor(width, MAX_LEVELS);
+
+    int[][][] planes = new int[3][HaarTransform.paddedLength(height, maxRowLevels)]
+        [HaarTransform.paddedLength(width, maxColumnLevels)];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        RGBPixel pixel = (RGBPixel) pixels[y][x];
+        planes[0][y][x] = pixel.getRed();
+        planes[1][y][x] = pixel.getGreen();
+        planes[2][y][x] = pixel.getBlue();
+      }
+    }
+    int levels = transformSparsest(planes, maxRowLevels, maxColumnLevels);
+    int rowLevels = HaarTransform.levelsFor(height, levels);
+    int columnLevels = HaarTransform.levelsFor(width, levels);
+
+    Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+    try (OutputStream file = new BufferedOutputStream(new FileOutputStream(filename))) {
+      file.write(MAGIC);
+      file.write(VERSION);
+      OutputStream out = new BufferedOutputStream(new DeflaterOutputStream(file, deflater));
+      writeVarint(out, width);
+      writeVarint(out, height);
+      writeVarint(out, levels);
+      for (int[][] plane : planes) {
+        writeChannel(out, plane, HaarTransform.paddedLength(height, rowLevels),
+            HaarTransform.paddedLength(width, columnLevels), rowLevels, columnLevels);
+      }
+      out.close();
+      System.out.println("Image saved as: " + filename);
+    } catch (IOException e) {
+      System.out.println("Error saving the image: " + e.getMessage());
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Transforms the channels with the number of levels that leaves the fewest non-zero
+   * coefficients. The levels are applied one at a time while the non-zero coefficients are
+   * counted, and the levels beyond the best count are undone again. Each level only touches the
+   * averages of the previous one, so trying every number of levels costs little more than a
+   * single transform.
+   *
+   * @param planes          The channels, padded for the largest number of levels.
+   * @param maxRowLevels    The largest number of levels between rows.
+   * @param maxColumnLevels The largest number of levels between columns.
+   * @return The chosen number of levels, at least 1.
+   */
+  private int transformSparsest(int[][][] planes, int maxRowLevels, int maxColumnLevels) {
+    int maxLevels = Math.max(1, Math.max(maxRowLevels, maxColumnLevels));
+    long nonZeros = 0;
+    for (int[][] plane : planes) {
+      nonZeros += countNonZeros(plane, 1, 1);
+    }
+
+    long fewestNonZeros = Long.MAX_VALUE;
+    int best = 1;
+    for (int level = 0; level < maxLevels; level++) {
+      int rowStride = HaarTransform.rowStride(level, maxRowLevels);
+      int columnStride = HaarTransform.columnStride(level, maxColumnLevels);
+      for (int[][] plane : planes) {
+        nonZeros -= countNonZeros(plane, rowStride, columnStride);
+        HaarTransform.forwardLevel(plane, level, maxRowLevels, maxColumnLevels);
+        nonZeros += countNonZeros(plane, rowStride, columnStride);
+      }
+      if (nonZeros < fewestNonZeros) {
+        fewestNonZeros = nonZeros;
+        best = level + 1;
+      }
+    }
+
+    for (int level = maxLevels - 1; level >= best; level--) {
+      for (int[][] plane : planes) {
+        HaarTransform.inverseLevel(plane, level, maxRowLevels, maxColumnLevels);
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Counts the non-zero values on every {@code rowStride}-th row and {@code columnStride}-th
+   * column of a plane.
+   *
+   * @param plane        The plane to count in.
+   * @param rowStride    The distance between the rows to count.
+   * @param columnStride The distance between the columns to count.
+   * @return The number of non-zero values.
+   */
+  private long countNonZeros(int[][] plane, int rowStride, int columnStride) {
+    long count = 0;
+    for (int i = 0; i < plane.length; i += rowStride) {
+      int[] row = plane[i];
+      for (int j = 0; j < row.length; j += columnStride) {
+        if (row[j] != 0) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Writes the coefficients of one channel, coarsest level first. The channel is written as the
+   * number of non-zero coefficients, the byte length of the zero runs, the zero run before every
+   * non-zero coefficient and then the values of the non-zero coefficients. Keeping the runs and
+   * the values apart lets Deflate model each of them on its own.
+   *
+   * @param out          The stream to write to.
+   * @param plane        The transformed channel.
+   * @param height       The number of rows of the plane to write.
+   * @param width        The number of columns of the plane to write.
+   * @param rowLevels    The number of levels between rows.
+   * @param columnLevels The number of levels between columns.
+   * @throws IOException if the stream cannot be written.
+   */
+  private void writeChannel(OutputStream out, int[][] plane, int height, int width,
+      int rowLevels, int columnLevels) throws IOException {
+    ByteArrayOutputStream runs = new ByteArrayOutputStream();
+    ByteArrayOutputStream values = new ByteArrayOutputStream();
+    long nonZeros = 0;
+    long run = 0;
+    int levels = Math.max(rowLevels, columnLevels);
+    for (int level = levels; level >= 0; level--) {
+      int rowStride = HaarTransform.rowStride(level, rowLevels);
+      int columnStride = HaarTransform.columnStride(level, columnLevels);
+      int coarserRowStride = HaarTransform.rowStride(level + 1, rowLevels);
+      int coarserColumnStride = HaarTransform.columnStride(level + 1, columnLevels);
+      for (int i = 0; i < height; i += rowStride) {
+        boolean coarserRow = i % coarserRowStride == 0;
+        for (int j = 0; j < width; j += columnStride) {
+          if (level < levels && coarserRow && j % coarserColumnStride == 0) {
+            continue;
+          }
+          int value = plane[i][j];
+          if (value == 0) {
+            run++;
+          } else {
+            writeVarint(runs, run);
+            writeVarint(values, Integer.toUnsignedLong((value << 1) ^ (value >> 31)));
+            nonZeros++;
+            run = 0;
+          }
+        }
+      }
+    }
+
+    writeVarint(out, nonZeros);
+    writeVarint(out, runs.size());
+    runs.writeTo(out);
+    values.writeTo(out);
+  }
+
+  /**
+   * Reads the coefficients of one channel written by
+   * {@link #writeChannel(OutputStream, int[][], int, int, int, int)} into a zeroed plane.
+   *
+   * @param in           The stream to read from.
+   * @param plane        The plane to fill, already sized for the image and its levels.
+   * @param rowLevels    The number of levels between rows.
+   * @param columnLevels The number of levels between columns.
+   * @throws IOException if the stream cannot be read or is malformed.
+   */
+  private void readChannel(InputStream in, int[][] plane, int rowLevels, int columnLevels)
+      throws IOException {
+    long remaining = readVarintLong(in);
+    int runsLength = readVarint(in);
+    if (runsLength < 0) {
+      throw new IOException("Corrupt wavelet image data: negative run length.");
+    }
+    byte[] runBytes = in.readNBytes(runsLength);
+    if (runBytes.length != runsLength) {
+      throw new EOFException("Unexpected end of wavelet image data.");
+    }
+    InputStream runs = new ByteArrayInputStream(runBytes);
+
+    long run = -1;
+    int levels = Math.max(rowLevels, columnLevels);
+    for (int level = levels; level >= 0 && remaining > 0; level--) {
+      int rowStride = HaarTransform.rowStride(level, rowLevels);
+      int columnStride = HaarTransform.columnStride(level, columnLevels);
+      int coarserRowStride = HaarTransform.rowStride(level + 1, rowLevels);
+      int coarserColumnStride = HaarTransform.columnStride(level + 1, columnLevels);
+      for (int i = 0; i < plane.length && remaining > 0; i += rowStride) {
+        boolean coarserRow = i % coarserRowStride == 0;
+        for (int j = 0; j < plane[i].length && remaining > 0; j += columnStride) {
+          if (level < levels && coarserRow && j % coarserColumnStride == 0) {
+            continue;
+          }
+          if (run < 0) {
+            run = readVarintLong(runs);
+          }
+          if (run > 0) {
+            run--;
+            continue;
+          }
+          int zigzag = readVarint(in);
+          plane[i][j] = (zigzag >>> 1) ^ -(zigzag & 1);
+          remaining--;
+          run = -1;
+        }
+      }
+    }
+    if (remaining > 0) {
+      throw new IOException("Corrupt wavelet image data.");
+    }
+  }
+
+  /**
+   * Checks that the three planes of an image of the given size can be allocated, so a corrupt
+   * header is reported instead of overflowing the padded lengths or running out of memory.
+   *
+   * @param width        The width in the header.
+   * @param height       The height in the header.
+   * @param rowLevels    The number of levels between rows.
+   * @param columnLevels The number of levels between columns.
+   * @throws IOException if the planes do not fit into an array or into the heap.
+   */
+  private void checkSize(int width, int height, int rowLevels, int columnLevels)
+      throws IOException {
+    long paddedHeight = ((long) height + (1 << rowLevels) - 1) >> rowLevels << rowLevels;
+    long paddedWidth = ((long) width + (1 << columnLevels) - 1) >> columnLevels << columnLevels;
+    if (paddedHeight > Integer.MAX_VALUE || paddedWidth > Integer.MAX_VALUE
+        || paddedHeight * paddedWidth > Runtime.getRuntime().maxMemory() / (3L * Integer.BYTES)) {
+      throw new IOException(
+          "Wavelet image too large to load: " + width + "x" + height + " pixels.");
+    }
+  }
+
+  /**
+   * Returns how many times a dimension can be halved while staying at least as long as the
+   * target.
+   *
+   * @param length       The length of the dimension.
+   * @param targetLength The length the dimension will be downscaled to.
+   * @return The number of halvings.
+   */
+  private int halvings(int length, int targetLength) {
+    return 31 - Integer.numberOfLeadingZeros(ImageFormat.subsampling(length, targetLength));
+  }
+
+  /**
+   * Keeps every {@code 2^rowShift}-th row and {@code 2^columnShift}-th column of a transformed
+   * plane, which are the coefficients of the coarser levels.
+   *
+   * @param plane       The transformed plane.
+   * @param rowShift    The number of levels to drop between rows.
+   * @param columnShift The number of levels to drop between columns.
+   * @return The coefficients of the remaining levels, or the plane itself if nothing is dropped.
+   */
+  private int[][] subsample(int[][] plane, int rowShift, int columnShift) {
+    if (rowShift == 0 && columnShift == 0) {
+      return plane;
+    }
+    int[][] kept = new int[plane.length >> rowShift][plane[0].length >> columnShift];
+    for (int i = 0; i < kept.length; i++) {
+      for (int j = 0; j < kept[i].length; j++) {
+        kept[i][j] = plane[i << rowShift][j << columnShift];
+      }
+    }
+    return kept;
+  }
+
+  /**
+   * Writes a non-negative number as a little-endian base-128 variable-length integer.
+   *
+   * @param out   The stream to write to.
+   * @param value The value to write.
+   * @throws IOException if the stream cannot be written.
+   */
+  private void writeVarint(OutputStream out, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+
+  /**
+   * Reads a variable-length integer that must fit into an {@code int}.
+   *
+   * @param in The stream to read from.
+   * @return The value read.
+   * @throws IOException if the stream ends early or the value is too large.
+   */
+  private int readVarint(InputStream in) throws IOException {
+    long value = readVarintLong(in);
+    if (value > 0xFFFFFFFFL) {
+      throw new IOException("Corrupt wavelet image data.");
+    }
+    return (int) value;
+  }
+
+  /**
+   * Reads a variable-length integer.
+   *
+   * @param in The stream to read from.
+   * @return The value read.
+   * @throws IOException if the stream ends early or the value is too large.
+   */
+  private long readVarintLong(InputStream in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = in.read();
+      if (b < 0) {
+        throw new EOFException("Unexpected end of wavelet image data.");
+      }
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Corrupt wavelet image data.");
+  }
+}
@@ -1,8 +1,12 @@
 package model;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import model.colorscheme.Pixels;
 import model.imagetransformation.Transformation;
+import model.imagetransformation.advancedoperations.Compression.ColorSpace;
 import model.imagetransformation.advancedoperations.Downscale;
+import model.imagetransformation.advancedoperations.HaarCoefficients;
 import model.imagetransformation.advancedoperations.MaskedOperation;
 import model.imagetransformation.basicoperation.ChannelExtractor;
 import model.imagetransformation.basicoperation.Intensity;
@@ -12,6 +16,7 @@ import model.imagetransformation.colortransformation.GreyScale;
 import model.imagetransformation.colortransformation.Sepia;
 import model.imagetransformation.filtering.Blur;
 import model.imagetransformation.filtering.Sharpen;
+import model.imageview.ImageView;
 
 /**
  * The {@code EnhancedImage} class extends the {@link Image} class and implements the
@@ -20,9 +25,23 @@ import model.imagetransformation.filtering.Sharpen;
  * operations allow manipulation of pixel data using various transformation techniques. This class
  * interacts with a hash map (`h1`) to store and retrieve pixel data associated with unique image
  * keys.
+ *
+ * <p>The Haar coefficients of the most recently compressed images are kept, so compressing the
+ * same image again at another ratio only costs an inverse transform. A cached entry is used only
+ * while its key still maps to the exact pixel array it was computed from.</p>
  */
 public class EnhancedImage extends Image implements EnhancedImageModel {
 
+  private static final int CACHED_COEFFICIENTS = 4;
+
+  private final Map<String, CachedCoefficients> coefficientCache =
+      new LinkedHashMap<String, CachedCoefficients>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedCoefficients> eldest) {
+          return size() > CACHED_COEFFICIENTS;
+        }
+      };
+
   /**
    * Applies a masked operation on an image, where the operation is applied to the source image only
    * at positions specified by a mask. The mask determines which pixels in the source image are
@@ -38,10 +57,11 @@ public class EnhancedImage extends Image implements EnhancedImageModel {
    */
   @Override
   public void maskedOperation(String key, String operation, String maskKey, String saveKey) {
+    TransformationEvent event = TransformationEvent.start();
     Pixels[][] sourcePixels = h1.get(key);
-    Pixels[][] maskPixels = h1.get(maskKey);
+    ImageView maskView = h1.findView(maskKey);
 
-    if (sourcePixels == null || maskPixels == null) {
+    if (sourcePixels == null || maskView == null) {
       throw new IllegalArgumentException("Source image or mask image not found.");
     }
 
@@ -81,9 +101,10 @@ public class EnhancedImage extends Image implements EnhancedImageModel {
         throw new IllegalArgumentException("Unsupported operation: " + operation);
     }
 
-    MaskedOperation maskedOp = new MaskedOperation(operationInstance, maskPixels);
+    MaskedOperation maskedOp = new MaskedOperation(operationInstance, maskView);
     Pixels[][] updatedPixels = maskedOp.apply(sourcePixels);
     h1.put(saveKey, updatedPixels);
+    event.end("masked-" + operation, key, saveKey, h1);
   }
 
 
@@ -98,10 +119,134 @@ public class EnhancedImage extends Image implements EnhancedImageModel {
    */
   @Override
   public void downscale(String key, int newwidth, int newht, String saveKey) {
-    Downscale d1 = new Downscale(newht, newwidth);
+    downscale(key, newwidth, newht, saveKey, Downscale.Mode.BILINEAR);
+  }
+
+  /**
+   * Downscales an image by the specified width and height with the given resampling mode, storing
+   * the resulting downscaled image under a new key.
+   *
+   * @param key      the key of the image to downscale in the image map
+   * @param newwidth the new width for the downscaled image
+   * @param newht    the new height for the downscaled image
+   * @param saveKey  the key under which to save the downscaled image
+   * @param mode     the resampling mode, bilinear interpolation or area averaging
+   */
+  @Override
+  public void downscale(String key, int newwidth, int newht, String saveKey,
+      Downscale.Mode mode) {
+    TransformationEvent event = TransformationEvent.start();
+    Downscale d1 = new Downscale(newwidth, newht, mode);
     Pixels[][] updatedPixel = h1.get(key);
     updatedPixel = d1.apply(updatedPixel);
     h1.put(saveKey, updatedPixel);
+    event.end("downscale", key, saveKey, h1);
+  }
+
+  /**
+   * Compresses an image using the given number of levels of the Haar transform, storing the
+   * compressed image under a new key.
+   *
+   * @param key              the key of the image to compress in the image map
+   * @param saveKey          the key under which to save the compressed image
+   * @param compressionRatio the compression ratio (0 to 100)
+   * @param levels           the number of levels of the Haar transform, at least 1
+   * @throws IllegalArgumentException if the ratio is outside 0 to 100 or levels is less than 1
+   */
+  @Override
+  public void compress(String key, String saveKey, double compressionRatio, int levels) {
+    if (compressionRatio < 0 || compressionRatio > 100) {
+      throw new IllegalArgumentException("Compression level must be between 0 and 100");
+    }
+    TransformationEvent event = TransformationEvent.start();
+    HaarCoefficients coefficients = coefficientsFor(key, levels, ColorSpace.RGB);
+    h1.put(saveKey, coefficients.reconstruct(compressionRatio));
+    event.end("compress", key, saveKey, h1);
+  }
+
+  /**
+   * Compresses an image in the YCbCr colour space with separate ratios for the luma and the
+   * subsampled chroma channels, storing the compressed image under a new key.
+   *
+   * @param key         the key of the image to compress in the image map
+   * @param saveKey     the key under which to save the compressed image
+   * @param lumaRatio   the compression ratio of the luma channel (0 to 100)
+   * @param chromaRatio the compression ratio of the chroma channels (0 to 100)
+   * @param levels      the number of levels of the Haar transform, at least 1
+   * @throws IllegalArgumentException if either ratio is outside 0 to 100 or levels is less than 1
+   */
+  @Override
+  public void compressYCbCr(String key, String saveKey, double lumaRatio, double chromaRatio,
+      int levels) {
+    if (lumaRatio < 0 || lumaRatio > 100 || chromaRatio < 0 || chromaRatio > 100) {
+      throw new IllegalArgumentException("Compression level must be between 0 and 100");
+    }
+    TransformationEvent event = TransformationEvent.start();
+    HaarCoefficients coefficients = coefficientsFor(key, levels, ColorSpace.YCBCR);
+    h1.put(saveKey, coefficients.reconstruct(lumaRatio, chromaRatio, 0));
+    event.end("compress-ycbcr", key, saveKey, h1);
+  }
+
+  /**
+   * Compresses the image using a single level of the Haar transform and stores the result under a
+   * specified key, reusing cached coefficients of the source image where possible.
+   *
+   * @param key              the key used to retrieve the image
+   * @param savekey          the key to store the compressed image
+   * @param compressionratio the compression ratio (0 to 100)
+   */
+  @Override
+  public void compress(String key, String savekey, double compressionratio) {
+    compress(key, savekey, compressionratio, 1);
+    updatedPixel = h1.get(savekey);
+  }
+
+  /**
+   * Returns a preview of an image compressed at the given ratio without storing it, reusing cached
+   * coefficients of the source image where possible.
+   *
+   * @param key              the key of the image to compress in the image map
+   * @param compressionRatio the compression ratio (0 to 100)
+   * @param levels           the number of levels of the Haar transform, at least 1
+   * @param reduction        the number of levels to skip, where 0 gives a full size preview
+   * @return the pixels of the compressed preview
+   * @throws IllegalArgumentException if the ratio is outside 0 to 100, levels is less than 1, or
+   *                                  the reduction is negative
+   */
+  @Override
+  public Pixels[][] previewCompression(String key, double compressionRatio, int levels,
+      int reduction) {
+    if (compressionRatio < 0 || compressionRatio > 100) {
+      throw new IllegalArgumentException("Compression level must be between 0 and 100");
+    }
+    TransformationEvent event = TransformationEvent.start();
+    Pixels[][] preview = coefficientsFor(key, levels, ColorSpace.RGB)
+        .reconstruct(compressionRatio, reduction);
+    event.end("compress-preview", key, null, h1.size(key),
+        new int[]{preview[0].length, preview.length});
+    return preview;
+  }
+
+  /**
+   * Returns the Haar coefficients of the image stored under the given key, computing them only if
+   * the cached ones are missing, were computed with another number of levels or in another colour
+   * space, or belong to pixels that have since been replaced.
+   *
+   * @param key        the key of the image in the image map
+   * @param levels     the number of levels of the Haar transform
+   * @param colorSpace the colour space of the transformed channels
+   * @return the Haar coefficients of the image
+   */
+  private HaarCoefficients coefficientsFor(String key, int levels, ColorSpace colorSpace) {
+    Pixels[][] source = h1.disown(h1.get(key));
+    CachedCoefficients cached = coefficientCache.get(key);
+    if (cached == null || cached.source != source
+        || cached.coefficients.getLevels() != levels
+        || cached.coefficients.getColorSpace() != colorSpace) {
+      cached = new CachedCoefficients(source, new HaarCoefficients(source, levels, colorSpace));
+      coefficientCache.put(key, cached);
+    }
+    return cached.coefficients;
   }
 
   /**
@@ -120,4 +265,18 @@ public class EnhancedImage extends Image implements EnhancedImageModel {
     }
     return latestKey;
   }
+
+  /**
+   * The Haar coefficients of an image together with the pixels they were computed from.
+   */
+  private static class CachedCoefficients {
+
+    private final Pixels[][] source;
+    private final HaarCoefficients coefficients;
+
+    private CachedCoefficients(Pixels[][] source, HaarCoefficients coefficients) {
+      this.source = source;
+      this.coefficients = coefficients;
+    }
+  }
 }
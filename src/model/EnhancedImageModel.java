@@ -1,5 +1,8 @@
 package model;
 
+import model.colorscheme.Pixels;
+import model.imagetransformation.advancedoperations.Downscale;
+
 /**
  * The {@code EnhancedImageModel} interface extends the {@link ImageModel} interface and provides
  * additional methods for advanced image processing. It includes operations for downscaling images,
@@ -19,6 +22,18 @@ public interface EnhancedImageModel extends ImageModel {
    */
   void downscale(String key, int newwidth, int newht, String savekey);
 
+  /**
+   * Downscales an image to a specified width and height with the given resampling mode and stores
+   * the result under a new key.
+   *
+   * @param key      the key of the image to downscale in the image map
+   * @param newwidth the new width for the downscaled image
+   * @param newht    the new height for the downscaled image
+   * @param savekey  the key under which to save the downscaled image
+   * @param mode     the resampling mode, bilinear interpolation or area averaging
+   */
+  void downscale(String key, int newwidth, int newht, String savekey, Downscale.Mode mode);
+
   /**
    * Applies a masked operation on an image, where the operation is applied to the source image only
    * at positions specified by a mask. The mask determines which pixels in the source image are
@@ -32,6 +47,43 @@ public interface EnhancedImageModel extends ImageModel {
    */
   void maskedOperation(String key, String operation, String maskKey, String saveKey);
 
+  /**
+   * Compresses an image using the given number of levels of the Haar transform and stores the
+   * result under a new key.
+   *
+   * @param key              the key of the image to compress in the image map
+   * @param saveKey          the key under which to save the compressed image
+   * @param compressionRatio the compression ratio (0 to 100)
+   * @param levels           the number of levels of the Haar transform, at least 1
+   */
+  void compress(String key, String saveKey, double compressionRatio, int levels);
+
+  /**
+   * Compresses an image in the YCbCr colour space, subsampling the chroma channels and compressing
+   * them with their own ratio, and stores the result under a new key.
+   *
+   * @param key         the key of the image to compress in the image map
+   * @param saveKey     the key under which to save the compressed image
+   * @param lumaRatio   the compression ratio of the luma channel (0 to 100)
+   * @param chromaRatio the compression ratio of the chroma channels (0 to 100)
+   * @param levels      the number of levels of the Haar transform, at least 1
+   */
+  void compressYCbCr(String key, String saveKey, double lumaRatio, double chromaRatio,
+      int levels);
+
+  /**
+   * Returns a preview of an image compressed at the given ratio without storing it. The preview
+   * skips the given number of finest levels of the Haar transform, which halves it along each
+   * dimension per skipped level.
+   *
+   * @param key              the key of the image to compress in the image map
+   * @param compressionRatio the compression ratio (0 to 100)
+   * @param levels           the number of levels of the Haar transform, at least 1
+   * @param reduction        the number of levels to skip, where 0 gives a full size preview
+   * @return the pixels of the compressed preview
+   */
+  Pixels[][] previewCompression(String key, double compressionRatio, int levels, int reduction);
+
   /**
    * Retrieves the key of the most recently added image in the image map.
    *
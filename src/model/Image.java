@@ -1,28 +1,26 @@
 package model;
 
-import java.awt.BasicStroke;
-import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.image.BufferedImage;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.CancellationException;
 import model.colorscheme.Pixels;
-import model.colorscheme.RGBPixel;
+import model.imagetransformation.Region;
+import model.imagetransformation.Transformation;
 import model.imagetransformation.advancedoperations.AdjustLevel;
 import model.imagetransformation.advancedoperations.ColorCorrection;
 import model.imagetransformation.advancedoperations.Compression;
+import model.imagetransformation.advancedoperations.Histogram;
 import model.imagetransformation.basicoperation.Brighten;
+import model.imagetransformation.basicoperation.ChannelExtractor;
 import model.imagetransformation.basicoperation.Combine;
-import model.imagetransformation.basicoperation.Flip;
 import model.imagetransformation.basicoperation.Flip.Direction;
 import model.imagetransformation.basicoperation.Intensity;
 import model.imagetransformation.basicoperation.Luma;
-import model.imagetransformation.basicoperation.Split;
 import model.imagetransformation.basicoperation.Value;
 import model.imagetransformation.colortransformation.GreyScale;
 import model.imagetransformation.colortransformation.Sepia;
 import model.imagetransformation.filtering.Blur;
 import model.imagetransformation.filtering.Sharpen;
+import model.imageview.FlippedView;
+import model.imageview.ImageView;
 
 /**
  * The {@code Image} class implements the {@link ImageModel} interface and provides various image
@@ -38,7 +36,7 @@ import model.imagetransformation.filtering.Sharpen;
 public class Image implements ImageModel {
 
   protected Pixels[][] updatedPixel;
-  protected Map<String, Pixels[][]> h1 = new HashMap<String, Pixels[][]>();
+  protected ImageStore h1 = new ImageStore();
 
   /**
    * Stores the pixel data associated with a specified key.
@@ -58,46 +56,122 @@ public class Image implements ImageModel {
    * @return the pixel data associated with the key
    */
   public Pixels[][] getStoredPixels(String key) {
-    return h1.get(key);
+    return h1.disown(h1.get(key));
   }
 
   /**
-   * Extracts the red color channel from the image and stores it under a specified key.
+   * Applies a transformation to the image stored under one key and stores the result under
+   * another. The result is written into a pooled buffer, or straight over the source when both
+   * keys are the same, the transformation supports it and the store owns the source exclusively.
+   * Inside a {@link TaskContext} that can be cancelled the source is never overwritten, so a
+   * cancelled operation leaves the stored image as it was.
+   *
+   * @param operation      the name of the operation, recorded in its {@link TransformationEvent}
+   * @param transformation the transformation to apply
+   * @param key            the key used to retrieve the image
+   * @param savekey        the key to store the transformed image
+   */
+  protected void transform(String operation, Transformation transformation, String key,
+      String savekey) {
+    TransformationEvent event = TransformationEvent.start();
+    Pixels[][] source = h1.get(key);
+    Pixels[][] destination = null;
+    if (source != null) {
+      destination = key.equals(savekey) && transformation.supportsInPlace() && h1.isOwned(source)
+          && !TaskContext.current().isCancellable()
+          ? source : h1.acquire(source.length, source[0].length);
+    }
+    try {
+      updatedPixel = transformation.applyInto(source, destination);
+    } catch (CancellationException e) {
+      if (destination != source) {
+        h1.release(destination);
+      }
+      throw e;
+    }
+    if (updatedPixel == destination) {
+      h1.putOwned(savekey, updatedPixel);
+    } else {
+      if (destination != source) {
+        h1.release(destination);
+      }
+      h1.put(savekey, updatedPixel);
+    }
+    event.end(operation, key, savekey, h1);
+  }
+
+  /**
+   * Retrieves a view of the image stored under the specified key, without expanding compact
+   * images or materializing pending views.
+   *
+   * @param key the key used to retrieve the image
+   * @return a view of the image, or {@code null} if no image is stored under the key
+   */
+  @Override
+  public ImageView getStoredView(String key) {
+    return h1.findView(key);
+  }
+
+  /**
+   * Returns the size of the image stored under the specified key, without expanding it or giving
+   * up ownership of its pixels.
+   *
+   * @param key the key associated with the image
+   * @return the width and height of the image, or {@code null} if no image is stored under the key
+   */
+  @Override
+  public int[] getStoredSize(String key) {
+    return h1.size(key);
+  }
+
+  /**
+   * Returns a number that changes every time an image is stored under the specified key.
+   *
+   * @param key the key associated with the image
+   * @return the version of the image, or 0 if no image is stored under the key
+   */
+  @Override
+  public long getStoredVersion(String key) {
+    return h1.version(key);
+  }
+
+  /**
+   * Extracts the red color channel from the image and stores it under a specified key, as a
+   * compact greyscale image.
    *
    * @param key     the key used to retrieve the image
    * @param saveKey the key to store the red channel
    */
   public void getRedChannel(String key, String saveKey) {
-    Split s1 = new Split();
-    Map<String, Pixels[][]> temp = s1.apply(h1, h1.get(key), key, saveKey, "temp1", "temp2");
-    Pixels[][] redChannel = temp.get(saveKey);
-    h1.put(saveKey, redChannel);
+    TransformationEvent event = TransformationEvent.start();
+    h1.putGreyscale(saveKey, new ChannelExtractor(1).applyGreyscale(h1.view(key)));
+    event.end("red-component", key, saveKey, h1);
   }
 
   /**
-   * Extracts the green color channel from the image and stores it under a specified key.
+   * Extracts the green color channel from the image and stores it under a specified key, as a
+   * compact greyscale image.
    *
    * @param key     the key used to retrieve the image
    * @param saveKey the key to store the green channel
    */
   public void getGreenChannel(String key, String saveKey) {
-    Split s1 = new Split();
-    Map<String, Pixels[][]> temp = s1.apply(h1, h1.get(key), key, "temp1", saveKey, "temp2");
-    Pixels[][] greenChannel = temp.get(saveKey);
-    h1.put(saveKey, greenChannel);
+    TransformationEvent event = TransformationEvent.start();
+    h1.putGreyscale(saveKey, new ChannelExtractor(2).applyGreyscale(h1.view(key)));
+    event.end("green-component", key, saveKey, h1);
   }
 
   /**
-   * Extracts the blue color channel from the image and stores it under a specified key.
+   * Extracts the blue color channel from the image and stores it under a specified key, as a
+   * compact greyscale image.
    *
    * @param key     the key used to retrieve the image
    * @param saveKey the key to store the blue channel
    */
   public void getBlueChannel(String key, String saveKey) {
-    Split s1 = new Split();
-    Map<String, Pixels[][]> temp = s1.apply(h1, h1.get(key), key, "temp1", "temp2", saveKey);
-    Pixels[][] blueChannel = temp.get(saveKey);
-    h1.put(saveKey, blueChannel);
+    TransformationEvent event = TransformationEvent.start();
+    h1.putGreyscale(saveKey, new ChannelExtractor(3).applyGreyscale(h1.view(key)));
+    event.end("blue-component", key, saveKey, h1);
   }
 
 
@@ -108,10 +182,7 @@ public class Image implements ImageModel {
    * @param savekey the key to store the blurred image
    */
   public void blur(String key, String savekey) {
-    Blur b1 = new Blur();
-    Pixels[][] temp1 = h1.get(key);
-    updatedPixel = b1.apply(temp1);
-    h1.put(savekey, updatedPixel);
+    transform("blur", new Blur(), key, savekey);
   }
 
   /**
@@ -122,15 +193,13 @@ public class Image implements ImageModel {
    * @param savekey        the key to store the brightened image
    */
   public void brighten(int brightenFactor, String key, String savekey) {
-    Brighten b1 = new Brighten(brightenFactor);
-    Pixels[][] temp = h1.get(key);
-    updatedPixel = b1.apply(temp);
-    h1.put(savekey, updatedPixel);
+    transform("brighten", new Brighten(brightenFactor), key, savekey);
   }
 
 
   /**
-   * Splits the image into three color channels and stores each channel under specified keys.
+   * Splits the image into three color channels and stores each channel under specified keys, as
+   * compact greyscale images.
    *
    * @param key      the key used to retrieve the image
    * @param saveKey1 the key to store the first color channel
@@ -138,13 +207,17 @@ public class Image implements ImageModel {
    * @param saveKey3 the key to store the third color channel
    */
   public void split(String key, String saveKey1, String saveKey2, String saveKey3) {
-    Split s1 = new Split();
-    Map<String, Pixels[][]> temp = s1.apply(h1, updatedPixel, key, saveKey1, saveKey2, saveKey3);
-    h1.putAll(temp);
+    TransformationEvent event = TransformationEvent.start();
+    ImageView source = h1.view(key);
+    h1.putGreyscale(saveKey1, new ChannelExtractor(1).applyGreyscale(source));
+    h1.putGreyscale(saveKey2, new ChannelExtractor(2).applyGreyscale(source));
+    h1.putGreyscale(saveKey3, new ChannelExtractor(3).applyGreyscale(source));
+    event.end("rgb-split", key, saveKey1, h1);
   }
 
   /**
    * Combines three color channels into a single image and stores the result under a specified key.
+   * The channels are read directly, so greyscale channels are never expanded into pixels.
    *
    * @param key  the key to store the combined image
    * @param key1 the key for the first color channel
@@ -152,24 +225,27 @@ public class Image implements ImageModel {
    * @param key3 the key for the third color channel
    */
   public void combine(String key, String key1, String key2, String key3) {
+    TransformationEvent event = TransformationEvent.start();
     Combine c1 = new Combine();
-    updatedPixel = c1.apply(h1.get(key1), h1.get(key2), h1.get(key3));
+    updatedPixel = c1.apply(h1.view(key1), h1.view(key2), h1.view(key3));
     h1.put(key, updatedPixel);
+    event.end("rgb-combine", key1, key, h1);
   }
 
 
   /**
-   * Flips the image horizontally or vertically and stores the result under a specified key.
+   * Flips the image horizontally or vertically and stores the result under a specified key. The
+   * flipped image is stored as a view of the image and is only computed when it is first read, so
+   * following flips and component extractions read the source in one pass.
    *
    * @param key     the key used to retrieve the image
    * @param savekey the key to store the flipped image
    * @param d       the direction of the flip (horizontal or vertical)
    */
   public void flip(String key, String savekey, Direction d) {
-    Flip f1 = new Flip();
-    Pixels[][] temp = h1.get(key);
-    updatedPixel = f1.apply(temp, d);
-    h1.put(savekey, updatedPixel);
+    TransformationEvent event = TransformationEvent.start();
+    h1.putView(savekey, new FlippedView(h1.view(key), d));
+    event.end(d == Direction.HORIZONTAL ? "horizontal-flip" : "vertical-flip", key, savekey, h1);
   }
 
   /**
@@ -179,10 +255,7 @@ public class Image implements ImageModel {
    * @param savekey the key to store the grayscale image
    */
   public void greyScale(String key, String savekey) {
-    GreyScale g1 = new GreyScale();
-    Pixels[][] temp = h1.get(key);
-    updatedPixel = g1.apply(temp);
-    h1.put(savekey, updatedPixel);
+    transform("greyscale", new GreyScale(), key, savekey);
   }
 
   /**
@@ -192,10 +265,7 @@ public class Image implements ImageModel {
    * @param savekey the key to store the sepia-toned image
    */
   public void sepia(String key, String savekey) {
-    Sepia sp1 = new Sepia();
-    Pixels[][] temp = h1.get(key);
-    updatedPixel = sp1.apply(temp);
-    h1.put(savekey, updatedPixel);
+    transform("sepia", new Sepia(), key, savekey);
   }
 
   /**
@@ -205,49 +275,49 @@ public class Image implements ImageModel {
    * @param savekey the key to store the sharpened image
    */
   public void sharpen(String key, String savekey) {
-    Sharpen sp1 = new Sharpen();
-    Pixels[][] temp = h1.get(key);
-    updatedPixel = sp1.apply(temp);
-    h1.put(savekey, updatedPixel);
+    transform("sharpen", new Sharpen(), key, savekey);
   }
 
   /**
-   * Applies a luma transformation to the image and stores the result under a specified key.
+   * Applies a luma transformation to the image and stores the result under a specified key, as a
+   * compact greyscale image.
    *
    * @param key     the key used to retrieve the image
    * @param savekey the key to store the luma-transformed image
    */
   public void luma(String key, String savekey) {
+    TransformationEvent event = TransformationEvent.start();
     Luma l1 = new Luma();
-    Pixels[][] temp = h1.get(key);
-    updatedPixel = l1.apply(temp);
-    h1.put(savekey, updatedPixel);
+    h1.putGreyscale(savekey, l1.applyGreyscale(h1.view(key)));
+    event.end("luma-component", key, savekey, h1);
   }
 
   /**
-   * Applies a value transformation to the image and stores the result under a specified key.
+   * Applies a value transformation to the image and stores the result under a specified key, as a
+   * compact greyscale image.
    *
    * @param key     the key used to retrieve the image
    * @param savekey the key to store the value-transformed image
    */
   public void value(String key, String savekey) {
+    TransformationEvent event = TransformationEvent.start();
     Value l1 = new Value();
-    Pixels[][] temp = h1.get(key);
-    updatedPixel = l1.apply(temp);
-    h1.put(savekey, updatedPixel);
+    h1.putGreyscale(savekey, l1.applyGreyscale(h1.view(key)));
+    event.end("value-component", key, savekey, h1);
   }
 
   /**
-   * Adjusts the image color levels and stores the result under a specified key.
+   * Adjusts the image color levels and stores the result under a specified key, as a compact
+   * greyscale image.
    *
    * @param key     the key used to retrieve the image
    * @param savekey the key to store the color-adjusted image
    */
   public void intensity(String key, String savekey) {
+    TransformationEvent event = TransformationEvent.start();
     Intensity l1 = new Intensity();
-    Pixels[][] temp = h1.get(key);
-    updatedPixel = l1.apply(temp);
-    h1.put(savekey, updatedPixel);
+    h1.putGreyscale(savekey, l1.applyGreyscale(h1.view(key)));
+    event.end("intensity-component", key, savekey, h1);
   }
 
   /**
@@ -260,10 +330,12 @@ public class Image implements ImageModel {
     if (compressionratio < 0 || compressionratio > 100) {
       throw new IllegalArgumentException("Compression level must be between 0 and 100");
     }
+    TransformationEvent event = TransformationEvent.start();
     Compression l1 = new Compression(compressionratio);
     Pixels[][] temp = h1.get(key);
     updatedPixel = l1.apply(temp);
     h1.put(savekey, updatedPixel);
+    event.end("compress", key, savekey, h1);
   }
 
   /**
@@ -274,10 +346,7 @@ public class Image implements ImageModel {
    * @param savekey the key to store the color-corrected image
    */
   public void colorCorrection(String key, String savekey) {
-    ColorCorrection c1 = new ColorCorrection();
-    Pixels[][] temp = h1.get(key);
-    updatedPixel = c1.apply(temp);
-    h1.put(savekey, updatedPixel);
+    transform("color-correction", new ColorCorrection(), key, savekey);
   }
 
   /**
@@ -292,18 +361,19 @@ public class Image implements ImageModel {
    * @param savekey the key to store the adjusted image
    */
   public void adjustLevel(int black, int mid, int white, String key, String savekey) {
-    AdjustLevel a1 = new AdjustLevel(black, mid, white);
-    Pixels[][] temp = h1.get(key);
-    updatedPixel = a1.apply(temp);
-    h1.put(savekey, updatedPixel);
+    transform("levels-adjust", new AdjustLevel(black, mid, white), key, savekey);
   }
 
 
   /**
-   * Splits the image vertically into two parts based on the given split value, applies a specified
-   * transformation on each part, and then combines them back into a single image. The
-   * transformation operation can be blur, sharpen, sepia, greyscale, color correction, or levels
-   * adjustment. After the transformations, the two parts are rejoined to form the final image.
+   * Splits the image vertically at the given split value and applies a specified transformation to
+   * the part on the left of the split, leaving the part on the right unchanged. The transformation
+   * operation can be blur, sharpen, sepia, greyscale, color correction, or levels adjustment.
+   *
+   * <p>Only the left part is computed, as a {@link Region} of the source image, and the pixels on
+   * the right are shared with the source. Filters read their neighbours across the split from the
+   * source, and color correction takes its statistics from the whole image, so the left part looks
+   * exactly as it would after transforming the whole image.</p>
    *
    * @param key        the key used to retrieve the original image
    * @param saveKey    the key to store the final combined image after transformation
@@ -320,60 +390,46 @@ public class Image implements ImageModel {
       throw new IllegalArgumentException("Invalid split value. It must be between 0 and 100.");
     }
 
-    String part1Key = "splitPart1";
-    String part2Key = "splitPart2";
-
-    Pixels[][] originalPixels = h1.get(key);
+    TransformationEvent event = TransformationEvent.start();
+    Pixels[][] originalPixels = h1.disown(h1.get(key));
     int height = originalPixels.length;
     int width = originalPixels[0].length;
     int splitIndex = (int) (width * (splitValue / 100.0));
 
-    RGBPixel[][] part1Pixels = new RGBPixel[height][splitIndex];
-    RGBPixel[][] part2Pixels = new RGBPixel[height][width - splitIndex];
-
-    for (int i = 0; i < height; i++) {
-      System.arraycopy(originalPixels[i], 0, part1Pixels[i], 0, splitIndex);
-      System.arraycopy(originalPixels[i], splitIndex, part2Pixels[i], 0, width - splitIndex);
-    }
-
-    h1.put(part1Key, part1Pixels);
-    h1.put(part2Key, part2Pixels);
-
+    Transformation transformation;
     switch (operation) {
       case "blur":
-        blur(part1Key, part1Key);
+        transformation = new Blur();
         break;
       case "sharpen":
-        sharpen(part1Key, part1Key);
+        transformation = new Sharpen();
         break;
       case "sepia":
-        sepia(part1Key, part1Key);
+        transformation = new Sepia();
         break;
       case "greyscale":
-        greyScale(part1Key, part1Key);
+        transformation = new GreyScale();
         break;
       case "color-correction":
-        colorCorrection(part1Key, part1Key);
+        transformation = new ColorCorrection();
         break;
       case "levels-adjust":
         if (params.length != 3) {
           throw new IllegalArgumentException(
               "Levels-adjust requires 3 parameters: black, mid, and white points");
         }
-        adjustLevel(params[0], params[1], params[2], part1Key, part1Key);
+        transformation = new AdjustLevel(params[0], params[1], params[2]);
         break;
       default:
         System.out.println("Invalid operation");
+        h1.put(saveKey, originalPixels);
+        event.end(operation + " split", key, saveKey, h1);
+        return;
     }
 
-    RGBPixel[][] combinedPixels = new RGBPixel[height][width];
-
-    for (int i = 0; i < height; i++) {
-      System.arraycopy(h1.get(part1Key)[i], 0, combinedPixels[i], 0, splitIndex);
-      System.arraycopy(h1.get(part2Key)[i], 0, combinedPixels[i], splitIndex, width - splitIndex);
-    }
-
-    h1.put(saveKey, combinedPixels);
+    updatedPixel = transformation.apply(originalPixels, new Region(0, 0, splitIndex, height));
+    h1.put(saveKey, updatedPixel);
+    event.end(operation + " split", key, saveKey, h1);
   }
 
   /**
@@ -383,109 +439,15 @@ public class Image implements ImageModel {
    * @param savekey the key to store the histogram
    */
   public void histogram(String key, String savekey) {
+    TransformationEvent event = TransformationEvent.start();
     Pixels[][] pixels = h1.get(key);
     if (pixels == null) {
       throw new IllegalArgumentException("No image found for key: " + key);
     }
 
-    // Initialize frequency arrays for each color channel
-    int[] redFreq = new int[256];
-    int[] greenFreq = new int[256];
-    int[] blueFreq = new int[256];
-
-    // Iterate through the pixel array and calculate the frequency of each color value
-    for (Pixels[] row : pixels) {
-      for (Pixels pixel : row) {
-        if (pixel instanceof RGBPixel) {
-          RGBPixel rgbPixel = (RGBPixel) pixel;
-          redFreq[rgbPixel.getRed()]++;
-          greenFreq[rgbPixel.getGreen()]++;
-          blueFreq[rgbPixel.getBlue()]++;
-        } else {
-          throw new IllegalArgumentException("Expected an RGBPixel. ");
-        }
-      }
-    }
-
-    // Find the maximum frequency for scaling the histogram
-    int maxFreq = 0;
-    for (int i = 0; i < 256; i++) {
-      maxFreq = Math.max(maxFreq, redFreq[i]);
-      maxFreq = Math.max(maxFreq, greenFreq[i]);
-      maxFreq = Math.max(maxFreq, blueFreq[i]);
-    }
-
-    // Create a BufferedImage for the histogram
-    BufferedImage histogramImage = new BufferedImage(256, 256, BufferedImage.TYPE_INT_RGB);
-    Graphics2D g2d = histogramImage.createGraphics();
-
-    // Set background color and draw grid
-    g2d.setColor(Color.WHITE);
-    g2d.fillRect(0, 0, 256, 256);
-    drawGrid(g2d);
-
-    // Draw histogram lines for each color channel
-    drawHistogramLine(g2d, redFreq, maxFreq, Color.RED);
-    drawHistogramLine(g2d, greenFreq, maxFreq, Color.GREEN);
-    drawHistogramLine(g2d, blueFreq, maxFreq, Color.BLUE);
-
-    g2d.dispose();
-
-    // Convert histogram image to RGBPixel array and store it
-    RGBPixel[][] histogramPixels = new RGBPixel[256][256];
-    for (int y = 0; y < 256; y++) {
-      for (int x = 0; x < 256; x++) {
-        int rgb = histogramImage.getRGB(x, y);
-        Color color = new Color(rgb);
-        histogramPixels[y][x] = new RGBPixel(color.getRed(), color.getGreen(), color.getBlue());
-      }
-    }
-
-    h1.put(savekey, histogramPixels);
-  }
-
-  /**
-   * Draws the grid pattern for the histogram background.
-   *
-   * @param g2d Graphics2D object to draw on
-   */
-  private void drawGrid(Graphics2D g2d) {
-    g2d.setColor(new Color(220, 220, 220));
-    g2d.setStroke(new BasicStroke(1.0f));
-
-    for (int x = 0; x < 256; x += 16) {
-      g2d.drawLine(x, 0, x, 255);
-    }
-
-    for (int y = 0; y < 256; y += 16) {
-      g2d.drawLine(0, y, 255, y);
-    }
-  }
-
-  /**
-   * Draws a single histogram line for a color channel.
-   *
-   * @param g2d     Graphics2D object to draw on
-   * @param freq    frequency array for the channel
-   * @param maxFreq maximum frequency value for scaling
-   * @param color   color to draw the line with
-   */
-  private void drawHistogramLine(Graphics2D g2d, int[] freq, int maxFreq, Color color) {
-    g2d.setColor(color);
-    g2d.setStroke(new BasicStroke(1.0f));
-
-    int[] xPoints = new int[256];
-    int[] yPoints = new int[256];
-
-    for (int i = 0; i < 256; i++) {
-      xPoints[i] = i;
-
-      yPoints[i] = 255 - (int) ((freq[i] * 255.0) / maxFreq);
-    }
-
-    for (int i = 1; i < 256; i++) {
-      g2d.drawLine(xPoints[i - 1], yPoints[i - 1], xPoints[i], yPoints[i]);
-    }
+    Histogram h = new Histogram();
+    h1.put(savekey, h.apply(pixels));
+    event.end("histogram", key, savekey, h1);
   }
 
-}
\ No newline at end of file
+}
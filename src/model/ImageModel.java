@@ -2,6 +2,8 @@ package model;
 
 import model.colorscheme.Pixels;
 import model.imagetransformation.basicoperation.Flip.Direction;
+import model.imageview.ArrayView;
+import model.imageview.ImageView;
 
 /**
  * Interface representing operations that can be performed on an image. This includes various
@@ -27,6 +29,41 @@ public interface ImageModel {
    */
   Pixels[][] getStoredPixels(String key);
 
+  /**
+   * Retrieves a view of the image stored under the specified key. Unlike
+   * {@link #getStoredPixels(String)}, this does not expand compact images into pixels, so it is
+   * the cheaper way to read an image that is only going to be saved or displayed.
+   *
+   * @param key the key associated with the desired image
+   * @return a view of the image, or {@code null} if no image is stored under the key
+   */
+  default ImageView getStoredView(String key) {
+    Pixels[][] pixels = getStoredPixels(key);
+    return pixels == null ? null : new ArrayView(pixels);
+  }
+
+  /**
+   * Returns the size of the image stored under the specified key, without expanding it.
+   *
+   * @param key the key associated with the image
+   * @return the width and height of the image, or {@code null} if no image is stored under the key
+   */
+  default int[] getStoredSize(String key) {
+    ImageView view = getStoredView(key);
+    return view == null ? null : new int[]{view.getWidth(), view.getHeight()};
+  }
+
+  /**
+   * Returns a number that changes every time an image is stored under the specified key, which
+   * tells whether an operation wrote to the key. Models that do not track writes return 0.
+   *
+   * @param key the key associated with the image
+   * @return the version of the image, or 0 if no image is stored under the key
+   */
+  default long getStoredVersion(String key) {
+    return 0;
+  }
+
   /**
    * Extracts the red channel from the image and stores it under the specified key.
    *
@@ -183,7 +220,8 @@ public interface ImageModel {
 
   /**
    * Splits the image into two parts based on a vertical split value and applies the specified
-   * transformation. After transformation, the two parts are recombined into a single image.
+   * transformation to the left part only, leaving the right part unchanged. The left part looks
+   * exactly as it would after transforming the whole image.
    *
    * @param key        the source image key
    * @param saveKey    the key under which to store the result
@@ -0,0 +1,368 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import model.colorscheme.Pixels;
+import model.colorscheme.RGBPixel;
+import model.imageview.ArrayView;
+import model.imageview.GreyscaleImage;
+import model.imageview.ImageView;
+
+/**
+ * The {@code ImageStore} class holds the images kept by the model, by key. Besides arrays of
+ * pixels it can hold {@link ImageView}s, which are only materialized into an array the first time
+ * their key is read with {@link #get(String)}. Operations that remap pixels store a view of their
+ * source, and a chain of such operations is materialized in one pass when the result is needed.
+ *
+ * <p>{@link GreyscaleImage}s are kept in their compact form. Reading their key with
+ * {@link #get(String)} expands them into pixels, and the expanded pixels are kept alongside until
+ * the key is replaced, while {@link #view(String)} keeps handing out the compact image.</p>
+ *
+ * <p>The store wraps its map rather than extending it, so every write goes through the
+ * bookkeeping of views, greyscale images, owned arrays and versions. A key that holds a pending
+ * view or a greyscale image is present in the map with a {@code null} value until it is expanded,
+ * so {@link #keySet()} and {@link #size()} see it.</p>
+ *
+ * <p>Arrays stored with {@link #putOwned(String, Pixels[][])} are owned by the store: nothing
+ * outside it holds a reference to them, so they may be overwritten in place and are returned to a
+ * pool of buffers, keyed by their dimensions, once their key is replaced or removed.
+ * {@link #acquire(int, int)} hands out a pooled buffer before allocating a new one. An array stops
+ * being owned as soon as a reference to it escapes, through {@link #disown(Pixels[][])},
+ * {@link #findView(String)} or by being stored under a second key. The store is not
+ * thread-safe.</p>
+ */
+public class ImageStore {
+
+  private static final int MAX_POOLED_PER_SIZE = 2;
+  private static final long ARRAY_HEADER_BYTES = 16;
+  private static final long REFERENCE_BYTES = 4;
+  private static final long PIXEL_BYTES = 24;
+
+  private final Map<String, Pixels[][]> images = new HashMap<>();
+  private final Map<String, ImageView> views = new HashMap<>();
+  private final Map<String, GreyscaleImage> greyscaleImages = new HashMap<>();
+  private final Set<Pixels[][]> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+  private final Map<Long, ArrayDeque<Pixels[][]>> pool = new HashMap<>();
+  private final Map<String, Long> versions = new HashMap<>();
+  private long writes;
+
+  /**
+   * Constructs an empty store and adds it to the gauges of the {@link MetricsRegistry}.
+   */
+  public ImageStore() {
+    MetricsRegistry.global().register(this);
+  }
+
+  /**
+   * Stores a view under the given key, replacing any image stored there.
+   *
+   * @param key  the key to store the view under
+   * @param view the view to store
+   */
+  public void putView(String key, ImageView view) {
+    greyscaleImages.remove(key);
+    views.put(key, view);
+    versions.put(key, ++writes);
+    discard(images.put(key, null));
+  }
+
+  /**
+   * Stores a greyscale image under the given key in its compact form, replacing any image stored
+   * there.
+   *
+   * @param key   the key to store the image under
+   * @param image the greyscale image to store
+   */
+  public void putGreyscale(String key, GreyscaleImage image) {
+    views.remove(key);
+    greyscaleImages.put(key, image);
+    versions.put(key, ++writes);
+    discard(images.put(key, null));
+  }
+
+  /**
+   * Stores an array of pixels under the given key and takes ownership of it, so that it may later
+   * be overwritten in place or reused. The caller must not keep a reference to the array.
+   *
+   * @param key    the key to store the pixels under
+   * @param pixels the pixels to store
+   */
+  public void putOwned(String key, Pixels[][] pixels) {
+    put(key, pixels);
+    owned.add(pixels);
+  }
+
+  /**
+   * Checks whether the given array is owned by the store and may be overwritten in place.
+   *
+   * @param pixels the array to check
+   * @return {@code true} if the store owns the array
+   */
+  public boolean isOwned(Pixels[][] pixels) {
+    return owned.contains(pixels);
+  }
+
+  /**
+   * Gives up ownership of the given array, because a reference to it is about to be kept outside
+   * the store. The array stays stored, but is never overwritten in place or reused.
+   *
+   * @param pixels the array to give up
+   * @return the same array
+   */
+  public Pixels[][] disown(Pixels[][] pixels) {
+    owned.remove(pixels);
+    return pixels;
+  }
+
+  /**
+   * Returns a buffer of the given size to write a result into, reusing a pooled buffer if there is
+   * one. The buffer's contents are left over from its previous use and must be overwritten.
+   *
+   * @param height the number of rows
+   * @param width  the number of columns
+   * @return a buffer of {@link RGBPixel}s of the given size
+   */
+  public Pixels[][] acquire(int height, int width) {
+    ArrayDeque<Pixels[][]> buffers = pool.get(sizeKey(height, width));
+    Pixels[][] buffer = buffers == null ? null : buffers.poll();
+    return buffer != null ? buffer : new RGBPixel[height][width];
+  }
+
+  /**
+   * Returns a buffer obtained from {@link #acquire(int, int)} that ended up unused to the pool.
+   *
+   * @param buffer the buffer to return
+   */
+  public void release(Pixels[][] buffer) {
+    if (buffer == null || buffer.length == 0) {
+      return;
+    }
+    ArrayDeque<Pixels[][]> buffers = pool.computeIfAbsent(
+        sizeKey(buffer.length, buffer[0].length), size -> new ArrayDeque<>());
+    if (buffers.size() < MAX_POOLED_PER_SIZE) {
+      buffers.push(buffer);
+    }
+  }
+
+  /**
+   * Returns a view of the image stored under the given key, without materializing it if it is a
+   * pending view or expanding it if it is a greyscale image.
+   *
+   * @param key the key of the image
+   * @return a view of the image
+   * @throws NullPointerException if no image is stored under the key, as reading the missing
+   *                              image would
+   */
+  public ImageView view(String key) {
+    return Objects.requireNonNull(findView(key), "No image found for key: " + key);
+  }
+
+  /**
+   * Returns a view of the image stored under the given key, or {@code null} if there is none.
+   *
+   * @param key the key of the image
+   * @return a view of the image, or {@code null} if no image is stored under the key
+   */
+  public ImageView findView(String key) {
+    GreyscaleImage greyscaleImage = greyscaleImages.get(key);
+    if (greyscaleImage != null) {
+      return greyscaleImage;
+    }
+    ImageView view = views.get(key);
+    if (view != null) {
+      return view;
+    }
+    Pixels[][] pixels = images.get(key);
+    return pixels == null ? null : new ArrayView(disown(pixels));
+  }
+
+  /**
+   * Returns the size of the image stored under the given key, without materializing or expanding
+   * it and without giving up ownership of its pixels.
+   *
+   * @param key the key of the image
+   * @return the width and height of the image, or {@code null} if no image is stored under the key
+   */
+  public int[] size(String key) {
+    ImageView view = greyscaleImages.get(key);
+    if (view == null) {
+      view = views.get(key);
+    }
+    if (view != null) {
+      return new int[]{view.getWidth(), view.getHeight()};
+    }
+    Pixels[][] pixels = images.get(key);
+    if (pixels == null) {
+      return null;
+    }
+    return new int[]{pixels.length == 0 ? 0 : pixels[0].length, pixels.length};
+  }
+
+  /**
+   * Returns an estimate of the heap bytes kept by the stored images and the pooled buffers. An
+   * array of pixels counts its rows and one object per pixel, except the expanded pixels of a
+   * greyscale image, which are shared, and an array stored under several keys counts once. Views
+   * count nothing until they are materialized. The estimate assumes compressed references.
+   *
+   * @return the estimated bytes
+   */
+  public long residentBytes() {
+    Set<Pixels[][]> counted = Collections.newSetFromMap(new IdentityHashMap<>());
+    long bytes = 0;
+    for (Map.Entry<String, Pixels[][]> entry : images.entrySet()) {
+      Pixels[][] pixels = entry.getValue();
+      if (pixels != null && counted.add(pixels)) {
+        bytes += arrayBytes(pixels, !greyscaleImages.containsKey(entry.getKey()));
+      }
+    }
+    for (GreyscaleImage image : greyscaleImages.values()) {
+      bytes += (long) image.getWidth() * image.getHeight();
+    }
+    for (ArrayDeque<Pixels[][]> buffers : pool.values()) {
+      for (Pixels[][] buffer : buffers) {
+        bytes += arrayBytes(buffer, true);
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Returns an estimate of the heap bytes of an array of pixels.
+   *
+   * @param pixels       the array
+   * @param countsPixels whether the pixel objects belong to the array
+   * @return the estimated bytes
+   */
+  private static long arrayBytes(Pixels[][] pixels, boolean countsPixels) {
+    long width = pixels.length == 0 ? 0 : pixels[0].length;
+    long bytes = ARRAY_HEADER_BYTES + pixels.length * (REFERENCE_BYTES + ARRAY_HEADER_BYTES
+        + width * REFERENCE_BYTES);
+    return countsPixels ? bytes + pixels.length * width * PIXEL_BYTES : bytes;
+  }
+
+  /**
+   * Returns a number that grows every time an image is stored under the given key.
+   *
+   * @param key the key of the image
+   * @return the version of the image, or 0 if no image is stored under the key
+   */
+  public long version(String key) {
+    Long version = versions.get(key);
+    return version == null ? 0 : version;
+  }
+
+  /**
+   * Returns the pixels stored under the given key, materializing them first if the key holds a
+   * pending view.
+   *
+   * @param key the key of the image
+   * @return the pixels of the image, or {@code null} if no image is stored under the key
+   */
+  public Pixels[][] get(String key) {
+    GreyscaleImage greyscaleImage = greyscaleImages.get(key);
+    if (greyscaleImage != null) {
+      Pixels[][] pixels = images.get(key);
+      if (pixels == null) {
+        pixels = greyscaleImage.materialize();
+        images.put(key, pixels);
+      }
+      return pixels;
+    }
+    ImageView view = views.remove(key);
+    if (view != null) {
+      Pixels[][] pixels = view.materialize();
+      images.put(key, pixels);
+      return pixels;
+    }
+    return images.get(key);
+  }
+
+  /**
+   * Stores an array of pixels under the given key, replacing any image stored there. The store
+   * does not own the array, since the caller may keep a reference to it.
+   *
+   * @param key    the key to store the pixels under
+   * @param pixels the pixels to store
+   * @return the pixels previously stored under the key, or {@code null}
+   */
+  public Pixels[][] put(String key, Pixels[][] pixels) {
+    views.remove(key);
+    greyscaleImages.remove(key);
+    versions.put(key, ++writes);
+    Pixels[][] previous = images.put(key, pixels);
+    if (previous != pixels) {
+      disown(pixels);
+      discard(previous);
+    }
+    return previous;
+  }
+
+  /**
+   * Removes the image stored under the given key.
+   *
+   * @param key the key of the image
+   * @return the pixels that were stored under the key, or {@code null}
+   */
+  public Pixels[][] remove(String key) {
+    views.remove(key);
+    greyscaleImages.remove(key);
+    versions.remove(key);
+    Pixels[][] previous = images.remove(key);
+    discard(previous);
+    return previous;
+  }
+
+  /**
+   * Returns the keys of the stored images, in the order of the underlying hash map.
+   *
+   * @return an unmodifiable view of the keys
+   */
+  public Set<String> keySet() {
+    return Collections.unmodifiableSet(images.keySet());
+  }
+
+  /**
+   * Returns the number of stored images.
+   *
+   * @return the number of keys
+   */
+  public int size() {
+    return images.size();
+  }
+
+  /**
+   * Checks whether no image is stored.
+   *
+   * @return {@code true} if the store is empty
+   */
+  public boolean isEmpty() {
+    return images.isEmpty();
+  }
+
+  /**
+   * Returns an array that was just replaced or removed to the pool if the store owned it.
+   *
+   * @param pixels the replaced array, or {@code null}
+   */
+  private void discard(Pixels[][] pixels) {
+    if (pixels != null && owned.remove(pixels)) {
+      release(pixels);
+    }
+  }
+
+  /**
+   * Returns the key of the pool of buffers of the given size.
+   *
+   * @param height the number of rows
+   * @param width  the number of columns
+   * @return the pool key
+   */
+  private static Long sizeKey(int height, int width) {
+    return ((long) height << 32) | (width & 0xFFFFFFFFL);
+  }
+}
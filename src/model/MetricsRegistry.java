@@ -0,0 +1,362 @@
+package model;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code MetricsRegistry} class collects throughput and latency metrics for the whole process
+ * while it runs, and writes them in the plain-text exposition format read by Prometheus.
+ *
+ * <p>The model records every operation, with the pixels of its source and its duration, and the
+ * controller records every image it loads or saves, with the format, the size of the file and the
+ * duration. Counters and latency histograms are kept per operation and per format. The gauges
+ * are computed when the metrics are written, from every {@link ImageStore} that is still in use:
+ * the number of images stored and an estimate of the bytes they keep on the heap.</p>
+ *
+ * <p>Recording is thread-safe and cheap enough to stay enabled. Reading the gauges is not
+ * synchronized with the stores, so the metrics should be written from the thread that uses
+ * them.</p>
+ */
+public final class MetricsRegistry {
+
+  /**
+   * Counter of the pixels read by model operations, labelled by operation.
+   */
+  public static final String PIXELS_PROCESSED = "imageprocessing_pixels_processed_total";
+
+  /**
+   * Histogram of the duration of model operations in seconds, labelled by operation.
+   */
+  public static final String OPERATION_DURATION = "imageprocessing_operation_duration_seconds";
+
+  /**
+   * Counter of the images loaded, labelled by format.
+   */
+  public static final String IMAGES_LOADED = "imageprocessing_images_loaded_total";
+
+  /**
+   * Counter of the images saved, labelled by format.
+   */
+  public static final String IMAGES_SAVED = "imageprocessing_images_saved_total";
+
+  /**
+   * Counter of the bytes of the image files loaded and saved, labelled by operation and format.
+   */
+  public static final String IO_BYTES = "imageprocessing_io_bytes_total";
+
+  /**
+   * Histogram of the duration of loading and saving images in seconds, labelled by operation and
+   * format.
+   */
+  public static final String IO_DURATION = "imageprocessing_io_duration_seconds";
+
+  /**
+   * Gauge of the number of images stored by every model.
+   */
+  public static final String STORED_IMAGES = "imageprocessing_store_images";
+
+  /**
+   * Gauge of the estimated heap bytes kept by the images and pooled buffers of every model.
+   */
+  public static final String RESIDENT_BYTES = "imageprocessing_store_resident_bytes";
+
+  private static final double[] BUCKETS = {0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25,
+      0.5, 1, 2.5, 5, 10};
+
+  private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+  private final Map<String, Family> families = new LinkedHashMap<>();
+  private final List<WeakReference<ImageStore>> stores = new ArrayList<>();
+
+  private MetricsRegistry() {
+    family(PIXELS_PROCESSED, "counter", "Pixels read by model operations.");
+    family(OPERATION_DURATION, "histogram", "Duration of model operations in seconds.");
+    family(IMAGES_LOADED, "counter", "Images loaded from files.");
+    family(IMAGES_SAVED, "counter", "Images saved to files.");
+    family(IO_BYTES, "counter", "Bytes of image files loaded and saved.");
+    family(IO_DURATION, "histogram", "Duration of loading and saving images in seconds.");
+  }
+
+  /**
+   * Returns the registry of the process.
+   *
+   * @return the registry
+   */
+  public static MetricsRegistry global() {
+    return GLOBAL;
+  }
+
+  /**
+   * Records an operation of the model.
+   *
+   * @param operation the name of the operation
+   * @param pixels    the number of pixels of its source, or 0 if unknown
+   * @param nanos     the time it took in nanoseconds
+   */
+  public void recordOperation(String operation, long pixels, long nanos) {
+    String labels = label("operation", operation);
+    counter(PIXELS_PROCESSED, labels).add(pixels);
+    histogram(OPERATION_DURATION, labels).observe(nanos);
+  }
+
+  /**
+   * Records an image loaded from or saved to a file.
+   *
+   * @param operation {@code load} or {@code save}
+   * @param format    the file extension of the format
+   * @param bytes     the size of the file
+   * @param nanos     the time it took in nanoseconds
+   */
+  public void recordImageIo(String operation, String format, long bytes, long nanos) {
+    counter(operation.equals("load") ? IMAGES_LOADED : IMAGES_SAVED, label("format", format))
+        .increment();
+    String labels = label("operation", operation) + "," + label("format", format);
+    counter(IO_BYTES, labels).add(bytes);
+    histogram(IO_DURATION, labels).observe(nanos);
+  }
+
+  /**
+   * Adds a store to the gauges for as long as it is in use. Stores that have been garbage
+   * collected drop out on their own.
+   *
+   * @param store the store to add
+   */
+  public void register(ImageStore store) {
+    synchronized (stores) {
+      stores.removeIf(reference -> reference.get() == null);
+      stores.add(new WeakReference<>(store));
+    }
+  }
+
+  /**
+   * Returns the value of a counter, or the number of observations of a histogram.
+   *
+   * @param name   the name of the metric
+   * @param labels the labels of the series, as written, e.g. {@code operation="blur"}
+   * @return the value, or 0 if nothing was recorded for the series
+   * @throws IllegalArgumentException if there is no metric with the given name
+   */
+  public long getCount(String name, String labels) {
+    Family family = families.get(name);
+    if (family == null) {
+      throw new IllegalArgumentException("Unknown metric: " + name);
+    }
+    Object series = family.series.get(labels);
+    if (series == null) {
+      return 0;
+    }
+    return series instanceof Histogram ? ((Histogram) series).count.sum()
+        : ((LongAdder) series).sum();
+  }
+
+  /**
+   * Writes every metric in the plain-text exposition format, with the gauges computed from the
+   * stores in use.
+   *
+   * @param out where to write the metrics
+   * @throws IOException if writing fails
+   */
+  public void write(Appendable out) throws IOException {
+    for (Family family : families.values()) {
+      out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+      out.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+      for (Map.Entry<String, Object> entry : new TreeMap<>(family.series).entrySet()) {
+        if (entry.getValue() instanceof Histogram) {
+          ((Histogram) entry.getValue()).write(family.name, entry.getKey(), out);
+        } else {
+          sample(out, family.name, entry.getKey(), ((LongAdder) entry.getValue()).sum());
+        }
+      }
+    }
+
+    long images = 0;
+    long bytes = 0;
+    for (ImageStore store : liveStores()) {
+      images += store.size();
+      bytes += store.residentBytes();
+    }
+    writeGauge(out, STORED_IMAGES, "Images stored by every model.", images);
+    writeGauge(out, RESIDENT_BYTES,
+        "Estimated heap bytes of the stored images and pooled buffers.", bytes);
+  }
+
+  /**
+   * Returns the stores that are still in use.
+   *
+   * @return the live stores
+   */
+  private List<ImageStore> liveStores() {
+    List<ImageStore> live = new ArrayList<>();
+    synchronized (stores) {
+      Iterator<WeakReference<ImageStore>> iterator = stores.iterator();
+      while (iterator.hasNext()) {
+        ImageStore store = iterator.next().get();
+        if (store == null) {
+          iterator.remove();
+        } else {
+          live.add(store);
+        }
+      }
+    }
+    return live;
+  }
+
+  /**
+   * Declares a metric.
+   *
+   * @param name the name of the metric
+   * @param type the type of the metric, {@code counter} or {@code histogram}
+   * @param help the description of the metric
+   */
+  private void family(String name, String type, String help) {
+    families.put(name, new Family(name, type, help));
+  }
+
+  /**
+   * Returns the counter of a series, creating it on first use.
+   *
+   * @param name   the name of the metric
+   * @param labels the labels of the series
+   * @return the counter
+   */
+  private LongAdder counter(String name, String labels) {
+    return (LongAdder) families.get(name).series.computeIfAbsent(labels, key -> new LongAdder());
+  }
+
+  /**
+   * Returns the histogram of a series, creating it on first use.
+   *
+   * @param name   the name of the metric
+   * @param labels the labels of the series
+   * @return the histogram
+   */
+  private Histogram histogram(String name, String labels) {
+    return (Histogram) families.get(name).series.computeIfAbsent(labels, key -> new Histogram());
+  }
+
+  /**
+   * Formats a label, escaping its value.
+   *
+   * @param name  the name of the label
+   * @param value the value of the label
+   * @return the label as written in a series
+   */
+  private static String label(String name, String value) {
+    return name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"")
+        .replace("\n", "\\n") + "\"";
+  }
+
+  /**
+   * Writes a gauge with a single sample.
+   *
+   * @param out   where to write the gauge
+   * @param name  the name of the gauge
+   * @param help  the description of the gauge
+   * @param value the value of the gauge
+   * @throws IOException if writing fails
+   */
+  private static void writeGauge(Appendable out, String name, String help, long value)
+      throws IOException {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(" gauge\n");
+    sample(out, name, "", value);
+  }
+
+  /**
+   * Writes a single sample.
+   *
+   * @param out    where to write the sample
+   * @param name   the name of the sample
+   * @param labels the labels of the sample, or an empty string
+   * @param value  the value of the sample
+   * @throws IOException if writing fails
+   */
+  private static void sample(Appendable out, String name, String labels, Object value)
+      throws IOException {
+    out.append(name);
+    if (!labels.isEmpty()) {
+      out.append('{').append(labels).append('}');
+    }
+    out.append(' ').append(String.valueOf(value)).append('\n');
+  }
+
+  /**
+   * A metric and its series, keyed by their labels.
+   */
+  private static final class Family {
+
+    private final String name;
+    private final String type;
+    private final String help;
+    private final Map<String, Object> series = new ConcurrentHashMap<>();
+
+    private Family(String name, String type, String help) {
+      this.name = name;
+      this.type = type;
+      this.help = help;
+    }
+  }
+
+  /**
+   * A latency histogram with fixed buckets.
+   */
+  private static final class Histogram {
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS.length];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+
+    private Histogram() {
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] = new LongAdder();
+      }
+    }
+
+    /**
+     * Records a duration in the first bucket it fits in.
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    private void observe(long nanos) {
+      double seconds = nanos / 1e9;
+      for (int i = 0; i < BUCKETS.length; i++) {
+        if (seconds <= BUCKETS[i]) {
+          buckets[i].increment();
+          break;
+        }
+      }
+      count.increment();
+      sumNanos.add(nanos);
+    }
+
+    /**
+     * Writes the cumulative buckets, the sum and the count of the histogram.
+     *
+     * @param name   the name of the metric
+     * @param labels the labels of the series
+     * @param out    where to write the histogram
+     * @throws IOException if writing fails
+     */
+    private void write(String name, String labels, Appendable out) throws IOException {
+      String prefix = labels.isEmpty() ? "" : labels + ",";
+      long cumulative = 0;
+      for (int i = 0; i < BUCKETS.length; i++) {
+        cumulative += buckets[i].sum();
+        sample(out, name + "_bucket", prefix + "le=\"" + BUCKETS[i] + "\"", cumulative);
+      }
+      sample(out, name + "_bucket", prefix + "le=\"+Inf\"", count.sum());
+      sample(out, name + "_sum", labels,
+          String.format(Locale.ROOT, "%.6f", sumNanos.sum() / 1e9));
+      sample(out, name + "_count", labels, count.sum());
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package model;
+
+/**
+ * The {@code ProgressListener} interface is notified of the progress of the tasks run in a
+ * {@link TaskContext}. Nested tasks, such as the operations of a script, report their own
+ * progress. Parallel operations report from the threads that do their work, so a listener must be
+ * thread-safe and should hand its updates over to the thread that shows them.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+  /**
+   * Called when a task has done another percent of its work, and when it is done.
+   *
+   * @param task  the name of the task
+   * @param done  the units of work done so far, such as rows or levels
+   * @param total the units of work of the whole task
+   */
+  void progress(String task, long done, long total);
+}
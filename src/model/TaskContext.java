@@ -0,0 +1,163 @@
+package model;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code TaskContext} class lets long operations report their progress and be cancelled
+ * without threading a listener or a token through every method. A context is installed for the
+ * current thread by {@link #run(Runnable)}, and the operations running inside it look it up with
+ * {@link #current()}.
+ *
+ * <p>An operation calls {@link #begin(String, long)} with the units of work it will do, such as
+ * rows, levels or commands, and {@link Task#advance(long)} after each of them. Advancing checks
+ * whether the context was cancelled, and throws a {@link CancellationException} if it was, so an
+ * operation stops within one unit of work after {@link #cancel()} is called from any thread.
+ * Operations that spread their work over other threads look up the context first and advance
+ * their task from the worker threads.</p>
+ *
+ * <p>Outside of a context, {@link #current()} returns a context that is never cancelled and
+ * reports to no one, so operations pay only for a field read per unit of work.</p>
+ */
+public final class TaskContext {
+
+  private static final ThreadLocal<TaskContext> CURRENT = new ThreadLocal<>();
+  private static final TaskContext NONE = new TaskContext(null);
+
+  private final ProgressListener listener;
+  private volatile boolean cancelled;
+
+  /**
+   * Constructs a context that reports progress to the given listener.
+   *
+   * @param listener the listener of the tasks' progress, or {@code null} to only allow
+   *                 cancelling them
+   */
+  public TaskContext(ProgressListener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Returns the context of the current thread.
+   *
+   * @return the context installed by {@link #run(Runnable)}, or a context that is never cancelled
+   *     and reports to no one
+   */
+  public static TaskContext current() {
+    TaskContext context = CURRENT.get();
+    return context == null ? NONE : context;
+  }
+
+  /**
+   * Runs work on the current thread with this context installed, restoring the previous context
+   * afterwards.
+   *
+   * @param work the work to run
+   * @throws CancellationException if the work was cancelled and did not handle it
+   */
+  public void run(Runnable work) {
+    TaskContext previous = CURRENT.get();
+    CURRENT.set(this);
+    try {
+      work.run();
+    } finally {
+      if (previous == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(previous);
+      }
+    }
+  }
+
+  /**
+   * Asks the tasks running in this context to stop. They stop the next time they advance.
+   */
+  public void cancel() {
+    if (this != NONE) {
+      cancelled = true;
+    }
+  }
+
+  /**
+   * Checks whether tasks in this context can be cancelled, which is the case for every context
+   * except the one {@link #current()} returns outside of {@link #run(Runnable)}.
+   *
+   * @return {@code true} if this context can be cancelled
+   */
+  public boolean isCancellable() {
+    return this != NONE;
+  }
+
+  /**
+   * Checks whether this context was cancelled.
+   *
+   * @return {@code true} if {@link #cancel()} was called
+   */
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Throws if this context was cancelled.
+   *
+   * @throws CancellationException if {@link #cancel()} was called
+   */
+  public void checkCancelled() {
+    if (cancelled) {
+      throw new CancellationException("Operation cancelled");
+    }
+  }
+
+  /**
+   * Starts a task in this context.
+   *
+   * @param name  the name of the task, passed to the listener
+   * @param total the units of work of the task
+   * @return the task, to advance after every unit of work
+   * @throws CancellationException if this context was cancelled
+   */
+  public Task begin(String name, long total) {
+    checkCancelled();
+    return new Task(this, name, total);
+  }
+
+  /**
+   * A task running in a context, advanced by the operation as it does its work. A task may be
+   * advanced from several threads at once.
+   */
+  public static final class Task {
+
+    private final TaskContext context;
+    private final String name;
+    private final long total;
+    private final AtomicLong done = new AtomicLong();
+    private final AtomicInteger reported = new AtomicInteger(-1);
+
+    private Task(TaskContext context, String name, long total) {
+      this.context = context;
+      this.name = name;
+      this.total = Math.max(1, total);
+    }
+
+    /**
+     * Records that more work was done, notifying the listener whenever another percent of the
+     * task is done.
+     *
+     * @param units the units of work done since the last call
+     * @throws CancellationException if the context was cancelled
+     */
+    public void advance(long units) {
+      context.checkCancelled();
+      if (context.listener == null) {
+        return;
+      }
+      long now = done.addAndGet(units);
+      int percent = (int) (Math.min(now, total) * 100 / total);
+      int last = reported.get();
+      if (percent > last && reported.compareAndSet(last, percent)) {
+        context.listener.progress(name, Math.min(now, total), total);
+      }
+    }
+  }
+}
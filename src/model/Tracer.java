@@ -0,0 +1,193 @@
+package model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The {@code Tracer} class records a timeline of the spans of the process, script commands, model
+ * operations and image loads and saves, and writes it in the Chrome trace-event format, which
+ * trace viewers such as Perfetto or {@code chrome://tracing} open.
+ *
+ * <p>Every span is written as a complete event with the thread that ran it, so a viewer nests the
+ * spans of one thread by their times and shows the threads side by side. Spans are only recorded
+ * after {@link #start()}, and recording them is thread-safe.</p>
+ */
+public final class Tracer {
+
+  /**
+   * The category of script commands.
+   */
+  public static final String COMMAND = "command";
+
+  /**
+   * The category of model operations.
+   */
+  public static final String TRANSFORM = "transform";
+
+  /**
+   * The category of image loads.
+   */
+  public static final String DECODE = "decode";
+
+  /**
+   * The category of image saves.
+   */
+  public static final String ENCODE = "encode";
+
+  private static final Tracer GLOBAL = new Tracer();
+
+  private final ConcurrentLinkedQueue<Span> spans = new ConcurrentLinkedQueue<>();
+  private final Map<Long, String> threads = new ConcurrentHashMap<>();
+  private volatile boolean enabled;
+  private volatile long originNanos;
+
+  private Tracer() {
+  }
+
+  /**
+   * Returns the tracer of the process.
+   *
+   * @return the tracer
+   */
+  public static Tracer global() {
+    return GLOBAL;
+  }
+
+  /**
+   * Discards any spans recorded so far and starts recording, with times relative to now.
+   */
+  public void start() {
+    spans.clear();
+    threads.clear();
+    originNanos = System.nanoTime();
+    enabled = true;
+  }
+
+  /**
+   * Stops recording. The spans recorded so far are kept until they are written.
+   */
+  public void stop() {
+    enabled = false;
+  }
+
+  /**
+   * Checks whether spans are being recorded, so callers can skip collecting their arguments.
+   *
+   * @return {@code true} if spans are being recorded
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Records a span that ran on the current thread, if recording.
+   *
+   * @param name       the name of the span
+   * @param category   the category of the span
+   * @param startNanos the {@link System#nanoTime()} the span started at
+   * @param endNanos   the {@link System#nanoTime()} the span ended at
+   * @param args       the arguments shown with the span, alternating names and values, where
+   *                   numbers are written as numbers and anything else as strings
+   */
+  public void record(String name, String category, long startNanos, long endNanos,
+      Object... args) {
+    if (!enabled) {
+      return;
+    }
+    Thread thread = Thread.currentThread();
+    threads.putIfAbsent(thread.getId(), thread.getName());
+    spans.add(new Span(name, category, thread.getId(), startNanos, endNanos, args));
+  }
+
+  /**
+   * Returns the number of spans recorded so far.
+   *
+   * @return the number of spans
+   */
+  public int size() {
+    return spans.size();
+  }
+
+  /**
+   * Writes the recorded spans as a Chrome trace-event JSON document, with the names of the threads
+   * that ran them.
+   *
+   * @param out where to write the trace
+   * @throws IOException if writing fails
+   */
+  public void write(Appendable out) throws IOException {
+    List<String> events = new ArrayList<>();
+    for (Map.Entry<Long, String> thread : threads.entrySet()) {
+      events.add(String.format(Locale.ROOT, "{\"name\": \"thread_name\", \"ph\": \"M\", "
+              + "\"pid\": 1, \"tid\": %d, \"args\": {\"name\": %s}}",
+          thread.getKey(), quote(thread.getValue())));
+    }
+    long origin = originNanos;
+    for (Span span : spans) {
+      StringBuilder json = new StringBuilder();
+      for (int i = 0; i + 1 < span.args.length; i += 2) {
+        Object value = span.args[i + 1];
+        json.append(i == 0 ? "" : ", ").append(quote(String.valueOf(span.args[i]))).append(": ")
+            .append(value instanceof Number ? value.toString() : quote(String.valueOf(value)));
+      }
+      events.add(String.format(Locale.ROOT, "{\"name\": %s, \"cat\": %s, \"ph\": \"X\", "
+              + "\"pid\": 1, \"tid\": %d, \"ts\": %.3f, \"dur\": %.3f, \"args\": {%s}}",
+          quote(span.name), quote(span.category), span.threadId,
+          (span.startNanos - origin) / 1e3, (span.endNanos - span.startNanos) / 1e3, json));
+    }
+
+    out.append("{\"displayTimeUnit\": \"ms\", \"traceEvents\": [\n");
+    for (int i = 0; i < events.size(); i++) {
+      out.append("  ").append(events.get(i)).append(i + 1 < events.size() ? ",\n" : "\n");
+    }
+    out.append("]}\n");
+  }
+
+  /**
+   * Quotes a value as a JSON string.
+   *
+   * @param value the value
+   * @return the value as a JSON string
+   */
+  private static String quote(String value) {
+    StringBuilder quoted = new StringBuilder("\"");
+    for (char c : value.toCharArray()) {
+      if (c == '"' || c == '\\') {
+        quoted.append('\\').append(c);
+      } else if (c < 0x20) {
+        quoted.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+      } else {
+        quoted.append(c);
+      }
+    }
+    return quoted.append('"').toString();
+  }
+
+  /**
+   * A recorded span.
+   */
+  private static final class Span {
+
+    private final String name;
+    private final String category;
+    private final long threadId;
+    private final long startNanos;
+    private final long endNanos;
+    private final Object[] args;
+
+    private Span(String name, String category, long threadId, long startNanos, long endNanos,
+        Object[] args) {
+      this.name = name;
+      this.category = category;
+      this.threadId = threadId;
+      this.startNanos = startNanos;
+      this.endNanos = endNanos;
+      this.args = args;
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package model;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The {@code TransformationEvent} class is the Java Flight Recorder event emitted for every
+ * operation of the image model, with the operation's name, the keys it read and wrote and the
+ * size of both images. The duration of the event is the time the model spent on the operation.
+ *
+ * <p>The event is emitted by the model rather than by each {@code Transformation}, because only
+ * the model knows the keys an image is stored under. Operations that only store a lazy view, such
+ * as flips, are cheap here and show their real cost in the operation that first reads the
+ * result.</p>
+ *
+ * <p>Every operation is also recorded in the {@link MetricsRegistry}, whether or not a recording
+ * is running, and as a span of the {@link Tracer} while it traces.</p>
+ */
+@Name("imageprocessing.Transformation")
+@Label("Image Transformation")
+@Category({"Image Processing", "Model"})
+@Description("An operation of the image model, from reading its source to storing its result")
+public class TransformationEvent extends Event {
+
+  @Label("Operation")
+  String operation;
+
+  @Label("Source Key")
+  String sourceKey;
+
+  @Label("Result Key")
+  String resultKey;
+
+  @Label("Source Width")
+  int sourceWidth;
+
+  @Label("Source Height")
+  int sourceHeight;
+
+  @Label("Result Width")
+  int resultWidth;
+
+  @Label("Result Height")
+  int resultHeight;
+
+  private transient long startNanos;
+
+  /**
+   * Creates an event and starts timing it.
+   *
+   * @return the started event
+   */
+  public static TransformationEvent start() {
+    TransformationEvent event = new TransformationEvent();
+    event.startNanos = System.nanoTime();
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Stops timing the event, records it in the metrics and the trace and commits it if it is
+   * enabled, reading the size of both images from the store.
+   *
+   * @param operation the name of the operation
+   * @param sourceKey the key of the image the operation read
+   * @param resultKey the key the operation stored its result under
+   * @param images    the images of the model
+   */
+  public void end(String operation, String sourceKey, String resultKey, ImageStore images) {
+    end();
+    int[] sourceSize = images.size(sourceKey);
+    int[] resultSize = resultKey != null && (shouldCommit() || Tracer.global().isEnabled())
+        ? images.size(resultKey) : null;
+    record(operation, sourceKey, resultKey, sourceSize, resultSize);
+  }
+
+  /**
+   * Stops timing the event, records it in the metrics and the trace and commits it if it is
+   * enabled.
+   *
+   * @param operation  the name of the operation
+   * @param sourceKey  the key of the image the operation read
+   * @param resultKey  the key the operation stored its result under, or {@code null} if it
+   *                   returned the result instead
+   * @param sourceSize the width and height of the source, or {@code null} if unknown
+   * @param resultSize the width and height of the result, or {@code null} if unknown
+   */
+  public void end(String operation, String sourceKey, String resultKey, int[] sourceSize,
+      int[] resultSize) {
+    end();
+    record(operation, sourceKey, resultKey, sourceSize, resultSize);
+  }
+
+  /**
+   * Records the operation in the metrics and the trace, and commits the event if it is enabled.
+   *
+   * @param operation  the name of the operation
+   * @param sourceKey  the key of the image the operation read
+   * @param resultKey  the key the operation stored its result under
+   * @param sourceSize the width and height of the source, or {@code null} if unknown
+   * @param resultSize the width and height of the result, or {@code null} if unknown
+   */
+  private void record(String operation, String sourceKey, String resultKey, int[] sourceSize,
+      int[] resultSize) {
+    long endNanos = System.nanoTime();
+    long pixels = sourceSize == null ? 0 : (long) sourceSize[0] * sourceSize[1];
+    MetricsRegistry.global().recordOperation(operation, pixels, endNanos - startNanos);
+    Tracer tracer = Tracer.global();
+    if (tracer.isEnabled()) {
+      tracer.record(operation, Tracer.TRANSFORM, startNanos, endNanos,
+          "source", sourceKey, "result", resultKey == null ? "" : resultKey,
+          "sourceSize", format(sourceSize), "resultSize", format(resultSize));
+    }
+    if (shouldCommit()) {
+      commit(operation, sourceKey, resultKey, sourceSize, resultSize);
+    }
+  }
+
+  /**
+   * Formats the size of an image for the trace.
+   *
+   * @param size the width and height of the image, or {@code null} if unknown
+   * @return the size as {@code WxH}, or an empty string if unknown
+   */
+  private static String format(int[] size) {
+    return size == null ? "" : size[0] + "x" + size[1];
+  }
+
+  /**
+   * Fills in the fields of the event and commits it.
+   *
+   * @param operation  the name of the operation
+   * @param sourceKey  the key of the image the operation read
+   * @param resultKey  the key the operation stored its result under
+   * @param sourceSize the width and height of the source, or {@code null} if unknown
+   * @param resultSize the width and height of the result, or {@code null} if unknown
+   */
+  private void commit(String operation, String sourceKey, String resultKey, int[] sourceSize,
+      int[] resultSize) {
+    this.operation = operation;
+    this.sourceKey = sourceKey;
+    this.resultKey = resultKey;
+    this.sourceWidth = sourceSize == null ? -1 : sourceSize[0];
+    this.sourceHeight = sourceSize == null ? -1 : sourceSize[1];
+    this.resultWidth = resultSize == null ? -1 : resultSize[0];
+    this.resultHeight = resultSize == null ? -1 : resultSize[1];
+    commit();
+  }
+}
@@ -8,12 +8,24 @@ package model.colorscheme;
  * <p>The RGB model is a color model in which colors are described by specifying the intensity
  * of the red, green, and blue components. This class provides methods to access and manipulate
  * individual color components of the pixel.</p>
+ *
+ * <p>Pixels are immutable, so one instance can be shared by every position that holds the same
+ * color. {@link #of(int, int, int)} hands out shared instances for the 256 greys, which include
+ * black and white, and should be preferred over the constructor.</p>
  */
 public class RGBPixel implements Pixels {
 
-  private int r;
-  private int g;
-  private int b;
+  private static final RGBPixel[] GREYS = new RGBPixel[256];
+
+  static {
+    for (int i = 0; i < GREYS.length; i++) {
+      GREYS[i] = new RGBPixel(i, i, i);
+    }
+  }
+
+  private final int r;
+  private final int g;
+  private final int b;
 
   /**
    * Constructs an RGBPixel with specified red, green, and blue values. The input values are clamped
@@ -33,6 +45,23 @@ public class RGBPixel implements Pixels {
     this.b = Math.min(255, Math.max(0, b));
   }
 
+  /**
+   * Returns a pixel with the specified red, green, and blue values, clamped between 0 and 255 like
+   * the constructor does. Greys, where all three values are equal, are taken from a table of
+   * shared instances instead of being allocated.
+   *
+   * @param r the red component (0-255)
+   * @param g the green component (0-255)
+   * @param b the blue component (0-255)
+   * @return a pixel with the given color
+   */
+  public static RGBPixel of(int r, int g, int b) {
+    if (r == g && g == b) {
+      return GREYS[Math.min(255, Math.max(0, r))];
+    }
+    return new RGBPixel(r, g, b);
+  }
+
   /**
    * Returns the red component of this pixel.
    *
@@ -0,0 +1,185 @@
+package model.imagetransformation;
+
+import model.colorscheme.Pixels;
+import model.colorscheme.RGBPixel;
+
+/**
+ * The {@code Region} class represents a rectangular region of interest of an image, given by the
+ * column and row of its top left corner and its width and height in pixels.
+ *
+ * <p>A region is passed to {@link Transformation#apply(Pixels[][], Region)} to transform only part
+ * of an image. A region may extend past the edges of an image; it is clipped to the image before
+ * use.</p>
+ */
+public final class Region {
+
+  private final int x;
+  private final int y;
+  private final int width;
+  private final int height;
+
+  /**
+   * Constructs a region with the given top left corner and size.
+   *
+   * @param x      the column of the left edge of the region
+   * @param y      the row of the top edge of the region
+   * @param width  the number of columns in the region
+   * @param height the number of rows in the region
+   * @throws IllegalArgumentException if the width or height is negative
+   */
+  public Region(int x, int y, int width, int height) {
+    if (width < 0 || height < 0) {
+      throw new IllegalArgumentException("Region width and height cannot be negative.");
+    }
+    this.x = x;
+    this.y = y;
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * Returns the region that covers the whole of the given image.
+   *
+   * @param pixels the image
+   * @return a region with the image's width and height
+   */
+  public static Region of(Pixels[][] pixels) {
+    return new Region(0, 0, pixels.length == 0 ? 0 : pixels[0].length, pixels.length);
+  }
+
+  /**
+   * Returns the column of the left edge of this region.
+   *
+   * @return the first column
+   */
+  public int getX() {
+    return x;
+  }
+
+  /**
+   * Returns the row of the top edge of this region.
+   *
+   * @return the first row
+   */
+  public int getY() {
+    return y;
+  }
+
+  /**
+   * Returns the number of columns in this region.
+   *
+   * @return the width
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the number of rows in this region.
+   *
+   * @return the height
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns the column just past the right edge of this region.
+   *
+   * @return the first column after the region
+   */
+  public int getEndX() {
+    return x + width;
+  }
+
+  /**
+   * Returns the row just past the bottom edge of this region.
+   *
+   * @return the first row after the region
+   */
+  public int getEndY() {
+    return y + height;
+  }
+
+  /**
+   * Checks whether this region contains no pixels.
+   *
+   * @return {@code true} if the width or height is zero
+   */
+  public boolean isEmpty() {
+    return width == 0 || height == 0;
+  }
+
+  /**
+   * Returns the part of this region that lies inside the given image.
+   *
+   * @param pixels the image
+   * @return the intersection of this region and the image, which may be empty
+   */
+  public Region clip(Pixels[][] pixels) {
+    int imageHeight = pixels.length;
+    int imageWidth = imageHeight == 0 ? 0 : pixels[0].length;
+    int left = Math.max(0, x);
+    int top = Math.max(0, y);
+    int right = Math.min(imageWidth, getEndX());
+    int bottom = Math.min(imageHeight, getEndY());
+    return new Region(left, top, Math.max(0, right - left), Math.max(0, bottom - top));
+  }
+
+  /**
+   * Creates the output image of a transformation restricted to this region. Rows that this region
+   * does not touch are shared with the source, and the rows it does touch are copied so that the
+   * pixels inside the region can be overwritten. The source is never modified, but the result
+   * shares rows with it, so neither should be modified in place afterwards.
+   *
+   * @param source the image being transformed
+   * @return a new image holding the source's pixels, ready for the region to be written
+   */
+  public Pixels[][] copyForWrite(Pixels[][] source) {
+    Pixels[][] result = new RGBPixel[source.length][];
+    for (int i = 0; i < source.length; i++) {
+      boolean inside = i >= y && i < getEndY() && width > 0;
+      if (!inside && source[i] instanceof RGBPixel[]) {
+        result[i] = source[i];
+      } else {
+        result[i] = new RGBPixel[source[i].length];
+        System.arraycopy(source[i], 0, result[i], 0, source[i].length);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Copies the pixels inside this region from one image into another of the same size.
+   *
+   * @param from the image to copy the region from
+   * @param to   the image to copy the region into
+   */
+  public void copy(Pixels[][] from, Pixels[][] to) {
+    for (int i = y; i < getEndY(); i++) {
+      System.arraycopy(from[i], x, to[i], x, width);
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Region)) {
+      return false;
+    }
+    Region other = (Region) o;
+    return x == other.x && y == other.y && width == other.width && height == other.height;
+  }
+
+  @Override
+  public int hashCode() {
+    return ((x * 31 + y) * 31 + width) * 31 + height;
+  }
+
+  @Override
+  public String toString() {
+    return width + "x" + height + "+" + x + "+" + y;
+  }
+}
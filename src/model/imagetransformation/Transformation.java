@@ -12,6 +12,15 @@ import model.colorscheme.RGBPixel;
  *
  * <p>The transformations are expected to operate on a 2D array of {@link Pixels} and return a new
  * 2D array of transformed {@link RGBPixel} objects representing the modified image data.</p>
+ *
+ * <p>A transformation can also be restricted to a {@link Region} of the image. Point operations
+ * and filters override {@link #apply(Pixels[][], Region)} so that they only compute the pixels
+ * inside the region.</p>
+ *
+ * <p>A transformation can also write its result into an array supplied by the caller with
+ * {@link #applyInto(Pixels[][], Pixels[][])}, which lets the model reuse buffers. Point operations,
+ * which compute every pixel from the pixel at the same position only, can write into the source
+ * itself and report so through {@link #supportsInPlace()}.</p>
  */
 public interface Transformation {
 
@@ -30,4 +39,61 @@ public interface Transformation {
    */
 
   Pixels[][] apply(Pixels[][] pixels);
+
+  /**
+   * Applies the transformation to a region of the image only. Inside the region the result is the
+   * same as that of {@link #apply(Pixels[][])}, including filters that read neighbours outside the
+   * region. Outside the region the result holds the source's pixels, and rows the region does not
+   * touch are shared with the source.
+   *
+   * <p>The default implementation transforms the whole image and copies the region out of it,
+   * which suits transformations that depend on the whole image, such as color correction.
+   * Transformations that can compute a pixel on its own override it to do work proportional to the
+   * region.</p>
+   *
+   * @param pixels a 2D array of {@link Pixels} representing the image data to be transformed.
+   * @param region the region to transform, which is clipped to the image.
+   * @return a 2D array of {@link RGBPixel} of the same size as the input.
+   * @throws IllegalArgumentException if the input pixel data is invalid, or the transformation
+   *                                  changes the size of the image.
+   */
+  default Pixels[][] apply(Pixels[][] pixels, Region region) {
+    Pixels[][] transformed = apply(pixels);
+    if (transformed.length != pixels.length || transformed[0].length != pixels[0].length) {
+      throw new IllegalArgumentException(
+          "Transformations that change the image size cannot be applied to a region.");
+    }
+    Region clipped = region.clip(pixels);
+    Pixels[][] result = clipped.copyForWrite(pixels);
+    clipped.copy(transformed, result);
+    return result;
+  }
+
+  /**
+   * Applies the transformation, writing the result into the given destination array when the
+   * transformation supports it. The destination must have the size of the result, and unless
+   * {@link #supportsInPlace()} returns {@code true} it must not be the source array.
+   *
+   * <p>The default implementation ignores the destination and returns the result of
+   * {@link #apply(Pixels[][])}, so callers must always use the returned array.</p>
+   *
+   * @param pixels      a 2D array of {@link Pixels} representing the image data to be transformed.
+   * @param destination a 2D array of {@link RGBPixel} to write the result into.
+   * @return the transformed image, which is either the destination or a new array.
+   * @throws IllegalArgumentException if the input pixel data is invalid or cannot be processed.
+   */
+  default Pixels[][] applyInto(Pixels[][] pixels, Pixels[][] destination) {
+    return apply(pixels);
+  }
+
+  /**
+   * Returns whether {@link #applyInto(Pixels[][], Pixels[][])} can write the result into the
+   * source array itself, which is the case for point operations that read every pixel before
+   * writing it and keep the size of the image.
+   *
+   * @return {@code true} if the transformation can be applied in place.
+   */
+  default boolean supportsInPlace() {
+    return false;
+  }
 }
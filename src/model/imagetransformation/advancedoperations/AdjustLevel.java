@@ -2,6 +2,7 @@ package model.imagetransformation.advancedoperations;
 
 import model.colorscheme.Pixels;
 import model.colorscheme.RGBPixel;
+import model.imagetransformation.Region;
 import model.imagetransformation.Transformation;
 
 /**
@@ -98,29 +99,98 @@ public class AdjustLevel implements Transformation {
       throw new IllegalArgumentException("Input pixel array cannot be null.");
     }
 
+    return applyInto(pixels, new RGBPixel[pixels.length][pixels[0].length]);
+  }
+
+  /**
+   * Applies the levels adjustment to every pixel, writing the results into the given destination,
+   * which may be the source itself.
+   *
+   * @param pixels      A 2D array of {@link Pixels} objects representing the image pixels to be
+   *                    transformed.
+   * @param destination A 2D array of {@link RGBPixel} of the same size to write the result into.
+   * @return The destination, holding the adjusted image pixels.
+   * @throws IllegalArgumentException if the pixel data is null or if any pixel is not an
+   *                                  {@link RGBPixel}.
+   */
+  @Override
+  public Pixels[][] applyInto(Pixels[][] pixels, Pixels[][] destination) {
+    if (pixels == null) {
+      throw new IllegalArgumentException("Input pixel array cannot be null.");
+    }
+
     int height = pixels.length;
     int width = pixels[0].length;
-    Pixels[][] adjustedPixels = new RGBPixel[height][width];
 
     for (int i = 0; i < height; i++) {
       for (int j = 0; j < width; j++) {
-        if (!(pixels[i][j] instanceof RGBPixel)) {
-          throw new IllegalArgumentException("Expected an RGBPixel.");
-        }
+        destination[i][j] = adjustPixel(pixels[i][j]);
+      }
+    }
 
-        RGBPixel rgbPixel = (RGBPixel) pixels[i][j];
+    return destination;
+  }
 
-        int newRed = adjustValue(rgbPixel.getRed());
-        int newGreen = adjustValue(rgbPixel.getGreen());
-        int newBlue = adjustValue(rgbPixel.getBlue());
+  /**
+   * Returns {@code true}, since every pixel is adjusted on its own.
+   *
+   * @return {@code true}
+   */
+  @Override
+  public boolean supportsInPlace() {
+    return true;
+  }
 
-        adjustedPixels[i][j] = new RGBPixel(newRed, newGreen, newBlue);
+  /**
+   * Applies the levels adjustment transformation to the pixels inside the given region only.
+   *
+   * @param pixels A 2D array of {@link Pixels} objects representing the image pixels to be
+   *               transformed.
+   * @param region The region to transform, which is clipped to the image.
+   * @return A 2D array of {@link RGBPixel} objects holding the adjusted region and the source
+   *         pixels outside it.
+   * @throws IllegalArgumentException if the pixel data is null or if any pixel inside the region is
+   *                                  not an {@link RGBPixel}.
+   */
+  @Override
+  public Pixels[][] apply(Pixels[][] pixels, Region region) {
+    if (pixels == null) {
+      throw new IllegalArgumentException("Input pixel array cannot be null.");
+    }
+
+    Region clipped = region.clip(pixels);
+    Pixels[][] adjustedPixels = clipped.copyForWrite(pixels);
+
+    for (int i = clipped.getY(); i < clipped.getEndY(); i++) {
+      for (int j = clipped.getX(); j < clipped.getEndX(); j++) {
+        adjustedPixels[i][j] = adjustPixel(pixels[i][j]);
       }
     }
 
     return adjustedPixels;
   }
 
+  /**
+   * Adjusts the red, green and blue components of a single pixel using the quadratic curve.
+   *
+   * @param pixel the pixel to adjust
+   * @return the adjusted pixel
+   * @throws IllegalArgumentException if the pixel is not an {@link RGBPixel}
+   */
+  private RGBPixel adjustPixel(Pixels pixel) {
+    if (!(pixel instanceof RGBPixel)) {
+      throw new IllegalArgumentException("Expected an RGBPixel.");
+    }
+
+    RGBPixel rgbPixel = (RGBPixel) pixel;
+
+    int newRed = adjustValue(rgbPixel.getRed());
+    int newGreen = adjustValue(rgbPixel.getGreen());
+    int newBlue = adjustValue(rgbPixel.getBlue());
+
+    return RGBPixel.of(newRed, newGreen, newBlue);
+  }
+
   /**
    * Adjusts a single color value (red, green, or blue) using the quadratic curve.
    *
@@ -1,7 +1,9 @@
 package model.imagetransformation.advancedoperations;
 
+import model.TaskContext;
 import model.colorscheme.Pixels;
 import model.colorscheme.RGBPixel;
+import model.imagetransformation.Region;
 import model.imagetransformation.Transformation;
 
 /**
@@ -103,42 +105,123 @@ public class ColorCorrection implements Transformation {
       throw new IllegalArgumentException("Input pixel array cannot be null.");
     }
 
-    int[] redHistogram = getChannelHistogram(pixels, 0);
-    int[] greenHistogram = getChannelHistogram(pixels, 1);
-    int[] blueHistogram = getChannelHistogram(pixels, 2);
-
-    int redPeak = findPeak(redHistogram);
-    int greenPeak = findPeak(greenHistogram);
-    int bluePeak = findPeak(blueHistogram);
+    return applyInto(pixels, new RGBPixel[pixels.length][pixels[0].length]);
+  }
 
-    int targetPeak = (redPeak + greenPeak + bluePeak) / 3;
+  /**
+   * Applies the color correction, writing the corrected pixels into the given destination. The
+   * channel peaks are found before any pixel is written, so the destination may be the source
+   * itself.
+   *
+   * @param pixels      the 2D array of {@link Pixels} representing the image to be corrected
+   * @param destination a 2D array of {@link RGBPixel} of the same size to write the result into
+   * @return the destination, holding the corrected image
+   * @throws IllegalArgumentException if the pixel data is null or if any pixel is not an instance
+   *                                  of {@link RGBPixel}
+   */
+  @Override
+  public Pixels[][] applyInto(Pixels[][] pixels, Pixels[][] destination) {
+    if (pixels == null) {
+      throw new IllegalArgumentException("Input pixel array cannot be null.");
+    }
 
-    int redOffset = targetPeak - redPeak;
-    int greenOffset = targetPeak - greenPeak;
-    int blueOffset = targetPeak - bluePeak;
+    int[] offsets = getOffsets(pixels);
 
     int height = pixels.length;
     int width = pixels[0].length;
-    Pixels[][] correctedPixels = new Pixels[height][width];
 
+    TaskContext.Task task = TaskContext.current().begin(getClass().getSimpleName(), height);
     for (int y = 0; y < height; y++) {
       for (int x = 0; x < width; x++) {
-        Pixels original = pixels[y][x];
+        destination[y][x] = correct(pixels[y][x], offsets);
+      }
+      task.advance(1);
+    }
 
-        if (!(original instanceof RGBPixel)) {
-          throw new IllegalArgumentException("Expected an instance of RGBPixel.");
-        }
+    return destination;
+  }
+
+  /**
+   * Returns {@code true}, since the peaks are found before any pixel is corrected and every pixel
+   * is then corrected on its own.
+   *
+   * @return {@code true}
+   */
+  @Override
+  public boolean supportsInPlace() {
+    return true;
+  }
 
-        RGBPixel rgbPixel = (RGBPixel) original;
+  /**
+   * Applies the color correction to the pixels inside the given region only. The channel peaks
+   * are still found from the whole image, so the region is corrected exactly as it would be by
+   * {@link #apply(Pixels[][])}.
+   *
+   * @param pixels the 2D array of {@link Pixels} representing the image to be corrected
+   * @param region the region to correct, which is clipped to the image
+   * @return a 2D array of {@link RGBPixel} objects holding the corrected region and the source
+   *         pixels outside it
+   * @throws IllegalArgumentException if the pixel data is null or if any pixel is not an instance
+   *                                  of {@link RGBPixel}
+   */
+  @Override
+  public Pixels[][] apply(Pixels[][] pixels, Region region) {
+    if (pixels == null) {
+      throw new IllegalArgumentException("Input pixel array cannot be null.");
+    }
 
-        int newRed = Math.min(255, Math.max(0, rgbPixel.getRed() + redOffset));
-        int newGreen = Math.min(255, Math.max(0, rgbPixel.getGreen() + greenOffset));
-        int newBlue = Math.min(255, Math.max(0, rgbPixel.getBlue() + blueOffset));
+    int[] offsets = getOffsets(pixels);
+    Region clipped = region.clip(pixels);
+    Pixels[][] correctedPixels = clipped.copyForWrite(pixels);
 
-        correctedPixels[y][x] = new RGBPixel(newRed, newGreen, newBlue);
+    TaskContext.Task task = TaskContext.current()
+        .begin(getClass().getSimpleName(), clipped.getHeight());
+    for (int y = clipped.getY(); y < clipped.getEndY(); y++) {
+      for (int x = clipped.getX(); x < clipped.getEndX(); x++) {
+        correctedPixels[y][x] = correct(pixels[y][x], offsets);
       }
+      task.advance(1);
     }
 
     return correctedPixels;
   }
-}
\ No newline at end of file
+
+  /**
+   * Computes how far each channel has to be shifted so that its peak meets the target peak, which
+   * is the average of the red, green and blue peaks.
+   *
+   * @param pixels the 2D array of {@link Pixels} representing the image
+   * @return the red, green and blue offsets
+   */
+  private int[] getOffsets(Pixels[][] pixels) {
+    int redPeak = findPeak(getChannelHistogram(pixels, 0));
+    int greenPeak = findPeak(getChannelHistogram(pixels, 1));
+    int bluePeak = findPeak(getChannelHistogram(pixels, 2));
+
+    int targetPeak = (redPeak + greenPeak + bluePeak) / 3;
+
+    return new int[]{targetPeak - redPeak, targetPeak - greenPeak, targetPeak - bluePeak};
+  }
+
+  /**
+   * Shifts the channels of a single pixel by the given offsets, clamping them to [0, 255].
+   *
+   * @param original the pixel to correct
+   * @param offsets  the red, green and blue offsets
+   * @return the corrected pixel
+   * @throws IllegalArgumentException if the pixel is not an instance of {@link RGBPixel}
+   */
+  private RGBPixel correct(Pixels original, int[] offsets) {
+    if (!(original instanceof RGBPixel)) {
+      throw new IllegalArgumentException("Expected an instance of RGBPixel.");
+    }
+
+    RGBPixel rgbPixel = (RGBPixel) original;
+
+    int newRed = Math.min(255, Math.max(0, rgbPixel.getRed() + offsets[0]));
+    int newGreen = Math.min(255, Math.max(0, rgbPixel.getGreen() + offsets[1]));
+    int newBlue = Math.min(255, Math.max(0, rgbPixel.getBlue() + offsets[2]));
+
+    return RGBPixel.of(newRed, newGreen, newBlue);
+  }
+}
@@ -1,8 +1,6 @@
 package model.imagetransformation.advancedoperations;
 
-import java.util.Arrays;
 import model.colorscheme.Pixels;
-import model.colorscheme.RGBPixel;
 import model.imagetransformation.Transformation;
 
 /**
@@ -13,25 +11,46 @@ import model.imagetransformation.Transformation;
  *
  * <p>The class performs the following steps to achieve compression:</p>
  * <ul>
- *   <li>Pad the image dimensions to the nearest power of two.</li>
- *   <li>Separate the image into its red, green, and blue color channels.</li>
- *   <li>Apply the Haar transform to each channel.</li>
+ *   <li>Separate the image into its red, green, and blue color channels, padding each dimension
+ *   with zeros to the next multiple of two to the power of the number of levels.</li>
+ *   <li>Apply the requested number of levels of the Haar transform to each channel.</li>
  *   <li>Apply compression by zeroing out the smallest coefficients based on
  *   the compression ratio.</li>
- *   <li>Reconstruct the compressed image from the modified channels.</li>
- *   <li>Unpad the image to restore it to its original dimensions.</li>
+ *   <li>Reconstruct the compressed image at its original dimensions from the modified
+ *   channels.</li>
  * </ul>
  *
  * <p>The compression ratio determines the amount of data retained after
  * compression, with larger ratios retaining more data. A smaller ratio
  * results in higher compression and more data loss.</p>
+ *
+ * <p>The transform itself is computed by {@link HaarCoefficients}. Callers that reconstruct the
+ * same image at several ratios can keep the result of {@link #coefficients(Pixels[][])} and call
+ * {@link HaarCoefficients#reconstruct(double)} on it, which skips the forward transform.</p>
+ *
+ * <p>Images can also be compressed in the YCbCr colour space, see
+ * {@link #Compression(double, double, int)}. The eye is far less sensitive to chroma than to
+ * luma, so the chroma channels are subsampled 2x in each direction and can be compressed harder
+ * than the luma channel. This transforms half as many samples as RGB.</p>
  */
 public class Compression implements Transformation {
 
+  /**
+   * The colour space whose channels are transformed and compressed.
+   */
+  public enum ColorSpace {
+    RGB,
+    YCBCR
+  }
+
   private final double compressionRatio;
+  private final double chromaRatio;
+  private final int levels;
+  private final ColorSpace colorSpace;
 
   /**
-   * Constructs a {@code Compression} object with the specified compression ratio.
+   * Constructs a {@code Compression} object with the specified compression ratio, using a single
+   * level of the Haar transform.
    *
    * <p>The compression ratio determines the percentage of the smallest coefficients
    * to zero out in each channel, thereby controlling the degree of compression. A compression ratio
@@ -41,295 +60,76 @@ public class Compression implements Transformation {
    * @throws IllegalArgumentException if the compression ratio is outside the valid range (0-100).
    */
   public Compression(double compressionRatio) {
-    this.compressionRatio = compressionRatio;
-  }
-
-
-  /**
-   * Applies the compression transformation to the input image by compressing each color channel
-   * using the Haar transform and the specified compression ratio.
-   *
-   * <p>This method processes the image through the following steps:</p>
-   * <ul>
-   *   <li>Padding the image to the nearest power of two.</li>
-   *   <li>Compressing the red, green, and blue channels independently.</li>
-   *   <li>Reconstructing the compressed image from the compressed channels.</li>
-   *   <li>Unpadding the image back to its original dimensions.</li>
-   * </ul>
-   *
-   * @param originalImage A 2D array of {@link Pixels} representing the original image.
-   * @return A 2D array of compressed {@link Pixels} representing the transformed image.
-   * @throws IllegalArgumentException if the input image is null or has invalid dimensions.
-   */
-  @Override
-  public Pixels[][] apply(Pixels[][] originalImage) {
-    if (originalImage == null || originalImage.length == 0) {
-      throw new IllegalArgumentException("Invalid image data");
-    }
-
-    int originalHeight = originalImage.length;
-    int originalWidth = originalImage[0].length;
-
-    int paddedHeight = nextPowerOfTwo(originalHeight);
-    int paddedWidth = nextPowerOfTwo(originalWidth);
-    Pixels[][] paddedImage = padImage(originalImage, paddedHeight, paddedWidth);
-
-    int[][] redChannel = new int[paddedHeight][paddedWidth];
-    int[][] greenChannel = new int[paddedHeight][paddedWidth];
-    int[][] blueChannel = new int[paddedHeight][paddedWidth];
-
-    for (int i = 0; i < paddedHeight; i++) {
-      for (int j = 0; j < paddedWidth; j++) {
-        RGBPixel pixel = (RGBPixel) paddedImage[i][j];
-        redChannel[i][j] = pixel.getRed();
-        greenChannel[i][j] = pixel.getGreen();
-        blueChannel[i][j] = pixel.getBlue();
-      }
-    }
-
-    redChannel = compressChannel(redChannel);
-    greenChannel = compressChannel(greenChannel);
-    blueChannel = compressChannel(blueChannel);
-
-    RGBPixel[][] compressedImage = new RGBPixel[paddedHeight][paddedWidth];
-    for (int i = 0; i < paddedHeight; i++) {
-      for (int j = 0; j < paddedWidth; j++) {
-        compressedImage[i][j] = new RGBPixel(
-            Math.max(0, Math.min(255, redChannel[i][j])),
-            Math.max(0, Math.min(255, greenChannel[i][j])),
-            Math.max(0, Math.min(255, blueChannel[i][j]))
-        );
-      }
-    }
-
-    return unpadImage(compressedImage, originalHeight, originalWidth);
-  }
-
-  /**
-   * Compresses a single color channel using the Haar transform and compression.
-   *
-   * <p>The method applies the Haar transform to the channel data, applies
-   * compression by zeroing out small coefficients, and then performs an inverse Haar transform to
-   * recover the data in compressed form.</p>
-   *
-   * @param channel The 2D array representing a single color channel (red, green, or blue).
-   * @return The compressed color channel data.
-   */
-  private int[][] compressChannel(int[][] channel) {
-
-    int[][] transformed = haarTransform(channel);
-
-    applyCompression(transformed);
-
-    return inverseHaarTransform(transformed);
-  }
-
-  /**
-   * Applies the Haar transform to the 2D data (image channel).
-   *
-   * <p>This method performs a 2D Haar wavelet transform, first applying it to
-   * the rows and then to the columns of the data.</p>
-   *
-   * @param data The 2D array of data to transform (e.g., an image channel).
-   * @return The transformed 2D array of data.
-   */
-  private int[][] haarTransform(int[][] data) {
-    int[][] result = new int[data.length][data[0].length];
-    for (int i = 0; i < data.length; i++) {
-      System.arraycopy(data[i], 0, result[i], 0, data[i].length);
-    }
-
-    for (int i = 0; i < data.length; i++) {
-      haarTransform1D(result[i]);
-    }
-
-    for (int j = 0; j < data[0].length; j++) {
-      int[] column = new int[data.length];
-      for (int i = 0; i < data.length; i++) {
-        column[i] = result[i][j];
-      }
-      haarTransform1D(column);
-      for (int i = 0; i < data.length; i++) {
-        result[i][j] = column[i];
-      }
-    }
-
-    return result;
+    this(compressionRatio, 1);
   }
 
   /**
-   * Applies a 1D Haar transform to an array of data (row or column).
+   * Constructs a {@code Compression} object with the specified compression ratio and number of
+   * decomposition levels. More levels concentrate the image into fewer large coefficients, which
+   * retains more detail for the same ratio. The number of levels is capped per dimension at the
+   * number of times that dimension can be halved.
    *
-   * @param data The array of data to transform.
-   */
-  private void haarTransform1D(int[] data) {
-    if (data.length <= 1) {
-      return;
-    }
-
-    int[] temp = new int[data.length];
-    int h = data.length >> 1;
-
-    for (int i = 0; i < h; i++) {
-      int k = i << 1;
-      temp[i] = (data[k] + data[k + 1]) >> 1;
-      temp[i + h] = data[k] - data[k + 1];
-    }
-
-    System.arraycopy(temp, 0, data, 0, data.length);
-  }
-
-  /**
-   * Applies compression by zeroing out small coefficients based on the compression ratio.
-   *
-   * @param data The 2D array of transformed data (e.g., Haar-transformed channel).
+   * @param compressionRatio The desired compression ratio (0-100).
+   * @param levels           The number of levels of the Haar transform to apply, at least 1.
+   * @throws IllegalArgumentException if the number of levels is less than 1.
    */
-  private void applyCompression(int[][] data) {
-    int height = data.length;
-    int width = data[0].length;
-    int totalElements = height * width;
-    int elementsToZero = (int) (totalElements * (compressionRatio / 100.0));
-
-    if (elementsToZero == totalElements) {
-      for (int[] datum : data) {
-        Arrays.fill(datum, 0);
-      }
-      return;
-    }
-
-    int[] allValues = new int[totalElements];
-    int index = 0;
-    for (int[] row : data) {
-      for (int value : row) {
-        allValues[index++] = Math.abs(value);
-      }
-    }
-
-    Arrays.sort(allValues);
-    int threshold = allValues[elementsToZero];
-
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        if (Math.abs(data[i][j]) < threshold) {
-          data[i][j] = 0;
-        }
-      }
-    }
+  public Compression(double compressionRatio, int levels) {
+    this(compressionRatio, compressionRatio, levels, ColorSpace.RGB);
   }
 
   /**
-   * Applies the inverse Haar transform to the 2D data (image channel).
+   * Constructs a {@code Compression} object that compresses in the YCbCr colour space, with
+   * separate compression ratios for the luma channel and the two subsampled chroma channels.
    *
-   * @param data The 2D array of transformed data to invert (e.g., compressed channel).
-   * @return The inversely transformed 2D array of data.
+   * @param lumaRatio   The compression ratio of the luma channel (0-100).
+   * @param chromaRatio The compression ratio of the chroma channels (0-100).
+   * @param levels      The number of levels of the Haar transform to apply, at least 1.
+   * @throws IllegalArgumentException if the number of levels is less than 1.
    */
-  private int[][] inverseHaarTransform(int[][] data) {
-    int[][] result = new int[data.length][data[0].length];
-    for (int i = 0; i < data.length; i++) {
-      System.arraycopy(data[i], 0, result[i], 0, data[i].length);
-    }
-
-    for (int j = 0; j < data[0].length; j++) {
-      int[] column = new int[data.length];
-      for (int i = 0; i < data.length; i++) {
-        column[i] = result[i][j];
-      }
-      inverseHaarTransform1D(column);
-      for (int i = 0; i < data.length; i++) {
-        result[i][j] = column[i];
-      }
-    }
-
-    for (int i = 0; i < data.length; i++) {
-      inverseHaarTransform1D(result[i]);
-    }
-
-    return result;
+  public Compression(double lumaRatio, double chromaRatio, int levels) {
+    this(lumaRatio, chromaRatio, levels, ColorSpace.YCBCR);
   }
 
-  /**
-   * Applies a 1D inverse Haar transform to an array of data (row or column).
-   *
-   * @param data The array of data to invert.
-   */
-  private void inverseHaarTransform1D(int[] data) {
-    if (data.length <= 1) {
-      return;
-    }
-
-    int[] temp = new int[data.length];
-    int h = data.length >> 1;
-
-    for (int i = 0; i < h; i++) {
-      int k = i << 1;
-      int a = data[i];
-      int b = data[i + h];
-      temp[k] = a + (b >> 1);
-      temp[k + 1] = a - (b >> 1);
+  private Compression(double compressionRatio, double chromaRatio, int levels,
+      ColorSpace colorSpace) {
+    if (levels < 1) {
+      throw new IllegalArgumentException("Number of levels must be at least 1.");
     }
-
-    System.arraycopy(temp, 0, data, 0, data.length);
+    this.compressionRatio = compressionRatio;
+    this.chromaRatio = chromaRatio;
+    this.levels = levels;
+    this.colorSpace = colorSpace;
   }
 
   /**
-   * Returns the next power of two greater than or equal to the specified number.
+   * Applies the compression transformation to the input image by compressing each color channel
+   * using the Haar transform and the specified compression ratio.
    *
-   * @param n The number to round up.
-   * @return The smallest power of two greater than or equal to {@code n}.
-   */
-  private int nextPowerOfTwo(int n) {
-    int power = 1;
-    while (power < n) {
-      power <<= 1;
-    }
-    return power;
-  }
-
-  /**
-   * Pads the image to the specified dimensions, filling any extra space with black pixels.
+   * <p>This method processes the image through the following steps:</p>
+   * <ul>
+   *   <li>Transforming the red, green, and blue channels into padded planes.</li>
+   *   <li>Compressing the red, green, and blue channels independently.</li>
+   *   <li>Reconstructing the compressed image at its original dimensions.</li>
+   * </ul>
    *
-   * @param image     The original image.
-   * @param newHeight The desired height of the padded image.
-   * @param newWidth  The desired width of the padded image.
-   * @return The padded image.
-   * @throws IllegalArgumentException if the original image contains non-RGB pixels.
+   * @param originalImage A 2D array of {@link Pixels} representing the original image.
+   * @return A 2D array of compressed {@link Pixels} representing the transformed image.
+   * @throws IllegalArgumentException if the input image is null or has invalid dimensions.
    */
-  private Pixels[][] padImage(Pixels[][] image, int newHeight, int newWidth) {
-    int originalHeight = image.length;
-    int originalWidth = image[0].length;
-    Pixels[][] paddedImage = new Pixels[newHeight][newWidth];
-
-    for (int i = 0; i < newHeight; i++) {
-      for (int j = 0; j < newWidth; j++) {
-        if (i < originalHeight && j < originalWidth) {
-
-          if (!(image[i][j] instanceof RGBPixel)) {
-            throw new IllegalArgumentException("Expected an instance of RGBPixel.");
-          }
-          paddedImage[i][j] = image[i][j];
-        } else {
-
-          paddedImage[i][j] = new RGBPixel(0, 0, 0);
-        }
-      }
-    }
-
-    return paddedImage;
+  @Override
+  public Pixels[][] apply(Pixels[][] originalImage) {
+    return coefficients(originalImage).reconstruct(compressionRatio, chromaRatio, 0);
   }
 
   /**
-   * Unpads the image to its original dimensions.
+   * Computes the Haar transform of the given image with this object's number of levels and colour
+   * space, without compressing it. The result can be reconstructed at any ratio.
    *
-   * @param image          The padded image.
-   * @param originalHeight The original height of the image before padding.
-   * @param originalWidth  The original width of the image before padding.
-   * @return The unpadded image.
+   * @param originalImage A 2D array of {@link Pixels} representing the original image.
+   * @return The Haar coefficients of the image.
+   * @throws IllegalArgumentException if the input image is null or has invalid dimensions.
    */
-  private Pixels[][] unpadImage(Pixels[][] image, int originalHeight, int originalWidth) {
-    Pixels[][] unpaddedImage = new Pixels[originalHeight][originalWidth];
-    for (int i = 0; i < originalHeight; i++) {
-      System.arraycopy(image[i], 0, unpaddedImage[i], 0, originalWidth);
-    }
-    return unpaddedImage;
+  public HaarCoefficients coefficients(Pixels[][] originalImage) {
+    return new HaarCoefficients(originalImage, levels, colorSpace);
   }
 }
@@ -1,5 +1,7 @@
 package model.imagetransformation.advancedoperations;
 
+import java.util.stream.IntStream;
+import model.TaskContext;
 import model.colorscheme.Pixels;
 import model.colorscheme.RGBPixel;
 import model.imagetransformation.Transformation;
@@ -7,13 +9,36 @@ import model.imagetransformation.Transformation;
 /**
  * The {@code Downscale} class implements the {@link Transformation} interface and performs the
  * downscaling operation on an image. It resizes the given image (represented as a 2D array of
- * pixels) to a new width and height using bilinear interpolation. The class performs interpolation
- * based on the four nearest pixels to maintain smooth color transitions when downscaling.
+ * pixels) to a new width and height using one of two {@link Mode}s.
+ *
+ * <p>{@link Mode#BILINEAR} interpolates between the four nearest pixels to maintain smooth color
+ * transitions. It is cheap, but it ignores every other source pixel, so large reductions alias.
+ * {@link Mode#AREA} averages every source pixel an output pixel covers, weighted by how much of it
+ * is covered, which gives correct thumbnails at any factor.</p>
+ *
+ * <p>Both modes work out the source positions and weights of every output column and row once,
+ * instead of for every pixel. Area averaging is separable: every source row is first reduced to
+ * the output width, and the reduced rows are then combined. When the image shrinks by a power of
+ * two along both dimensions, every output pixel covers whole source pixels, so area averaging
+ * sums each block directly and divides with a shift, which gives the same result with less
+ * bookkeeping.</p>
  */
 public class Downscale implements Transformation {
 
+  /**
+   * The resampling method used to compute the downscaled pixels.
+   */
+  public enum Mode {
+    BILINEAR,
+    AREA
+  }
+
+  // Sums of 2^MAX_HALVINGS channel values of at most 255 still fit in an int.
+  private static final int MAX_HALVINGS = 23;
+
   private int newHeight;
   private int newWidth;
+  private final Mode mode;
 
   /**
    * Constructor to initialize the downscale operation with the desired new width and height.
@@ -23,19 +48,36 @@ public class Downscale implements Transformation {
    * @throws NegativeArraySizeException if newWidth or newHeight is negative
    */
   public Downscale(int newWidth, int newHeight) {
+    this(newWidth, newHeight, Mode.BILINEAR);
+  }
+
+  /**
+   * Constructor to initialize the downscale operation with the desired new width, height and
+   * resampling mode.
+   *
+   * @param newWidth  the desired width of the downscaled image
+   * @param newHeight the desired height of the downscaled image
+   * @param mode      the resampling method to use
+   * @throws NegativeArraySizeException if newWidth or newHeight is negative
+   */
+  public Downscale(int newWidth, int newHeight, Mode mode) {
     if (newWidth < 0 || newHeight < 0) {
       throw new NegativeArraySizeException("Width and height cannot be negative.");
     }
     if (newWidth == 0 || newHeight == 0) {
       throw new IllegalArgumentException("Width and height must be greater than zero.");
     }
+    if (mode == null) {
+      throw new IllegalArgumentException("Downscale mode cannot be null.");
+    }
     this.newHeight = newHeight;
     this.newWidth = newWidth;
+    this.mode = mode;
   }
 
   /**
    * Applies the downscale transformation to the given image pixels. The method resizes the original
-   * image to the specified width and height using bilinear interpolation.
+   * image to the specified width and height using this object's resampling mode.
    *
    * @param originalPixels a 2D array representing the pixels of the original image
    * @return a 2D array of pixels representing the downscaled image
@@ -46,40 +88,63 @@ public class Downscale implements Transformation {
     if (originalPixels == null || originalPixels.length == 0 || originalPixels[0].length == 0) {
       throw new IllegalArgumentException("Input image cannot be empty.");
     }
+    if (mode == Mode.BILINEAR) {
+      return bilinear(originalPixels);
+    }
+    int rowHalvings = halvings(originalPixels.length, newHeight);
+    int columnHalvings = halvings(originalPixels[0].length, newWidth);
+    if (rowHalvings >= 0 && columnHalvings >= 0 && rowHalvings + columnHalvings <= MAX_HALVINGS) {
+      return mipmap(originalPixels, rowHalvings, columnHalvings);
+    }
+    return area(originalPixels);
+  }
 
+  /**
+   * Resizes the image by interpolating between the four source pixels nearest to every output
+   * pixel.
+   *
+   * @param originalPixels the pixels of the original image
+   * @return the resized pixels
+   */
+  private Pixels[][] bilinear(Pixels[][] originalPixels) {
     int originalHeight = originalPixels.length;
     int originalWidth = originalPixels[0].length;
 
-    Pixels[][] downsizedPixels = new RGBPixel[newHeight][newWidth];
-
-    // Iterate over each pixel in the downscaled image
+    // Map every output column and row to the source positions around it
+    int[] x1 = new int[newWidth];
+    int[] x2 = new int[newWidth];
+    float[] xWeights = new float[newWidth];
+    for (int x = 0; x < newWidth; x++) {
+      float originalX = (float) x * originalWidth / newWidth;
+      x1[x] = Math.min((int) Math.floor(originalX), originalWidth - 1);
+      x2[x] = Math.min((int) Math.ceil(originalX), originalWidth - 1);
+      xWeights[x] = originalX - x1[x];
+    }
+    int[] y1 = new int[newHeight];
+    int[] y2 = new int[newHeight];
+    float[] yWeights = new float[newHeight];
     for (int y = 0; y < newHeight; y++) {
-      for (int x = 0; x < newWidth; x++) {
-        // Map the pixel location from downsized image to original image
-        float originalX = (float) x * originalWidth / newWidth;
-        float originalY = (float) y * originalHeight / newHeight;
-
-        // Get the integer pixel locations around the floating-point location
-        int x1 = (int) Math.floor(originalX);
-        int y1 = (int) Math.floor(originalY);
-        int x2 = (int) Math.ceil(originalX);
-        int y2 = (int) Math.ceil(originalY);
-
-        // Ensure the coordinates are within bounds
-        x1 = Math.min(x1, originalWidth - 1);
-        x2 = Math.min(x2, originalWidth - 1);
-        y1 = Math.min(y1, originalHeight - 1);
-        y2 = Math.min(y2, originalHeight - 1);
+      float originalY = (float) y * originalHeight / newHeight;
+      y1[y] = Math.min((int) Math.floor(originalY), originalHeight - 1);
+      y2[y] = Math.min((int) Math.ceil(originalY), originalHeight - 1);
+      yWeights[y] = originalY - y1[y];
+    }
 
+    Pixels[][] downsizedPixels = new RGBPixel[newHeight][newWidth];
+    TaskContext.Task task = TaskContext.current().begin("Downscale", newHeight);
+    IntStream.range(0, newHeight).parallel().forEach(y -> {
+      Pixels[] upper = originalPixels[y1[y]];
+      Pixels[] lower = originalPixels[y2[y]];
+      float yWeight = yWeights[y];
+      for (int x = 0; x < newWidth; x++) {
         // Get the colors at the four corners
-        RGBPixel p1 = (RGBPixel) originalPixels[y1][x1];
-        RGBPixel p2 = (RGBPixel) originalPixels[y1][x2];
-        RGBPixel p3 = (RGBPixel) originalPixels[y2][x1];
-        RGBPixel p4 = (RGBPixel) originalPixels[y2][x2];
+        RGBPixel p1 = (RGBPixel) upper[x1[x]];
+        RGBPixel p2 = (RGBPixel) upper[x2[x]];
+        RGBPixel p3 = (RGBPixel) lower[x1[x]];
+        RGBPixel p4 = (RGBPixel) lower[x2[x]];
 
         // Interpolate colors based on the distances
-        float xWeight = originalX - x1;
-        float yWeight = originalY - y1;
+        float xWeight = xWeights[x];
 
         int red = (int) Math.round(
             (1 - xWeight) * (1 - yWeight) * p1.getRed() +
@@ -102,10 +167,177 @@ public class Downscale implements Transformation {
                 xWeight * yWeight * p4.getBlue()
         );
 
-        downsizedPixels[y][x] = new RGBPixel(red, green, blue);
+        downsizedPixels[y][x] = RGBPixel.of(red, green, blue);
       }
-    }
+      task.advance(1);
+    });
+
+    return downsizedPixels;
+  }
+
+  /**
+   * Resizes the image by averaging the source pixels every output pixel covers. Output pixel
+   * {@code x} covers the source interval {@code [x * W / w, (x + 1) * W / w)}, so measured in
+   * units of {@code 1 / w} source pixels all coverages are integers and every output pixel has a
+   * total weight of {@code W * H}.
+   *
+   * @param originalPixels the pixels of the original image
+   * @return the resized pixels
+   */
+  private Pixels[][] area(Pixels[][] originalPixels) {
+    int originalHeight = originalPixels.length;
+    int originalWidth = originalPixels[0].length;
+    Coverage columns = new Coverage(originalWidth, newWidth);
+    Coverage rows = new Coverage(originalHeight, newHeight);
+
+    TaskContext.Task task = TaskContext.current()
+        .begin("Downscale", (long) originalHeight + newHeight);
 
+    // Reduce every source row to the output width
+    int[][] reduced = new int[originalHeight][];
+    IntStream.range(0, originalHeight).parallel().forEach(i -> {
+      Pixels[] source = originalPixels[i];
+      int[] row = new int[newWidth * 3];
+      for (int x = 0; x < newWidth; x++) {
+        int[] weights = columns.weights[x];
+        int start = columns.starts[x];
+        int red = 0;
+        int green = 0;
+        int blue = 0;
+        for (int k = 0; k < weights.length; k++) {
+          RGBPixel pixel = (RGBPixel) source[start + k];
+          red += weights[k] * pixel.getRed();
+          green += weights[k] * pixel.getGreen();
+          blue += weights[k] * pixel.getBlue();
+        }
+        row[x * 3] = red;
+        row[x * 3 + 1] = green;
+        row[x * 3 + 2] = blue;
+      }
+      reduced[i] = row;
+      task.advance(1);
+    });
+
+    // Combine the reduced rows every output row covers
+    long total = (long) originalWidth * originalHeight;
+    Pixels[][] downsizedPixels = new RGBPixel[newHeight][newWidth];
+    IntStream.range(0, newHeight).parallel().forEach(y -> {
+      int[] weights = rows.weights[y];
+      int start = rows.starts[y];
+      long[] sums = new long[newWidth * 3];
+      for (int k = 0; k < weights.length; k++) {
+        int[] row = reduced[start + k];
+        for (int c = 0; c < sums.length; c++) {
+          sums[c] += (long) weights[k] * row[c];
+        }
+      }
+      for (int x = 0; x < newWidth; x++) {
+        downsizedPixels[y][x] = RGBPixel.of(
+            (int) ((sums[x * 3] + total / 2) / total),
+            (int) ((sums[x * 3 + 1] + total / 2) / total),
+            (int) ((sums[x * 3 + 2] + total / 2) / total));
+      }
+      task.advance(1);
+    });
     return downsizedPixels;
   }
+
+  /**
+   * Shrinks the image by a power of two along each dimension. Every output pixel covers a whole
+   * block of source pixels, so the block is summed without weights and the sum is divided by a
+   * shift. This is the same average the general area path computes.
+   *
+   * @param originalPixels the pixels of the original image
+   * @param rowHalvings    the number of times to halve the height
+   * @param columnHalvings the number of times to halve the width
+   * @return the resized pixels
+   */
+  private Pixels[][] mipmap(Pixels[][] originalPixels, int rowHalvings, int columnHalvings) {
+    int blockHeight = 1 << rowHalvings;
+    int blockWidth = 1 << columnHalvings;
+    int shift = rowHalvings + columnHalvings;
+    int half = (1 << shift) >> 1;
+
+    Pixels[][] downsizedPixels = new RGBPixel[newHeight][newWidth];
+    TaskContext.Task task = TaskContext.current().begin("Downscale", newHeight);
+    IntStream.range(0, newHeight).parallel().forEach(y -> {
+      int[] sums = new int[newWidth * 3];
+      for (int i = y * blockHeight; i < (y + 1) * blockHeight; i++) {
+        Pixels[] source = originalPixels[i];
+        int j = 0;
+        for (int x = 0; x < newWidth; x++) {
+          int red = 0;
+          int green = 0;
+          int blue = 0;
+          for (int end = j + blockWidth; j < end; j++) {
+            RGBPixel pixel = (RGBPixel) source[j];
+            red += pixel.getRed();
+            green += pixel.getGreen();
+            blue += pixel.getBlue();
+          }
+          sums[x * 3] += red;
+          sums[x * 3 + 1] += green;
+          sums[x * 3 + 2] += blue;
+        }
+      }
+      for (int x = 0; x < newWidth; x++) {
+        downsizedPixels[y][x] = RGBPixel.of(
+            (sums[x * 3] + half) >> shift,
+            (sums[x * 3 + 1] + half) >> shift,
+            (sums[x * 3 + 2] + half) >> shift);
+      }
+      task.advance(1);
+    });
+    return downsizedPixels;
+  }
+
+  /**
+   * Returns how many times a length must be halved to reach a new length.
+   *
+   * @param length    the original length
+   * @param newLength the new length
+   * @return the number of halvings, or -1 if the lengths differ by a factor that is not a power
+   *     of two
+   */
+  private static int halvings(int length, int newLength) {
+    if (length % newLength != 0) {
+      return -1;
+    }
+    int factor = length / newLength;
+    return Integer.bitCount(factor) == 1 ? Integer.numberOfTrailingZeros(factor) : -1;
+  }
+
+  /**
+   * The source pixels every output pixel along one dimension covers, and how much of each it
+   * covers in units of {@code 1 / newLength} source pixels.
+   */
+  private static class Coverage {
+
+    private final int[] starts;
+    private final int[][] weights;
+
+    /**
+     * Works out the coverage of every output pixel along a dimension.
+     *
+     * @param length    the length of the dimension in the original image
+     * @param newLength the length of the dimension in the resized image
+     */
+    private Coverage(int length, int newLength) {
+      starts = new int[newLength];
+      weights = new int[newLength][];
+      for (int x = 0; x < newLength; x++) {
+        long from = (long) x * length;
+        long to = (long) (x + 1) * length;
+        int first = (int) (from / newLength);
+        int last = (int) ((to - 1) / newLength);
+        starts[x] = first;
+        weights[x] = new int[last - first + 1];
+        for (int i = first; i <= last; i++) {
+          long start = Math.max((long) i * newLength, from);
+          long end = Math.min((long) (i + 1) * newLength, to);
+          weights[x][i - first] = (int) (end - start);
+        }
+      }
+    }
+  }
 }
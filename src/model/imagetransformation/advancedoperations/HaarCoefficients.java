@@ -0,0 +1,501 @@
+package model.imagetransformation.advancedoperations;
+
+import java.util.stream.IntStream;
+import model.TaskContext;
+import model.colorscheme.Pixels;
+import model.colorscheme.RGBPixel;
+import model.imagetransformation.advancedoperations.Compression.ColorSpace;
+
+/**
+ * {@code HaarCoefficients} holds the Haar transform of the channels of an image, so that the image
+ * can be reconstructed at any number of compression ratios without transforming it again.
+ *
+ * <p>The channels are either the red, green and blue channels of the image, or its luma and two
+ * chroma channels in the YCbCr colour space. YCbCr uses the full range BT.601 conversion, and the
+ * chroma channels are averaged over 2x2 blocks, so they hold a quarter of the samples. They are
+ * scaled back up by repeating every sample when the image is reconstructed.</p>
+ *
+ * <p>The transform is computed in place by {@link HaarTransform}, with the channels processed in
+ * parallel.</p>
+ *
+ * <p>The magnitudes of the coefficients are counted once when the transform is computed. Picking
+ * the threshold for a ratio is then a scan over the counts, and reconstructing costs one copy of
+ * the coefficients and one inverse transform. A reconstruction can also skip the finest levels,
+ * which yields a smaller preview of the compressed image for a fraction of the cost.</p>
+ *
+ * <p>The compression ratio is ranked over the coefficients of each channel padded to power-of-two
+ * dimensions. That padding only ever adds zero coefficients, so it is accounted for by counting
+ * the extra zeros instead of storing and transforming them, which keeps the memory and the work
+ * proportional to the real pixel count.</p>
+ */
+public class HaarCoefficients {
+
+  // The full range BT.601 factors scaled by 2^FIXED_POINT, so the conversion runs in integers.
+  private static final int FIXED_POINT = 16;
+  private static final int HALF = 1 << (FIXED_POINT - 1);
+  private static final int LUMA_RED = 19595;
+  private static final int LUMA_GREEN = 38470;
+  private static final int LUMA_BLUE = 7471;
+  private static final long HALF_SCALE = 32768;
+  private static final long BLUE_CHROMA_RED = -11059;
+  private static final long BLUE_CHROMA_GREEN = -21709;
+  private static final long RED_CHROMA_GREEN = -27439;
+  private static final long RED_CHROMA_BLUE = -5329;
+  private static final int RED_FROM_RED_CHROMA = 91881;
+  private static final int GREEN_FROM_BLUE_CHROMA = 22554;
+  private static final int GREEN_FROM_RED_CHROMA = 46802;
+  private static final int BLUE_FROM_BLUE_CHROMA = 116130;
+
+  private final int height;
+  private final int width;
+  private final int levels;
+  private final ColorSpace colorSpace;
+  private final Channel[] channels;
+
+  /**
+   * Computes the Haar transform of the red, green and blue channels of the given image.
+   *
+   * @param image  A 2D array of {@link Pixels} representing the image to transform.
+   * @param levels The number of levels of the Haar transform to apply, at least 1. The number of
+   *               levels is capped per dimension at the number of times that dimension can be
+   *               halved.
+   * @throws IllegalArgumentException if the image is null or empty, contains non-RGB pixels, or
+   *                                  the number of levels is less than 1.
+   */
+  public HaarCoefficients(Pixels[][] image, int levels) {
+    this(image, levels, ColorSpace.RGB);
+  }
+
+  /**
+   * Computes the Haar transform of the channels of the given image in the given colour space.
+   *
+   * @param image      A 2D array of {@link Pixels} representing the image to transform.
+   * @param levels     The number of levels of the Haar transform to apply, at least 1. The number
+   *                   of levels is capped per dimension at the number of times that dimension can
+   *                   be halved.
+   * @param colorSpace The colour space whose channels are transformed.
+   * @throws IllegalArgumentException if the image is null or empty, contains non-RGB pixels, or
+   *                                  the number of levels is less than 1.
+   */
+  public HaarCoefficients(Pixels[][] image, int levels, ColorSpace colorSpace) {
+    if (image == null || image.length == 0) {
+      throw new IllegalArgumentException("Invalid image data");
+    }
+    if (levels < 1) {
+      throw new IllegalArgumentException("Number of levels must be at least 1.");
+    }
+
+    this.height = image.length;
+    this.width = image[0].length;
+    this.levels = levels;
+    this.colorSpace = colorSpace;
+
+    if (colorSpace == ColorSpace.YCBCR) {
+      int chromaHeight = (height + 1) / 2;
+      int chromaWidth = (width + 1) / 2;
+      channels = new Channel[]{
+          new Channel(height, width, levels),
+          new Channel(chromaHeight, chromaWidth, levels),
+          new Channel(chromaHeight, chromaWidth, levels)
+      };
+      extractYCbCr(image);
+    } else {
+      channels = new Channel[]{
+          new Channel(height, width, levels),
+          new Channel(height, width, levels),
+          new Channel(height, width, levels)
+      };
+      extractRGB(image);
+    }
+
+    long levelCount = 0;
+    for (Channel channel : channels) {
+      levelCount += channel.inverseLevels(0);
+    }
+    TaskContext.Task task = TaskContext.current().begin("HaarTransform", levelCount);
+    IntStream.range(0, channels.length).parallel().forEach(c -> channels[c].transform(task));
+  }
+
+  /**
+   * Returns the number of levels that was requested for this transform.
+   *
+   * @return The number of levels passed to the constructor.
+   */
+  public int getLevels() {
+    return levels;
+  }
+
+  /**
+   * Returns the colour space whose channels this transform holds.
+   *
+   * @return The colour space passed to the constructor.
+   */
+  public ColorSpace getColorSpace() {
+    return colorSpace;
+  }
+
+  /**
+   * Reconstructs the image after zeroing out the smallest coefficients of every channel.
+   *
+   * @param compressionRatio The percentage of coefficients to zero out (0-100).
+   * @return A 2D array of {@link Pixels} of the original dimensions.
+   */
+  public Pixels[][] reconstruct(double compressionRatio) {
+    return reconstruct(compressionRatio, 0);
+  }
+
+  /**
+   * Reconstructs a reduced preview of the compressed image by skipping the given number of finest
+   * levels of the inverse transform. Every skipped level halves the preview along each dimension
+   * that was transformed at that level. The same coefficients are zeroed out as for a full
+   * reconstruction at the same ratio.
+   *
+   * @param compressionRatio The percentage of coefficients to zero out (0-100).
+   * @param reduction        The number of levels to skip, where 0 gives the full image.
+   * @return A 2D array of {@link Pixels} of the reduced dimensions.
+   * @throws IllegalArgumentException if the reduction is negative.
+   */
+  public Pixels[][] reconstruct(double compressionRatio, int reduction) {
+    return reconstruct(compressionRatio, compressionRatio, reduction);
+  }
+
+  /**
+   * Reconstructs the image, or a reduced preview of it, with separate compression ratios for the
+   * luma and the chroma channels. Coefficients computed in RGB have no chroma channels, so all
+   * three of their channels use the luma ratio.
+   *
+   * @param lumaRatio   The percentage of luma coefficients to zero out (0-100).
+   * @param chromaRatio The percentage of chroma coefficients to zero out (0-100).
+   * @param reduction   The number of levels to skip, where 0 gives the full image.
+   * @return A 2D array of {@link Pixels} of the reduced dimensions.
+   * @throws IllegalArgumentException if the reduction is negative.
+   */
+  public Pixels[][] reconstruct(double lumaRatio, double chromaRatio, int reduction) {
+    if (reduction < 0) {
+      throw new IllegalArgumentException("Reduction cannot be negative.");
+    }
+    boolean ycbcr = colorSpace == ColorSpace.YCBCR;
+    int[] reductions = {reduction, ycbcr ? Math.max(0, reduction - 1) : reduction,
+        ycbcr ? Math.max(0, reduction - 1) : reduction};
+    double[] ratios = {lumaRatio, ycbcr ? chromaRatio : lumaRatio,
+        ycbcr ? chromaRatio : lumaRatio};
+
+    long levelCount = 0;
+    for (int c = 0; c < channels.length; c++) {
+      levelCount += channels[c].inverseLevels(reductions[c]);
+    }
+    TaskContext.Task task = TaskContext.current().begin("HaarInverse", levelCount);
+    int[][][] planes = new int[channels.length][][];
+    IntStream.range(0, channels.length).parallel()
+        .forEach(c -> planes[c] = channels[c].reconstruct(ratios[c], reductions[c], task));
+
+    int rowShift = channels[0].rowShift(reduction);
+    int columnShift = channels[0].columnShift(reduction);
+    int outputHeight = (height + (1 << rowShift) - 1) >> rowShift;
+    int outputWidth = (width + (1 << columnShift) - 1) >> columnShift;
+    RGBPixel[][] image = new RGBPixel[outputHeight][outputWidth];
+    if (ycbcr) {
+      convertYCbCr(planes, image, rowShift, columnShift, reductions[1]);
+    } else {
+      IntStream.range(0, outputHeight).parallel().forEach(i -> {
+        for (int j = 0; j < outputWidth; j++) {
+          image[i][j] = RGBPixel.of(
+              Math.max(0, Math.min(255, planes[0][i][j])),
+              Math.max(0, Math.min(255, planes[1][i][j])),
+              Math.max(0, Math.min(255, planes[2][i][j]))
+          );
+        }
+      });
+    }
+    return image;
+  }
+
+  /**
+   * Copies the red, green and blue values of the image into the three channels.
+   *
+   * @param image The image to copy.
+   */
+  private void extractRGB(Pixels[][] image) {
+    int[][] red = channels[0].data;
+    int[][] green = channels[1].data;
+    int[][] blue = channels[2].data;
+    IntStream.range(0, height).parallel().forEach(i -> {
+      for (int j = 0; j < width; j++) {
+        RGBPixel pixel = rgb(image[i][j]);
+        red[i][j] = pixel.getRed();
+        green[i][j] = pixel.getGreen();
+        blue[i][j] = pixel.getBlue();
+      }
+    });
+  }
+
+  /**
+   * Converts the image into a luma channel of full size and two chroma channels that hold the
+   * average chroma of every 2x2 block of pixels. The chroma is stored centred on zero rather than
+   * on 128, so zeroing out its coefficients leaves a neutral grey instead of a colour cast.
+   *
+   * @param image The image to convert.
+   */
+  private void extractYCbCr(Pixels[][] image) {
+    int[][] luma = channels[0].data;
+    int[][] blueChroma = channels[1].data;
+    int[][] redChroma = channels[2].data;
+    IntStream.range(0, channels[1].height).parallel().forEach(bi -> {
+      int top = bi * 2;
+      int bottom = Math.min(top + 2, height);
+      for (int bj = 0; bj < channels[1].width; bj++) {
+        int left = bj * 2;
+        int right = Math.min(left + 2, width);
+        int redSum = 0;
+        int greenSum = 0;
+        int blueSum = 0;
+        for (int i = top; i < bottom; i++) {
+          for (int j = left; j < right; j++) {
+            RGBPixel pixel = rgb(image[i][j]);
+            redSum += pixel.getRed();
+            greenSum += pixel.getGreen();
+            blueSum += pixel.getBlue();
+            luma[i][j] = (LUMA_RED * pixel.getRed() + LUMA_GREEN * pixel.getGreen()
+                + LUMA_BLUE * pixel.getBlue() + HALF) >> FIXED_POINT;
+          }
+        }
+        int count = (bottom - top) * (right - left);
+        blueChroma[bi][bj] = average(
+            BLUE_CHROMA_RED * redSum + BLUE_CHROMA_GREEN * greenSum + HALF_SCALE * blueSum, count);
+        redChroma[bi][bj] = average(
+            HALF_SCALE * redSum + RED_CHROMA_GREEN * greenSum + RED_CHROMA_BLUE * blueSum, count);
+      }
+    });
+  }
+
+  /**
+   * Converts reconstructed luma and chroma planes back to RGB pixels, repeating every chroma
+   * sample over the pixels it was averaged from.
+   *
+   * @param planes          The reconstructed luma, blue chroma and red chroma planes.
+   * @param image           The image to fill.
+   * @param rowShift        The number of times the luma plane was halved between rows.
+   * @param columnShift     The number of times the luma plane was halved between columns.
+   * @param chromaReduction The reduction the chroma planes were reconstructed with.
+   */
+  private void convertYCbCr(int[][][] planes, RGBPixel[][] image, int rowShift,
+      int columnShift, int chromaReduction) {
+    Channel chroma = channels[1];
+    int chromaRowShift = chroma.rowShift(chromaReduction);
+    int chromaColumnShift = chroma.columnShift(chromaReduction);
+    int chromaHeight = (chroma.height + (1 << chromaRowShift) - 1) >> chromaRowShift;
+    int chromaWidth = (chroma.width + (1 << chromaColumnShift) - 1) >> chromaColumnShift;
+
+    IntStream.range(0, image.length).parallel().forEach(i -> {
+      int ci = Math.min(chromaHeight - 1, ((i << rowShift) >> 1) >> chromaRowShift);
+      int[] lumaRow = planes[0][i];
+      int[] blueRow = planes[1][ci];
+      int[] redRow = planes[2][ci];
+      for (int j = 0; j < image[i].length; j++) {
+        int cj = Math.min(chromaWidth - 1, ((j << columnShift) >> 1) >> chromaColumnShift);
+        int y = lumaRow[j];
+        int cb = blueRow[cj];
+        int cr = redRow[cj];
+        image[i][j] = RGBPixel.of(
+            y + ((RED_FROM_RED_CHROMA * cr + HALF) >> FIXED_POINT),
+            y - ((GREEN_FROM_BLUE_CHROMA * cb + GREEN_FROM_RED_CHROMA * cr + HALF) >> FIXED_POINT),
+            y + ((BLUE_FROM_BLUE_CHROMA * cb + HALF) >> FIXED_POINT));
+      }
+    });
+  }
+
+  /**
+   * Divides a fixed point sum of chroma over the given number of pixels, rounding to the nearest
+   * integer.
+   *
+   * @param sum   The chroma of the pixels added up, scaled by {@code 2^FIXED_POINT}.
+   * @param count The number of pixels in the sum.
+   * @return The average chroma.
+   */
+  private static int average(long sum, int count) {
+    long scale = (long) count << FIXED_POINT;
+    return (int) Math.floorDiv(sum + (scale >> 1), scale);
+  }
+
+  /**
+   * Checks that a pixel is an {@link RGBPixel} and returns it as one.
+   *
+   * @param pixel The pixel to check.
+   * @return The pixel as an {@link RGBPixel}.
+   * @throws IllegalArgumentException if the pixel is not an {@link RGBPixel}.
+   */
+  private static RGBPixel rgb(Pixels pixel) {
+    if (!(pixel instanceof RGBPixel)) {
+      throw new IllegalArgumentException("Expected an instance of RGBPixel.");
+    }
+    return (RGBPixel) pixel;
+  }
+
+  /**
+   * The Haar transform of a single channel, together with the counts of its coefficient
+   * magnitudes.
+   */
+  private static class Channel {
+
+    private final int height;
+    private final int width;
+    private final int rowLevels;
+    private final int columnLevels;
+    private final long rankedElements;
+    private final int[][] data;
+    private int[] magnitudeCounts;
+
+    /**
+     * Allocates a zeroed channel padded for the given number of levels.
+     *
+     * @param height The number of rows of the channel.
+     * @param width  The number of columns of the channel.
+     * @param levels The requested number of levels.
+     */
+    private Channel(int height, int width, int levels) {
+      this.height = height;
+      this.width = width;
+      this.rowLevels = HaarTransform.levelsFor(height, levels);
+      this.columnLevels = HaarTransform.levelsFor(width, levels);
+      this.rankedElements = (long) nextPowerOfTwo(height) * nextPowerOfTwo(width);
+      this.data = new int[HaarTransform.paddedLength(height, rowLevels)]
+          [HaarTransform.paddedLength(width, columnLevels)];
+    }
+
+    /**
+     * Transforms the channel in place, one level at a time, and counts its coefficient magnitudes.
+     *
+     * @param task The task to advance after every level.
+     */
+    private void transform(TaskContext.Task task) {
+      for (int level = 0; level < Math.max(rowLevels, columnLevels); level++) {
+        HaarTransform.forwardLevel(data, level, rowLevels, columnLevels);
+        task.advance(1);
+      }
+      magnitudeCounts = countMagnitudes(data);
+    }
+
+    /**
+     * Returns the number of levels the inverse transform undoes for the given reduction.
+     *
+     * @param reduction The number of levels skipped.
+     * @return The number of levels to undo.
+     */
+    private int inverseLevels(int reduction) {
+      return Math.max(rowLevels - rowShift(reduction), columnLevels - columnShift(reduction));
+    }
+
+    /**
+     * Returns how many times the rows are halved by the given reduction.
+     *
+     * @param reduction The number of levels skipped.
+     * @return The reduction capped at the number of levels between rows.
+     */
+    private int rowShift(int reduction) {
+      return Math.min(reduction, rowLevels);
+    }
+
+    /**
+     * Returns how many times the columns are halved by the given reduction.
+     *
+     * @param reduction The number of levels skipped.
+     * @return The reduction capped at the number of levels between columns.
+     */
+    private int columnShift(int reduction) {
+      return Math.min(reduction, columnLevels);
+    }
+
+    /**
+     * Zeroes out the smallest coefficients of a copy of the channel and inverts the transform,
+     * skipping the given number of finest levels.
+     *
+     * @param compressionRatio The percentage of coefficients to zero out (0-100).
+     * @param reduction        The number of levels to skip.
+     * @param task             The task to advance after every level.
+     * @return The reconstructed, padded plane.
+     */
+    private int[][] reconstruct(double compressionRatio, int reduction, TaskContext.Task task) {
+      int rowShift = rowShift(reduction);
+      int columnShift = columnShift(reduction);
+      int planeHeight = data.length >> rowShift;
+      int planeWidth = data[0].length >> columnShift;
+      int threshold = threshold(compressionRatio);
+
+      int[][] plane = new int[planeHeight][planeWidth];
+      for (int i = 0; i < planeHeight; i++) {
+        int[] source = data[i << rowShift];
+        int[] target = plane[i];
+        for (int j = 0; j < planeWidth; j++) {
+          int value = source[j << columnShift];
+          target[j] = Math.abs(value) < threshold ? 0 : value;
+        }
+      }
+      for (int level = inverseLevels(reduction) - 1; level >= 0; level--) {
+        HaarTransform.inverseLevel(plane, level, rowLevels - rowShift, columnLevels - columnShift);
+        task.advance(1);
+      }
+      return plane;
+    }
+
+    /**
+     * Finds the smallest magnitude a coefficient must have to survive the given ratio. This is the
+     * magnitude that would sit at the ratio's rank if every coefficient magnitude were sorted in
+     * ascending order, found with a single scan over the counted magnitudes.
+     *
+     * @param compressionRatio The percentage of coefficients to zero out (0-100).
+     * @return The threshold, or {@link Integer#MAX_VALUE} if every coefficient is zeroed out.
+     */
+    private int threshold(double compressionRatio) {
+      long elementsToZero = (long) (rankedElements * (compressionRatio / 100.0));
+      if (elementsToZero == rankedElements) {
+        return Integer.MAX_VALUE;
+      }
+
+      long seen = rankedElements - (long) data.length * data[0].length;
+      for (int magnitude = 0; magnitude < magnitudeCounts.length; magnitude++) {
+        seen += magnitudeCounts[magnitude];
+        if (seen > elementsToZero) {
+          return magnitude;
+        }
+      }
+      return magnitudeCounts.length - 1;
+    }
+  }
+
+  /**
+   * Counts how many coefficients of every magnitude a channel holds.
+   *
+   * @param data The 2D array of coefficients.
+   * @return An array where index {@code m} holds the number of coefficients of magnitude
+   *     {@code m}.
+   */
+  private static int[] countMagnitudes(int[][] data) {
+    int max = 0;
+    for (int[] row : data) {
+      for (int value : row) {
+        max = Math.max(max, Math.abs(value));
+      }
+    }
+    int[] counts = new int[max + 1];
+    for (int[] row : data) {
+      for (int value : row) {
+        counts[Math.abs(value)]++;
+      }
+    }
+    return counts;
+  }
+
+  /**
+   * Returns the next power of two greater than or equal to the specified number.
+   *
+   * @param n The number to round up.
+   * @return The smallest power of two greater than or equal to {@code n}.
+   */
+  private static int nextPowerOfTwo(int n) {
+    int power = 1;
+    while (power < n) {
+      power <<= 1;
+    }
+    return power;
+  }
+}
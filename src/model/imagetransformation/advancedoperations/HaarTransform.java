@@ -0,0 +1,205 @@
+package model.imagetransformation.advancedoperations;
+
+import java.util.stream.IntStream;
+
+/**
+ * {@code HaarTransform} computes the multi-level Haar transform of a 2D plane of integers in place,
+ * and its exact inverse.
+ *
+ * <p>The transform uses the lifting scheme: every pair {@code (a, b)} is replaced by the
+ * difference {@code d = a - b} and the average {@code b + (d >> 1)}, which the inverse undoes
+ * exactly. Each level works on the averages left by the previous one, which are kept where they
+ * are and addressed with a stride instead of being moved to the front of the row. The averages of
+ * level {@code k} sit on every {@code 2^k}-th row and column. Columns are processed a pair of rows
+ * at a time, so both passes read memory sequentially. Rows and row pairs are processed in
+ * parallel.</p>
+ *
+ * <p>The number of levels can differ between the two directions. A plane that is transformed with
+ * {@code rowLevels} levels between its rows and {@code columnLevels} levels between its columns
+ * must have a height that is a multiple of {@code 2^rowLevels} and a width that is a multiple of
+ * {@code 2^columnLevels}, see {@link #paddedLength(int, int)}.</p>
+ */
+public final class HaarTransform {
+
+  private HaarTransform() {
+  }
+
+  /**
+   * Applies every level of the Haar transform to a plane in place.
+   *
+   * @param data         The 2D array of data to transform (e.g., an image channel).
+   * @param rowLevels    The number of levels to apply along the columns, between rows.
+   * @param columnLevels The number of levels to apply along the rows, between columns.
+   */
+  public static void forward(int[][] data, int rowLevels, int columnLevels) {
+    for (int level = 0; level < Math.max(rowLevels, columnLevels); level++) {
+      forwardLevel(data, level, rowLevels, columnLevels);
+    }
+  }
+
+  /**
+   * Undoes every level of the Haar transform of a plane in place, from the last to the first.
+   *
+   * @param data         The 2D array of transformed data to invert (e.g., compressed channel).
+   * @param rowLevels    The number of levels that were applied along the columns.
+   * @param columnLevels The number of levels that were applied along the rows.
+   */
+  public static void inverse(int[][] data, int rowLevels, int columnLevels) {
+    for (int level = Math.max(rowLevels, columnLevels) - 1; level >= 0; level--) {
+      inverseLevel(data, level, rowLevels, columnLevels);
+    }
+  }
+
+  /**
+   * Applies a single level of the Haar transform to the averages left by the previous level. The
+   * rows are transformed first and then the columns, each only while the level is below the
+   * number of levels for that direction.
+   *
+   * @param data         The 2D array of data to transform.
+   * @param level        The zero-based level to apply.
+   * @param rowLevels    The number of levels to apply along the columns, between rows.
+   * @param columnLevels The number of levels to apply along the rows, between columns.
+   */
+  public static void forwardLevel(int[][] data, int level, int rowLevels, int columnLevels) {
+    int rowStride = rowStride(level, rowLevels);
+    int columnStride = columnStride(level, columnLevels);
+    if (level < columnLevels) {
+      IntStream.range(0, data.length / rowStride).parallel()
+          .forEach(r -> liftRow(data[r * rowStride], columnStride));
+    }
+    if (level < rowLevels) {
+      IntStream.range(0, data.length / (rowStride << 1)).parallel().forEach(p -> {
+        int r = p * (rowStride << 1);
+        liftRows(data[r], data[r + rowStride], columnStride);
+      });
+    }
+  }
+
+  /**
+   * Undoes a single level of the Haar transform, leaving the averages of the previous level.
+   *
+   * @param data         The 2D array of transformed data.
+   * @param level        The zero-based level to undo.
+   * @param rowLevels    The number of levels that were applied along the columns.
+   * @param columnLevels The number of levels that were applied along the rows.
+   */
+  public static void inverseLevel(int[][] data, int level, int rowLevels, int columnLevels) {
+    int rowStride = rowStride(level, rowLevels);
+    int columnStride = columnStride(level, columnLevels);
+    if (level < rowLevels) {
+      IntStream.range(0, data.length / (rowStride << 1)).parallel().forEach(p -> {
+        int r = p * (rowStride << 1);
+        unliftRows(data[r], data[r + rowStride], columnStride);
+      });
+    }
+    if (level < columnLevels) {
+      IntStream.range(0, data.length / rowStride).parallel()
+          .forEach(r -> unliftRow(data[r * rowStride], columnStride));
+    }
+  }
+
+  /**
+   * Returns the distance between the rows that hold the averages a level starts from.
+   *
+   * @param level     The zero-based level.
+   * @param rowLevels The number of levels applied along the columns.
+   * @return The row stride of the level's input.
+   */
+  public static int rowStride(int level, int rowLevels) {
+    return 1 << Math.min(level, rowLevels);
+  }
+
+  /**
+   * Returns the distance between the columns that hold the averages a level starts from.
+   *
+   * @param level        The zero-based level.
+   * @param columnLevels The number of levels applied along the rows.
+   * @return The column stride of the level's input.
+   */
+  public static int columnStride(int level, int columnLevels) {
+    return 1 << Math.min(level, columnLevels);
+  }
+
+  /**
+   * Returns the number of levels that can be applied along a dimension of the given length, which
+   * is the requested number of levels capped at the number of times the length can be halved.
+   *
+   * @param n      The length of the dimension.
+   * @param levels The requested number of levels.
+   * @return The number of levels to apply along the dimension.
+   */
+  public static int levelsFor(int n, int levels) {
+    return Math.min(levels, 31 - Integer.numberOfLeadingZeros(n));
+  }
+
+  /**
+   * Returns the length a dimension has to be padded to so that every level can pair its values.
+   *
+   * @param n         The length of the dimension.
+   * @param dimLevels The number of levels applied along the dimension.
+   * @return {@code n} rounded up to the next multiple of {@code 2^dimLevels}.
+   */
+  public static int paddedLength(int n, int dimLevels) {
+    int block = 1 << dimLevels;
+    return (n + block - 1) / block * block;
+  }
+
+  /**
+   * Applies one level of the 1D Haar transform to a row, pairing every {@code stride}-th value.
+   *
+   * @param row    The row to transform in place.
+   * @param stride The distance between the two values of a pair.
+   */
+  private static void liftRow(int[] row, int stride) {
+    for (int k = 0; k + stride < row.length; k += stride << 1) {
+      int difference = row[k] - row[k + stride];
+      row[k] = row[k + stride] + (difference >> 1);
+      row[k + stride] = difference;
+    }
+  }
+
+  /**
+   * Applies one level of the 1D Haar transform to every column of a pair of rows. The averages
+   * replace the first row and the differences the second.
+   *
+   * @param first  The upper row of the pair.
+   * @param second The lower row of the pair.
+   * @param stride The distance between the columns that take part in this level.
+   */
+  private static void liftRows(int[] first, int[] second, int stride) {
+    for (int j = 0; j < first.length; j += stride) {
+      int difference = first[j] - second[j];
+      first[j] = second[j] + (difference >> 1);
+      second[j] = difference;
+    }
+  }
+
+  /**
+   * Undoes one level of the 1D Haar transform on a row.
+   *
+   * @param row    The row to invert in place.
+   * @param stride The distance between the two values of a pair.
+   */
+  private static void unliftRow(int[] row, int stride) {
+    for (int k = 0; k + stride < row.length; k += stride << 1) {
+      int second = row[k] - (row[k + stride] >> 1);
+      row[k] = row[k + stride] + second;
+      row[k + stride] = second;
+    }
+  }
+
+  /**
+   * Undoes one level of the 1D Haar transform on every column of a pair of rows.
+   *
+   * @param first  The upper row of the pair, holding the averages.
+   * @param second The lower row of the pair, holding the differences.
+   * @param stride The distance between the columns that take part in this level.
+   */
+  private static void unliftRows(int[] first, int[] second, int stride) {
+    for (int j = 0; j < first.length; j += stride) {
+      int lower = first[j] - (second[j] >> 1);
+      first[j] = second[j] + lower;
+      second[j] = lower;
+    }
+  }
+}
@@ -0,0 +1,223 @@
+package model.imagetransformation.advancedoperations;
+
+import java.util.Arrays;
+import model.colorscheme.Pixels;
+import model.colorscheme.RGBPixel;
+import model.imagetransformation.Transformation;
+
+/**
+ * {@code Histogram} renders the red, green and blue value distributions of an image as a 256x256
+ * line graph drawn over a light grey grid.
+ *
+ * <p>The graph is rasterised directly into a palette-indexed buffer instead of going through a
+ * {@code Graphics2D} context, so it can be produced either as a grid of {@link Pixels} for the
+ * model or as packed RGB values that a {@code BufferedImage} can use without any conversion. Lines
+ * are drawn with the same Bresenham stepping that Java2D uses for one pixel wide lines, which keeps
+ * the output identical to the previous {@code Graphics2D} based rendering.</p>
+ */
+public class Histogram implements Transformation {
+
+  /**
+   * The width and height of the rendered histogram, one column per channel value.
+   */
+  public static final int SIZE = 256;
+
+  private static final int GRID_SPACING = 16;
+
+  private static final byte BACKGROUND = 0;
+  private static final byte GRID = 1;
+  private static final byte RED = 2;
+  private static final byte GREEN = 3;
+  private static final byte BLUE = 4;
+
+  private static final int[] PALETTE_RGB = {0xFFFFFF, 0xDCDCDC, 0xFF0000, 0x00FF00, 0x0000FF};
+
+  private static final RGBPixel[] PALETTE = {
+      RGBPixel.of(255, 255, 255),
+      RGBPixel.of(220, 220, 220),
+      RGBPixel.of(255, 0, 0),
+      RGBPixel.of(0, 255, 0),
+      RGBPixel.of(0, 0, 255)
+  };
+
+  /**
+   * Generates the histogram image for the given pixels.
+   *
+   * @param pixels the 2D array of {@link Pixels} to build the histogram from
+   * @return a 256x256 array of {@link RGBPixel} containing the rendered histogram
+   * @throws IllegalArgumentException if the pixel data is null or contains non-RGB pixels
+   */
+  @Override
+  public Pixels[][] apply(Pixels[][] pixels) {
+    byte[] raster = rasterize(channelCounts(pixels));
+
+    Pixels[][] histogramPixels = new RGBPixel[SIZE][SIZE];
+    for (int y = 0; y < SIZE; y++) {
+      Pixels[] row = histogramPixels[y];
+      int offset = y * SIZE;
+      for (int x = 0; x < SIZE; x++) {
+        row[x] = PALETTE[raster[offset + x]];
+      }
+    }
+    return histogramPixels;
+  }
+
+  /**
+   * Counts how often every value from 0 to 255 occurs in the red, green and blue channels.
+   *
+   * @param pixels the 2D array of {@link Pixels} to count
+   * @return an array of three frequency arrays of size 256, in red, green, blue order
+   * @throws IllegalArgumentException if the pixel data is null or contains non-RGB pixels
+   */
+  public static int[][] channelCounts(Pixels[][] pixels) {
+    if (pixels == null) {
+      throw new IllegalArgumentException("Input pixel array cannot be null.");
+    }
+
+    int[] redFreq = new int[256];
+    int[] greenFreq = new int[256];
+    int[] blueFreq = new int[256];
+
+    for (Pixels[] row : pixels) {
+      for (Pixels pixel : row) {
+        if (!(pixel instanceof RGBPixel)) {
+          throw new IllegalArgumentException("Expected an RGBPixel. ");
+        }
+        RGBPixel rgbPixel = (RGBPixel) pixel;
+        redFreq[rgbPixel.getRed()]++;
+        greenFreq[rgbPixel.getGreen()]++;
+        blueFreq[rgbPixel.getBlue()]++;
+      }
+    }
+
+    return new int[][]{redFreq, greenFreq, blueFreq};
+  }
+
+  /**
+   * Renders the histogram for the given channel counts as packed {@code 0xRRGGBB} values, in row
+   * major order. The target can be the backing array of a {@code TYPE_INT_RGB} image.
+   *
+   * @param counts the red, green and blue frequency arrays, as returned by
+   *               {@link #channelCounts(Pixels[][])}
+   * @param target the array of at least {@code 256 * 256} entries to render into
+   * @throws IllegalArgumentException if the target array is too small
+   */
+  public static void render(int[][] counts, int[] target) {
+    if (target.length < SIZE * SIZE) {
+      throw new IllegalArgumentException("Target must hold at least " + SIZE * SIZE + " pixels.");
+    }
+    byte[] raster = rasterize(counts);
+    for (int i = 0; i < raster.length; i++) {
+      target[i] = PALETTE_RGB[raster[i]];
+    }
+  }
+
+  /**
+   * Draws the grid and the three channel lines into a palette-indexed raster.
+   *
+   * @param counts the red, green and blue frequency arrays
+   * @return a row major array of {@code 256 * 256} palette indices
+   */
+  private static byte[] rasterize(int[][] counts) {
+    int maxFreq = 0;
+    for (int[] channel : counts) {
+      for (int i = 0; i < SIZE; i++) {
+        maxFreq = Math.max(maxFreq, channel[i]);
+      }
+    }
+
+    byte[] raster = new byte[SIZE * SIZE];
+
+    for (int y = 0; y < SIZE; y++) {
+      int offset = y * SIZE;
+      if (y % GRID_SPACING == 0) {
+        Arrays.fill(raster, offset, offset + SIZE, GRID);
+      } else {
+        for (int x = 0; x < SIZE; x += GRID_SPACING) {
+          raster[offset + x] = GRID;
+        }
+      }
+    }
+
+    drawHistogramLine(raster, counts[0], maxFreq, RED);
+    drawHistogramLine(raster, counts[1], maxFreq, GREEN);
+    drawHistogramLine(raster, counts[2], maxFreq, BLUE);
+
+    return raster;
+  }
+
+  /**
+   * Draws the polyline for one channel, scaling the frequencies so that the largest one reaches
+   * the top of the graph.
+   *
+   * @param raster  the palette-indexed raster to draw on
+   * @param freq    frequency array for the channel
+   * @param maxFreq maximum frequency value for scaling
+   * @param color   palette index to draw the line with
+   */
+  private static void drawHistogramLine(byte[] raster, int[] freq, int maxFreq, byte color) {
+    int previousY = scale(freq[0], maxFreq);
+    for (int i = 1; i < SIZE; i++) {
+      int y = scale(freq[i], maxFreq);
+      drawLine(raster, i - 1, previousY, i, y, color);
+      previousY = y;
+    }
+  }
+
+  /**
+   * Maps a frequency to its row on the graph.
+   *
+   * @param freq    the frequency to map
+   * @param maxFreq the largest frequency across all channels
+   * @return the row, where 255 is the bottom of the graph
+   */
+  private static int scale(int freq, int maxFreq) {
+    if (maxFreq == 0) {
+      return SIZE - 1;
+    }
+    return SIZE - 1 - (int) ((freq * 255.0) / maxFreq);
+  }
+
+  /**
+   * Draws a one pixel wide line between two points, both included.
+   *
+   * @param raster the palette-indexed raster to draw on
+   * @param x1     the x coordinate of the start point
+   * @param y1     the y coordinate of the start point
+   * @param x2     the x coordinate of the end point
+   * @param y2     the y coordinate of the end point
+   * @param color  palette index to draw the line with
+   */
+  private static void drawLine(byte[] raster, int x1, int y1, int x2, int y2, byte color) {
+    int dx = Math.abs(x2 - x1);
+    int dy = Math.abs(y2 - y1);
+    int stepX = x2 >= x1 ? 1 : -1;
+    int stepY = y2 >= y1 ? 1 : -1;
+
+    int x = x1;
+    int y = y1;
+    if (dx >= dy) {
+      int error = -(dx + 1) / 2;
+      for (int i = 0; i <= dx; i++) {
+        raster[y * SIZE + x] = color;
+        x += stepX;
+        error += dy;
+        if (error >= 0) {
+          y += stepY;
+          error -= dx;
+        }
+      }
+    } else {
+      int error = -(dy + 1) / 2;
+      for (int i = 0; i <= dy; i++) {
+        raster[y * SIZE + x] = color;
+        y += stepY;
+        error += dx;
+        if (error >= 0) {
+          x += stepX;
+          error -= dy;
+        }
+      }
+    }
+  }
+}
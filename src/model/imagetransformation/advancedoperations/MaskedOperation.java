@@ -3,6 +3,8 @@ package model.imagetransformation.advancedoperations;
 import model.colorscheme.Pixels;
 import model.colorscheme.RGBPixel;
 import model.imagetransformation.Transformation;
+import model.imageview.ArrayView;
+import model.imageview.ImageView;
 
 /**
  * The {@code MaskedOperation} class implements the {@link Transformation} interface and applies a
@@ -14,7 +16,7 @@ import model.imagetransformation.Transformation;
 public class MaskedOperation implements Transformation {
 
   private Transformation operation;
-  private Pixels[][] mask;
+  private ImageView mask;
 
   /**
    * Constructs a new {@code MaskedOperation} with the specified transformation operation and mask.
@@ -24,6 +26,17 @@ public class MaskedOperation implements Transformation {
    *                  pixels to transform
    */
   public MaskedOperation(Transformation operation, Pixels[][] mask) {
+    this(operation, new ArrayView(mask));
+  }
+
+  /**
+   * Constructs a new {@code MaskedOperation} with the specified transformation operation and a
+   * view of the mask, which lets a greyscale mask be used without expanding it into pixels.
+   *
+   * @param operation the {@link Transformation} to apply to the source image pixels
+   * @param mask      a view of the mask used to determine which pixels to transform
+   */
+  public MaskedOperation(Transformation operation, ImageView mask) {
     this.operation = operation;
     this.mask = mask;
   }
@@ -46,7 +59,7 @@ public class MaskedOperation implements Transformation {
     Pixels[][] resultPixels = new RGBPixel[height][width];
 
     // Ensure the mask dimensions match the source pixels
-    if (mask.length != height || mask[0].length != width) {
+    if (mask.getHeight() != height || mask.getWidth() != width) {
       throw new IllegalArgumentException("Mask dimensions must match source pixel dimensions.");
     }
 
@@ -54,8 +67,8 @@ public class MaskedOperation implements Transformation {
     for (int y = 0; y < height; y++) {
       for (int x = 0; x < width; x++) {
         // Check if the mask pixel is black (assuming RGBPixel and black is (0, 0, 0))
-        if (((RGBPixel) mask[y][x]).getRed() == 0 && ((RGBPixel) mask[y][x]).getGreen() == 0
-            && ((RGBPixel) mask[y][x]).getBlue() == 0) {
+        if (mask.getSample(y, x, 0) == 0 && mask.getSample(y, x, 1) == 0
+            && mask.getSample(y, x, 2) == 0) {
           // Apply the transformation to this pixel
           resultPixels[y][x] = operation.apply(new Pixels[][]{{sourcePixels[y][x]}})[0][0];
         } else {
@@ -1,8 +1,12 @@
 package model.imagetransformation.basicoperation;
 
+import model.TaskContext;
 import model.colorscheme.Pixels;
 import model.colorscheme.RGBPixel;
+import model.imagetransformation.Region;
 import model.imagetransformation.Transformation;
+import model.imageview.GreyscaleImage;
+import model.imageview.ImageView;
 
 /**
  * The {@code AbstractBasicOperation} class provides a base implementation for basic image
@@ -31,32 +35,121 @@ public abstract class AbstractBasicOperation implements Transformation {
    */
   @Override
   public Pixels[][] apply(Pixels[][] pixels) {
+    return applyInto(pixels, new RGBPixel[pixels.length][pixels[0].length]);
+  }
+
+  /**
+   * Applies the transformation to every pixel, writing the results into the given destination,
+   * which may be the source itself.
+   *
+   * @param pixels      a 2D array of {@code Pixels} representing the image to be transformed
+   * @param destination a 2D array of {@code RGBPixel} of the same size to write the result into
+   * @return the destination, holding the transformed image
+   * @throws IllegalArgumentException if a pixel is not an instance of {@code RGBPixel}
+   */
+  @Override
+  public Pixels[][] applyInto(Pixels[][] pixels, Pixels[][] destination) {
     int height = pixels.length;
     int width = pixels[0].length;
 
-    Pixels[][] abstractpixel = new RGBPixel[height][width];
-
+    TaskContext.Task task = TaskContext.current().begin(getClass().getSimpleName(), height);
     for (int i = 0; i < height; i++) {
       for (int j = 0; j < width; j++) {
-        Pixels pixel = pixels[i][j];
-        if (pixel instanceof RGBPixel) {
-          RGBPixel rgbPixel = (RGBPixel) pixel;
-
-          int red = rgbPixel.getRed();
-          int green = rgbPixel.getGreen();
-          int blue = rgbPixel.getBlue();
-
-          int val = properties(red, green, blue);
-          abstractpixel[i][j] = new RGBPixel(val, val, val);
-        } else {
-          throw new IllegalArgumentException("Expected an RGBPixel.");
-        }
+        destination[i][j] = transformPixel(pixels[i][j]);
       }
+      task.advance(1);
+    }
+
+    return destination;
+  }
+
+  /**
+   * Returns {@code true}, since every pixel is transformed on its own.
+   *
+   * @return {@code true}
+   */
+  @Override
+  public boolean supportsInPlace() {
+    return true;
+  }
+
+  /**
+   * Applies the transformation to the pixels inside the given region only. Every pixel is
+   * transformed on its own, so only the pixels inside the region are computed.
+   *
+   * @param pixels a 2D array of {@code Pixels} representing the image to be transformed
+   * @param region the region to transform, which is clipped to the image
+   * @return a 2D array of {@code RGBPixel} objects holding the transformed region and the source
+   *        pixels outside it
+   * @throws IllegalArgumentException if a pixel inside the region is not an {@code RGBPixel}
+   */
+  @Override
+  public Pixels[][] apply(Pixels[][] pixels, Region region) {
+    Region clipped = region.clip(pixels);
+    Pixels[][] abstractpixel = clipped.copyForWrite(pixels);
+
+    TaskContext.Task task = TaskContext.current()
+        .begin(getClass().getSimpleName(), clipped.getHeight());
+    for (int i = clipped.getY(); i < clipped.getEndY(); i++) {
+      for (int j = clipped.getX(); j < clipped.getEndX(); j++) {
+        abstractpixel[i][j] = transformPixel(pixels[i][j]);
+      }
+      task.advance(1);
     }
 
     return abstractpixel;
   }
 
+  /**
+   * Computes {@link #properties(int, int, int)} for every pixel of the source and returns the
+   * results as a compact greyscale image, without creating a pixel for each of them. This is the
+   * result of {@link #apply(Pixels[][])} for operations that keep the base
+   * {@link #transformPixel(Pixels)}.
+   *
+   * @param source a view of the image to be transformed
+   * @return the greyscale image holding the computed property of every pixel
+   * @throws IllegalArgumentException if a pixel is not an instance of {@code RGBPixel}
+   */
+  public GreyscaleImage applyGreyscale(ImageView source) {
+    int height = source.getHeight();
+    int width = source.getWidth();
+    GreyscaleImage result = new GreyscaleImage(width, height);
+
+    TaskContext.Task task = TaskContext.current().begin(getClass().getSimpleName(), height);
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        result.setValue(i, j, properties(source.getSample(i, j, 0), source.getSample(i, j, 1),
+            source.getSample(i, j, 2)));
+      }
+      task.advance(1);
+    }
+
+    return result;
+  }
+
+  /**
+   * Transforms a single pixel. The base implementation replaces the pixel with a grey pixel whose
+   * value is computed by {@link #properties(int, int, int)}.
+   *
+   * @param pixel the pixel to transform
+   * @return the transformed pixel
+   * @throws IllegalArgumentException if the pixel is not an instance of {@code RGBPixel}
+   */
+  protected RGBPixel transformPixel(Pixels pixel) {
+    if (pixel instanceof RGBPixel) {
+      RGBPixel rgbPixel = (RGBPixel) pixel;
+
+      int red = rgbPixel.getRed();
+      int green = rgbPixel.getGreen();
+      int blue = rgbPixel.getBlue();
+
+      int val = properties(red, green, blue);
+      return RGBPixel.of(val, val, val);
+    } else {
+      throw new IllegalArgumentException("Expected an RGBPixel.");
+    }
+  }
+
   /**
    * Computes a property of the color based on the red, green, and blue values. This method is
    * intended to be overridden by subclasses to define specific transformations, such as grayscale
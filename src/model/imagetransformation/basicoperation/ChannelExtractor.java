@@ -1,8 +1,12 @@
 package model.imagetransformation.basicoperation;
 
+import model.TaskContext;
 import model.colorscheme.Pixels;
 import model.colorscheme.RGBPixel;
+import model.imagetransformation.Region;
 import model.imagetransformation.Transformation;
+import model.imageview.GreyscaleImage;
+import model.imageview.ImageView;
 
 /**
  * The {@code ChannelExtractor} class represents an operation that extracts a specific color channel
@@ -38,33 +42,107 @@ public class ChannelExtractor implements Transformation {
     int width = pixels[0].length;
     Pixels[][] channelPixels = new RGBPixel[height][width];
 
+    TaskContext.Task task = TaskContext.current().begin(getClass().getSimpleName(), height);
     for (int i = 0; i < height; i++) {
       for (int j = 0; j < width; j++) {
-        if (!(pixels[i][j] instanceof RGBPixel)) {
-          throw new IllegalArgumentException("Expected an RGBPixel.");
-        }
-
-        RGBPixel rgbPixel = (RGBPixel) pixels[i][j];
-
-        int value = 0;
-        switch (channel) {
-          case 1:
-            value = rgbPixel.getRed();
-            break;
-          case 2:
-            value = rgbPixel.getGreen();
-            break;
-          case 3:
-            value = rgbPixel.getBlue();
-            break;
-          default:
-            throw new IllegalArgumentException("Invalid channel: " + channel);
-        }
-
-        channelPixels[i][j] = new RGBPixel(value, value, value);
+        channelPixels[i][j] = extract(pixels[i][j]);
       }
+      task.advance(1);
     }
 
     return channelPixels;
   }
+
+  /**
+   * Applies the channel extraction operation to the pixels inside the given region only.
+   *
+   * @param pixels A 2D array of {@code Pixels} representing the image to extract the channel from.
+   * @param region The region to transform, which is clipped to the image.
+   * @return A 2D array of {@code RGBPixel} holding the extracted channel inside the region and the
+   *         source pixels outside it.
+   * @throws IllegalArgumentException if any pixel inside the region is not an instance of
+   *                                  {@code RGBPixel}.
+   */
+  @Override
+  public Pixels[][] apply(Pixels[][] pixels, Region region) {
+    if (pixels == null) {
+      throw new IllegalArgumentException("Input pixel array cannot be null.");
+    }
+
+    Region clipped = region.clip(pixels);
+    Pixels[][] channelPixels = clipped.copyForWrite(pixels);
+
+    TaskContext.Task task = TaskContext.current()
+        .begin(getClass().getSimpleName(), clipped.getHeight());
+    for (int i = clipped.getY(); i < clipped.getEndY(); i++) {
+      for (int j = clipped.getX(); j < clipped.getEndX(); j++) {
+        channelPixels[i][j] = extract(pixels[i][j]);
+      }
+      task.advance(1);
+    }
+
+    return channelPixels;
+  }
+
+  /**
+   * Extracts the channel of every pixel of the source as a compact greyscale image, without
+   * creating a pixel for each of them.
+   *
+   * @param source A view of the image to extract the channel from.
+   * @return The greyscale image holding the channel's values.
+   * @throws IllegalArgumentException if any pixel is not an instance of {@code RGBPixel}, or the
+   *                                  channel is invalid.
+   */
+  public GreyscaleImage applyGreyscale(ImageView source) {
+    if (channel < 1 || channel > 3) {
+      throw new IllegalArgumentException("Invalid channel: " + channel);
+    }
+
+    int height = source.getHeight();
+    int width = source.getWidth();
+    GreyscaleImage channelImage = new GreyscaleImage(width, height);
+
+    TaskContext.Task task = TaskContext.current().begin(getClass().getSimpleName(), height);
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        channelImage.setValue(i, j, source.getSample(i, j, channel - 1));
+      }
+      task.advance(1);
+    }
+
+    return channelImage;
+  }
+
+  /**
+   * Extracts the channel of a single pixel as a grey pixel.
+   *
+   * @param pixel The pixel to extract the channel from.
+   * @return A grey {@code RGBPixel} holding the channel's value.
+   * @throws IllegalArgumentException if the pixel is not an instance of {@code RGBPixel}, or the
+   *                                  channel is invalid.
+   */
+  private RGBPixel extract(Pixels pixel) {
+    if (!(pixel instanceof RGBPixel)) {
+      throw new IllegalArgumentException("Expected an RGBPixel.");
+    }
+
+    RGBPixel rgbPixel = (RGBPixel) pixel;
+
+    int value = 0;
+    switch (channel) {
+      case 1:
+        value = rgbPixel.getRed();
+        break;
+      case 2:
+        value = rgbPixel.getGreen();
+        break;
+      case 3:
+        value = rgbPixel.getBlue();
+        break;
+      default:
+        throw new IllegalArgumentException("Invalid channel: " + channel);
+    }
+
+    return RGBPixel.of(value, value, value);
+  }
 }
\ No newline at end of file
@@ -1,7 +1,9 @@
 package model.imagetransformation.basicoperation;
 
+import model.TaskContext;
 import model.colorscheme.Pixels;
 import model.colorscheme.RGBPixel;
+import model.imageview.ImageView;
 
 /**
  * The {@code Combine} class extends {@code AbstractBasicOperation} to provide a specific image
@@ -40,6 +42,7 @@ public class Combine extends AbstractBasicOperation {
 
     Pixels[][] combinedImage = new RGBPixel[height][width];
 
+    TaskContext.Task task = TaskContext.current().begin(getClass().getSimpleName(), height);
     for (int i = 0; i < height; i++) {
       for (int j = 0; j < width; j++) {
 
@@ -57,8 +60,44 @@ public class Combine extends AbstractBasicOperation {
         int green = greenPixel.getGreen();
         int blue = bluePixel.getBlue();
 
-        combinedImage[i][j] = new RGBPixel(red, green, blue);
+        combinedImage[i][j] = RGBPixel.of(red, green, blue);
       }
+      task.advance(1);
+    }
+
+    return combinedImage;
+  }
+
+  /**
+   * Combines three views of color channel images into a single RGB image, reading only the
+   * channel each view contributes. Greyscale channel images are read without creating a pixel for
+   * each of their values.
+   *
+   * @param red   a view of the image holding the red channel
+   * @param green a view of the image holding the green channel
+   * @param blue  a view of the image holding the blue channel
+   * @return a 2D array of {@code RGBPixel} representing the combined RGB image
+   * @throws IllegalArgumentException if the input images do not have the same dimensions or if any
+   *                                  of the pixels are not instances of {@code RGBPixel}.
+   */
+  public Pixels[][] apply(ImageView red, ImageView green, ImageView blue) {
+    int height = red.getHeight();
+    int width = red.getWidth();
+
+    if (green.getHeight() != height || blue.getHeight() != height
+        || green.getWidth() != width || blue.getWidth() != width) {
+      throw new IllegalArgumentException("All input images must have the same dimensions.");
+    }
+
+    Pixels[][] combinedImage = new RGBPixel[height][width];
+
+    TaskContext.Task task = TaskContext.current().begin(getClass().getSimpleName(), height);
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        combinedImage[i][j] = RGBPixel.of(red.getSample(i, j, 0), green.getSample(i, j, 1),
+            blue.getSample(i, j, 2));
+      }
+      task.advance(1);
     }
 
     return combinedImage;
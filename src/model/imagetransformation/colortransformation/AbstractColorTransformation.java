@@ -1,7 +1,9 @@
 package model.imagetransformation.colortransformation;
 
+import model.TaskContext;
 import model.colorscheme.Pixels;
 import model.colorscheme.RGBPixel;
+import model.imagetransformation.Region;
 import model.imagetransformation.Transformation;
 
 /**
@@ -35,35 +37,101 @@ public abstract class AbstractColorTransformation implements Transformation {
 
   @Override
   public Pixels[][] apply(Pixels[][] input) {
+    return applyInto(input, new RGBPixel[input.length][input[0].length]);
+  }
+
+  /**
+   * Applies the color transformation to every pixel, writing the results into the given
+   * destination, which may be the source itself.
+   *
+   * @param input       a 2D array of {@code Pixels}, representing the input image to be transformed
+   * @param destination a 2D array of {@code RGBPixel} of the same size to write the result into
+   * @return the destination, holding the transformed image
+   * @throws IllegalArgumentException if any of the pixels in the input array are not instances of
+   *                                  {@code RGBPixel}
+   */
+  @Override
+  public Pixels[][] applyInto(Pixels[][] input, Pixels[][] destination) {
     int height = input.length;
     int width = input[0].length;
     double[][] matrix = getMatrix();
-    Pixels[][] transformedPixels = new RGBPixel[height][width];
+    TaskContext.Task task = TaskContext.current().begin(getClass().getSimpleName(), height);
     for (int i = 0; i < height; i++) {
       for (int j = 0; j < width; j++) {
-        if (input[i][j] instanceof RGBPixel) {
-          RGBPixel rgbPixel = (RGBPixel) input[i][j];
-          int red = rgbPixel.getRed();
-          int green = rgbPixel.getGreen();
-          int blue = rgbPixel.getBlue();
+        destination[i][j] = transformPixel(input[i][j], matrix);
+      }
+      task.advance(1);
+    }
 
-          int newRed = (int) Math.min(255, Math.max(0,
-              matrix[0][0] * red + matrix[0][1] * green + matrix[0][2] * blue));
-          int newGreen = (int) Math.min(255, Math.max(0,
-              matrix[1][0] * red + matrix[1][1] * green + matrix[1][2] * blue));
-          int newBlue = (int) Math.min(255, Math.max(0,
-              matrix[2][0] * red + matrix[2][1] * green + matrix[2][2] * blue));
+    return destination;
+  }
 
-          transformedPixels[i][j] = new RGBPixel(newRed, newGreen, newBlue);
-        } else {
-          throw new IllegalArgumentException("Expected an RGBPixel.");
-        }
+  /**
+   * Returns {@code true}, since every pixel is transformed on its own.
+   *
+   * @return {@code true}
+   */
+  @Override
+  public boolean supportsInPlace() {
+    return true;
+  }
+
+  /**
+   * Applies the color transformation to the pixels inside the given region only.
+   *
+   * @param input  a 2D array of {@code Pixels}, representing the input image to be transformed
+   * @param region the region to transform, which is clipped to the image
+   * @return a 2D array of {@code RGBPixel} objects holding the transformed region and the source
+   *        pixels outside it
+   * @throws IllegalArgumentException if any of the pixels inside the region are not instances of
+   *                                  {@code RGBPixel}
+   */
+  @Override
+  public Pixels[][] apply(Pixels[][] input, Region region) {
+    double[][] matrix = getMatrix();
+    Region clipped = region.clip(input);
+    Pixels[][] transformedPixels = clipped.copyForWrite(input);
+    TaskContext.Task task = TaskContext.current()
+        .begin(getClass().getSimpleName(), clipped.getHeight());
+    for (int i = clipped.getY(); i < clipped.getEndY(); i++) {
+      for (int j = clipped.getX(); j < clipped.getEndX(); j++) {
+        transformedPixels[i][j] = transformPixel(input[i][j], matrix);
       }
+      task.advance(1);
     }
 
     return transformedPixels;
   }
 
+  /**
+   * Multiplies the color of a single pixel by the transformation matrix, clamping the result
+   * between 0 and 255.
+   *
+   * @param pixel  the pixel to transform
+   * @param matrix the transformation matrix
+   * @return the transformed pixel
+   * @throws IllegalArgumentException if the pixel is not an instance of {@code RGBPixel}
+   */
+  private RGBPixel transformPixel(Pixels pixel, double[][] matrix) {
+    if (pixel instanceof RGBPixel) {
+      RGBPixel rgbPixel = (RGBPixel) pixel;
+      int red = rgbPixel.getRed();
+      int green = rgbPixel.getGreen();
+      int blue = rgbPixel.getBlue();
+
+      int newRed = (int) Math.min(255, Math.max(0,
+          matrix[0][0] * red + matrix[0][1] * green + matrix[0][2] * blue));
+      int newGreen = (int) Math.min(255, Math.max(0,
+          matrix[1][0] * red + matrix[1][1] * green + matrix[1][2] * blue));
+      int newBlue = (int) Math.min(255, Math.max(0,
+          matrix[2][0] * red + matrix[2][1] * green + matrix[2][2] * blue));
+
+      return RGBPixel.of(newRed, newGreen, newBlue);
+    } else {
+      throw new IllegalArgumentException("Expected an RGBPixel.");
+    }
+  }
+
   /**
    * Abstract method to retrieve the transformation matrix used for the color transformation.
    * Subclasses must override this method to provide the specific transformation matrix.
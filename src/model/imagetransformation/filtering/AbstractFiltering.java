@@ -1,7 +1,9 @@
 package model.imagetransformation.filtering;
 
+import model.TaskContext;
 import model.colorscheme.Pixels;
 import model.colorscheme.RGBPixel;
+import model.imagetransformation.Region;
 import model.imagetransformation.Transformation;
 
 /**
@@ -19,6 +21,10 @@ import model.imagetransformation.Transformation;
  *
  * <p>Typical use cases for this class involve blurring, sharpening, edge detection, and other
  * image filtering techniques.</p>
+ *
+ * <p>When the filter is restricted to a region, the pixels inside the region still read their
+ * neighbours from the whole source image, so a one pixel halo around the region is read but never
+ * written, and the region's result matches that of filtering the whole image.</p>
  */
 public abstract class AbstractFiltering implements Transformation {
 
@@ -35,6 +41,22 @@ public abstract class AbstractFiltering implements Transformation {
    */
   @Override
   public Pixels[][] apply(Pixels[][] input) {
+    return applyInto(input, new RGBPixel[input.length][input[0].length]);
+  }
+
+  /**
+   * Applies the filtering operation, writing the filtered pixels into the given destination. Every
+   * pixel reads its neighbours from the input, so the destination must not be the input itself.
+   *
+   * @param input         a 2D array representing the input image, where each element is a
+   *                      {@code Pixels} object (typically {@code RGBPixel}).
+   * @param blurredPixels a 2D array of {@code RGBPixel} of the same size to write the result into
+   * @return the destination, holding the filtered image
+   * @throws IllegalArgumentException if the input image is invalid or contains non-{@code RGBPixel}
+   *                                  objects
+   */
+  @Override
+  public Pixels[][] applyInto(Pixels[][] input, Pixels[][] blurredPixels) {
 
     int height = input.length;
     int width = input[0].length;
@@ -44,47 +66,92 @@ public abstract class AbstractFiltering implements Transformation {
       return null;
     }
 
-    Pixels[][] blurredPixels = new RGBPixel[height][width];
-
     double[][] filter = getFilter();
 
+    TaskContext.Task task = TaskContext.current().begin(getClass().getSimpleName(), height);
     for (int y = 0; y < height; y++) {
       for (int x = 0; x < width; x++) {
-        double redSum = 0;
-        double greenSum = 0;
-        double blueSum = 0;
-        for (int i = -1; i <= 1; i++) {
-          for (int j = -1; j <= 1; j++) {
-            int neighborY = y + i;
-            int neighborX = x + j;
-
-            if (neighborY >= 0 && neighborY < height && neighborX >= 0 && neighborX < width) {
-              RGBPixel neighborPixel = (RGBPixel) input[neighborY][neighborX];
-
-              double filterValue = filter[i + 1][j + 1];
-
-              redSum += neighborPixel.getRed() * filterValue;
-              greenSum += neighborPixel.getGreen() * filterValue;
-              blueSum += neighborPixel.getBlue() * filterValue;
-            }
-          }
-        }
-
-        int red = (int) Math.round(redSum);
-        int green = (int) Math.round(greenSum);
-        int blue = (int) Math.round(blueSum);
+        blurredPixels[y][x] = filterPixel(input, y, x, filter);
+      }
+      task.advance(1);
+    }
 
-        red = Math.max(0, Math.min(255, red));
-        green = Math.max(0, Math.min(255, green));
-        blue = Math.max(0, Math.min(255, blue));
+    return blurredPixels;
+  }
 
-        blurredPixels[y][x] = new RGBPixel(red, green, blue);
+  /**
+   * Applies the filtering operation to the pixels inside the given region only, reading their
+   * neighbours from the whole input image.
+   *
+   * @param input  a 2D array representing the input image, where each element is a
+   *               {@code Pixels} object (typically {@code RGBPixel}).
+   * @param region the region to filter, which is clipped to the image
+   * @return a 2D array of {@code RGBPixel} objects holding the filtered region and the source
+   *         pixels outside it
+   * @throws IllegalArgumentException if the input image is invalid or contains non-{@code RGBPixel}
+   *                                  objects
+   */
+  @Override
+  public Pixels[][] apply(Pixels[][] input, Region region) {
+    double[][] filter = getFilter();
+    Region clipped = region.clip(input);
+    Pixels[][] blurredPixels = clipped.copyForWrite(input);
+
+    TaskContext.Task task = TaskContext.current()
+        .begin(getClass().getSimpleName(), clipped.getHeight());
+    for (int y = clipped.getY(); y < clipped.getEndY(); y++) {
+      for (int x = clipped.getX(); x < clipped.getEndX(); x++) {
+        blurredPixels[y][x] = filterPixel(input, y, x, filter);
       }
+      task.advance(1);
     }
 
     return blurredPixels;
   }
 
+  /**
+   * Computes the filtered value of a single pixel from its neighbours inside the image.
+   *
+   * @param input  the input image
+   * @param y      the row of the pixel
+   * @param x      the column of the pixel
+   * @param filter the 3x3 filter matrix
+   * @return the filtered pixel
+   */
+  private RGBPixel filterPixel(Pixels[][] input, int y, int x, double[][] filter) {
+    int height = input.length;
+    int width = input[0].length;
+    double redSum = 0;
+    double greenSum = 0;
+    double blueSum = 0;
+    for (int i = -1; i <= 1; i++) {
+      for (int j = -1; j <= 1; j++) {
+        int neighborY = y + i;
+        int neighborX = x + j;
+
+        if (neighborY >= 0 && neighborY < height && neighborX >= 0 && neighborX < width) {
+          RGBPixel neighborPixel = (RGBPixel) input[neighborY][neighborX];
+
+          double filterValue = filter[i + 1][j + 1];
+
+          redSum += neighborPixel.getRed() * filterValue;
+          greenSum += neighborPixel.getGreen() * filterValue;
+          blueSum += neighborPixel.getBlue() * filterValue;
+        }
+      }
+    }
+
+    int red = (int) Math.round(redSum);
+    int green = (int) Math.round(greenSum);
+    int blue = (int) Math.round(blueSum);
+
+    red = Math.max(0, Math.min(255, red));
+    green = Math.max(0, Math.min(255, green));
+    blue = Math.max(0, Math.min(255, blue));
+
+    return RGBPixel.of(red, green, blue);
+  }
+
   /**
    * Abstract method to obtain the filter matrix (kernel) for the filtering operation. Subclasses
    * must implement this method to define the specific filter matrix that will be applied to the
@@ -0,0 +1,70 @@
+package model.imageview;
+
+import model.colorscheme.Pixels;
+import model.colorscheme.RGBPixel;
+
+/**
+ * An {@code ArrayView} is the view of an image that is already held in an array of pixels. It is
+ * the view that other views are stacked on.
+ */
+public class ArrayView implements ImageView {
+
+  private final Pixels[][] pixels;
+
+  /**
+   * Constructs a view of the given pixels.
+   *
+   * @param pixels the pixels of the image
+   * @throws IllegalArgumentException if the pixels are null
+   */
+  public ArrayView(Pixels[][] pixels) {
+    if (pixels == null) {
+      throw new IllegalArgumentException("Input pixel array cannot be null.");
+    }
+    this.pixels = pixels;
+  }
+
+  @Override
+  public int getWidth() {
+    return pixels.length == 0 ? 0 : pixels[0].length;
+  }
+
+  @Override
+  public int getHeight() {
+    return pixels.length;
+  }
+
+  @Override
+  public Pixels getPixel(int row, int column) {
+    return pixels[row][column];
+  }
+
+  /**
+   * Packs one row of the array, reading every pixel once instead of once per channel.
+   *
+   * @param row the row to read
+   * @param rgb receives the packed value of every column
+   * @throws IllegalArgumentException if a pixel is not an instance of {@code RGBPixel}
+   */
+  @Override
+  public void getRGBRow(int row, int[] rgb) {
+    Pixels[] source = pixels[row];
+    for (int j = 0; j < source.length; j++) {
+      if (!(source[j] instanceof RGBPixel)) {
+        throw new IllegalArgumentException("Expected an RGBPixel.");
+      }
+      RGBPixel pixel = (RGBPixel) source[j];
+      rgb[j] = (pixel.getRed() << 16) | (pixel.getGreen() << 8) | pixel.getBlue();
+    }
+  }
+
+  /**
+   * Returns the array this view was created from, since it is already contiguous.
+   *
+   * @return the pixels of the image
+   */
+  @Override
+  public Pixels[][] materialize() {
+    return pixels;
+  }
+}
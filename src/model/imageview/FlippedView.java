@@ -0,0 +1,48 @@
+package model.imageview;
+
+import model.colorscheme.Pixels;
+import model.imagetransformation.basicoperation.Flip.Direction;
+
+/**
+ * A {@code FlippedView} shows another view mirrored horizontally (left-right) or vertically
+ * (top-bottom), by reading the mirrored row or column of the source.
+ */
+public class FlippedView implements ImageView {
+
+  private final ImageView source;
+  private final Direction direction;
+
+  /**
+   * Constructs a view of the source flipped in the given direction.
+   *
+   * @param source    the view to flip
+   * @param direction the direction to flip the view, either {@code HORIZONTAL} or
+   *                  {@code VERTICAL}
+   * @throws IllegalArgumentException if the source or the direction is null
+   */
+  public FlippedView(ImageView source, Direction direction) {
+    if (source == null || direction == null) {
+      throw new IllegalArgumentException("Source view and direction cannot be null.");
+    }
+    this.source = source;
+    this.direction = direction;
+  }
+
+  @Override
+  public int getWidth() {
+    return source.getWidth();
+  }
+
+  @Override
+  public int getHeight() {
+    return source.getHeight();
+  }
+
+  @Override
+  public Pixels getPixel(int row, int column) {
+    if (direction == Direction.HORIZONTAL) {
+      return source.getPixel(row, source.getWidth() - 1 - column);
+    }
+    return source.getPixel(source.getHeight() - 1 - row, column);
+  }
+}
@@ -0,0 +1,124 @@
+package model.imageview;
+
+import model.colorscheme.Pixels;
+import model.colorscheme.RGBPixel;
+
+/**
+ * A {@code GreyscaleImage} is an image whose red, green and blue values are always equal, stored
+ * as a single 8-bit value per pixel instead of an {@link RGBPixel} per pixel. Component
+ * extraction and channel splitting produce greyscale images, and combining channels, masking,
+ * saving and displaying read the values directly. The image is only expanded into pixels by
+ * {@link #materialize()} when an operation needs an array of pixels.
+ *
+ * <p>The values are filled in by the operation that creates the image, and are not modified once
+ * the image has been stored.</p>
+ */
+public class GreyscaleImage implements ImageView {
+
+  private final int width;
+  private final int height;
+  private final byte[] values;
+
+  /**
+   * Constructs a black greyscale image of the given size.
+   *
+   * @param width  the number of columns in the image
+   * @param height the number of rows in the image
+   * @throws IllegalArgumentException if the width or height is negative
+   */
+  public GreyscaleImage(int width, int height) {
+    if (width < 0 || height < 0) {
+      throw new IllegalArgumentException("Image width and height cannot be negative.");
+    }
+    this.width = width;
+    this.height = height;
+    this.values = new byte[width * height];
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns the grey value of the pixel at the given row and column.
+   *
+   * @param row    the row of the pixel
+   * @param column the column of the pixel
+   * @return the grey value (0-255)
+   */
+  public int getValue(int row, int column) {
+    return values[row * width + column] & 0xFF;
+  }
+
+  /**
+   * Sets the grey value of the pixel at the given row and column.
+   *
+   * @param row    the row of the pixel
+   * @param column the column of the pixel
+   * @param value  the grey value (0-255)
+   */
+  public void setValue(int row, int column, int value) {
+    values[row * width + column] = (byte) value;
+  }
+
+  @Override
+  public Pixels getPixel(int row, int column) {
+    int value = getValue(row, column);
+    return RGBPixel.of(value, value, value);
+  }
+
+  /**
+   * Returns the grey value of the pixel at the given row and column, which is the value of every
+   * channel.
+   *
+   * @param row     the row of the pixel
+   * @param column  the column of the pixel
+   * @param channel the channel to read (0 for red, 1 for green, 2 for blue)
+   * @return the grey value (0-255)
+   * @throws IllegalArgumentException if the channel is invalid
+   */
+  @Override
+  public int getSample(int row, int column, int channel) {
+    if (channel < 0 || channel > 2) {
+      throw new IllegalArgumentException("Invalid channel: must be 0, 1, or 2.");
+    }
+    return getValue(row, column);
+  }
+
+  /**
+   * Packs one row of the image, repeating every grey value in the three channels.
+   *
+   * @param row the row to read
+   * @param rgb receives the packed value of every column
+   */
+  @Override
+  public void getRGBRow(int row, int[] rgb) {
+    int offset = row * width;
+    for (int j = 0; j < width; j++) {
+      rgb[j] = (values[offset + j] & 0xFF) * 0x010101;
+    }
+  }
+
+  /**
+   * Expands the image into a new array of grey pixels.
+   *
+   * @return a 2D array of {@code RGBPixel} whose red, green and blue values are the grey values
+   */
+  @Override
+  public Pixels[][] materialize() {
+    Pixels[][] pixels = new RGBPixel[height][width];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        int value = values[i * width + j] & 0xFF;
+        pixels[i][j] = RGBPixel.of(value, value, value);
+      }
+    }
+    return pixels;
+  }
+}
@@ -0,0 +1,102 @@
+package model.imageview;
+
+import model.colorscheme.Pixels;
+import model.colorscheme.RGBPixel;
+
+/**
+ * An {@code ImageView} is a read-only image whose pixels are worked out on demand from another
+ * image, instead of being copied into a new array. Views can be stacked, so a chain of geometric
+ * and channel operations only remaps indices until the result is needed, and is then produced in
+ * a single pass by {@link #materialize()}.
+ *
+ * <p>A view reads the arrays it was created from every time a pixel is requested, so those arrays
+ * must not be modified while the view is in use.</p>
+ */
+public interface ImageView {
+
+  /**
+   * Returns the number of columns in the view.
+   *
+   * @return the width of the view
+   */
+  int getWidth();
+
+  /**
+   * Returns the number of rows in the view.
+   *
+   * @return the height of the view
+   */
+  int getHeight();
+
+  /**
+   * Returns the pixel at the given row and column of the view.
+   *
+   * @param row    the row of the pixel
+   * @param column the column of the pixel
+   * @return the pixel
+   */
+  Pixels getPixel(int row, int column);
+
+  /**
+   * Returns one color channel of the pixel at the given row and column of the view. Views that
+   * store their channels directly override this to avoid creating a pixel.
+   *
+   * @param row     the row of the pixel
+   * @param column  the column of the pixel
+   * @param channel the channel to read (0 for red, 1 for green, 2 for blue)
+   * @return the value of the channel (0-255)
+   * @throws IllegalArgumentException if the pixel is not an instance of {@code RGBPixel}, or the
+   *                                  channel is invalid
+   */
+  default int getSample(int row, int column, int channel) {
+    Pixels pixel = getPixel(row, column);
+    if (!(pixel instanceof RGBPixel)) {
+      throw new IllegalArgumentException("Expected an RGBPixel.");
+    }
+    RGBPixel rgbPixel = (RGBPixel) pixel;
+    switch (channel) {
+      case 0:
+        return rgbPixel.getRed();
+      case 1:
+        return rgbPixel.getGreen();
+      case 2:
+        return rgbPixel.getBlue();
+      default:
+        throw new IllegalArgumentException("Invalid channel: must be 0, 1, or 2.");
+    }
+  }
+
+  /**
+   * Packs the red, green and blue values of one row of the view into {@code 0xRRGGBB} values, the
+   * layout of an RGB {@code BufferedImage}. Views that can read a whole row without looking up
+   * every channel separately override this.
+   *
+   * @param row the row to read
+   * @param rgb receives the packed value of every column, and must be at least as long as the
+   *            width of the view
+   * @throws IllegalArgumentException if a pixel is not an instance of {@code RGBPixel}
+   */
+  default void getRGBRow(int row, int[] rgb) {
+    int width = getWidth();
+    for (int j = 0; j < width; j++) {
+      rgb[j] = (getSample(row, j, 0) << 16) | (getSample(row, j, 1) << 8) | getSample(row, j, 2);
+    }
+  }
+
+  /**
+   * Copies the view into a new array of pixels, reading every pixel once.
+   *
+   * @return a 2D array of {@code RGBPixel} holding the pixels of the view
+   */
+  default Pixels[][] materialize() {
+    int height = getHeight();
+    int width = getWidth();
+    Pixels[][] pixels = new RGBPixel[height][width];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        pixels[i][j] = getPixel(i, j);
+      }
+    }
+    return pixels;
+  }
+}
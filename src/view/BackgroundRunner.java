@@ -0,0 +1,191 @@
+package view;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.swing.JButton;
+import javax.swing.JProgressBar;
+import javax.swing.SwingWorker;
+import model.TaskContext;
+
+/**
+ * The {@code BackgroundRunner} class runs the operations started from the GUI on a background
+ * thread, so the window stays responsive while a large image is processed, and shows their
+ * progress in a progress bar with a button to cancel them.
+ *
+ * <p>The model is not thread-safe, so operations run one at a time, in the order they were
+ * submitted. An operation submitted while another one is waiting under the same name replaces
+ * it, so clicking a button repeatedly or dragging a slider queues only the latest request. Each
+ * operation runs in its own {@link TaskContext}, which reports its progress to the progress bar
+ * and is cancelled by the cancel button, together with every operation still waiting.</p>
+ *
+ * <p>Operations are submitted, and their results handed over, on the event dispatch thread.</p>
+ */
+public final class BackgroundRunner {
+
+  private static final String IDLE = "Ready";
+
+  private final JProgressBar progressBar;
+  private final JButton cancelButton;
+  private final Consumer<String> errorHandler;
+  private final Deque<Job<?>> pending = new ArrayDeque<>();
+  private Job<?> running;
+
+  /**
+   * Constructs a runner that shows its progress in the given components.
+   *
+   * @param progressBar  the progress bar showing the running operation
+   * @param cancelButton the button cancelling the running and waiting operations
+   * @param errorHandler shows the message of an operation that failed
+   */
+  public BackgroundRunner(JProgressBar progressBar, JButton cancelButton,
+      Consumer<String> errorHandler) {
+    this.progressBar = progressBar;
+    this.cancelButton = cancelButton;
+    this.errorHandler = errorHandler;
+    progressBar.setStringPainted(true);
+    cancelButton.addActionListener(e -> cancel());
+    showIdle(IDLE);
+  }
+
+  /**
+   * Runs an operation in the background.
+   *
+   * @param name the name of the operation, shown in the progress bar and used to coalesce
+   *             requests
+   * @param work the operation
+   */
+  public void submit(String name, Runnable work) {
+    submit(name, () -> {
+      work.run();
+      return null;
+    }, result -> {
+    });
+  }
+
+  /**
+   * Runs an operation in the background and hands its result to the event dispatch thread.
+   *
+   * @param name   the name of the operation, shown in the progress bar and used to coalesce
+   *               requests
+   * @param work   the operation
+   * @param onDone receives the result of the operation on the event dispatch thread, unless it
+   *               failed or was cancelled
+   * @param <T>    the type of the result
+   */
+  public <T> void submit(String name, Supplier<T> work, Consumer<? super T> onDone) {
+    Job<?> last = pending.peekLast();
+    if (last != null && last.name.equals(name)) {
+      pending.pollLast();
+    }
+    pending.addLast(new Job<>(name, work, onDone));
+    startNext();
+  }
+
+  /**
+   * Cancels the running operation, which stops at its next unit of work, and drops every
+   * operation still waiting.
+   */
+  public void cancel() {
+    pending.clear();
+    if (running != null) {
+      running.context.cancel();
+    }
+  }
+
+  /**
+   * Checks whether an operation is running or waiting.
+   *
+   * @return {@code true} if an operation is running or waiting
+   */
+  public boolean isBusy() {
+    return running != null || !pending.isEmpty();
+  }
+
+  /**
+   * Starts the next waiting operation, unless one is running.
+   */
+  private void startNext() {
+    if (running != null || pending.isEmpty()) {
+      return;
+    }
+    running = pending.pollFirst();
+    progressBar.setIndeterminate(true);
+    progressBar.setString(running.name);
+    cancelButton.setEnabled(true);
+    running.execute();
+  }
+
+  /**
+   * Resets the progress bar and the cancel button once nothing is running.
+   *
+   * @param status the text to show in the progress bar
+   */
+  private void showIdle(String status) {
+    progressBar.setIndeterminate(false);
+    progressBar.setValue(0);
+    progressBar.setString(status);
+    cancelButton.setEnabled(false);
+  }
+
+  /**
+   * An operation run in the background, in its own task context.
+   *
+   * @param <T> the type of the result
+   */
+  private final class Job<T> extends SwingWorker<T, Integer> {
+
+    private final String name;
+    private final Supplier<T> work;
+    private final Consumer<? super T> onDone;
+    private final TaskContext context = new TaskContext(
+        (task, done, total) -> publish((int) (done * 100 / total)));
+
+    private Job(String name, Supplier<T> work, Consumer<? super T> onDone) {
+      this.name = name;
+      this.work = work;
+      this.onDone = onDone;
+    }
+
+    @Override
+    protected T doInBackground() {
+      AtomicReference<T> result = new AtomicReference<>();
+      context.run(() -> result.set(work.get()));
+      context.checkCancelled();
+      return result.get();
+    }
+
+    @Override
+    protected void process(List<Integer> percents) {
+      int percent = percents.get(percents.size() - 1);
+      progressBar.setIndeterminate(false);
+      progressBar.setValue(percent);
+      progressBar.setString(name + " " + percent + "%");
+    }
+
+    @Override
+    protected void done() {
+      running = null;
+      String status = IDLE;
+      try {
+        onDone.accept(get());
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof CancellationException) {
+          status = name + " cancelled";
+        } else {
+          errorHandler.accept("An unexpected error occurred: " + e.getCause().getMessage());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        showIdle(status);
+        startNext();
+      }
+    }
+  }
+}
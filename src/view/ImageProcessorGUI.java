@@ -8,6 +8,7 @@ import java.awt.FlowLayout;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.GridLayout;
+import java.awt.Image;
 import java.awt.Insets;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
@@ -23,14 +24,23 @@ import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.JSlider;
+import javax.swing.SwingUtilities;
+import model.TaskContext;
 import model.imagetransformation.basicoperation.Flip.Direction;
 
 /**
  * A GUI-based image processor application that allows users to load, edit, and save images. This
  * class provides a graphical interface with various image manipulation operations such as flipping,
  * color adjustment, compression, and previews of edits before applying them.
+ *
+ * <p>Operations run on a background thread through a {@link BackgroundRunner}, which shows their
+ * progress at the bottom of the window and lets the user cancel them, so the window stays
+ * responsive while a large image is processed. The methods the controller calls back, such as
+ * {@link #displayImage(BufferedImage)} and {@link #showError(String)}, may therefore be called
+ * from that thread, and hand their updates over to the event dispatch thread.</p>
  */
 public class ImageProcessorGUI extends JFrame implements ImageProcessorGUIInterface {
 
@@ -42,6 +52,10 @@ public class ImageProcessorGUI extends JFrame implements ImageProcessorGUIInterf
   private final JCheckBox previewSepiaCheckbox;
   private final JCheckBox previewGreyscaleCheckbox;
   private final JCheckBox previewLevelsAdjustCheckbox;
+  private final BackgroundRunner runner;
+  // The key of the latest image, read by the model after every operation and handed over to the
+  // event dispatch thread, which must not read the model while an operation may be writing to it
+  private String latestKey;
   String black;
   String white;
   String mid;
@@ -89,32 +103,43 @@ public class ImageProcessorGUI extends JFrame implements ImageProcessorGUIInterf
     previewGreyscaleCheckbox = new JCheckBox("Preview");
     previewLevelsAdjustCheckbox = new JCheckBox("Preview");
 
+    JProgressBar progressBar = new JProgressBar(0, 100);
+    JButton cancelButton = new JButton("Cancel");
+    runner = new BackgroundRunner(progressBar, cancelButton, this::showError);
+
     loadButton.addActionListener(e -> handleLoad(this));
     saveButton.addActionListener(
-        e -> handleSave(new String[]{"save", "output.png", controller.getLatestKey()}));
-    undoButton.addActionListener(e -> controller.handleUndo());
-    originalImageButton.addActionListener(e -> controller.handleShowOriginalImage());
+        e -> handleSave(new String[]{"save", "output.png", latestKey}));
+    undoButton.addActionListener(e -> submit("Undo", controller::handleUndo));
+    originalImageButton.addActionListener(
+        e -> submit("Revert", controller::handleShowOriginalImage));
     brightenButton.addActionListener(e -> handleBrighten());
-    horizontalFlipButton.addActionListener(e -> controller.handleFlip(
-        new String[]{"flip", controller.getLatestKey(), "HORIZONTAL".toLowerCase()},
-        Direction.HORIZONTAL));
-    verticalFlipButton.addActionListener(e -> controller.handleFlip(
-        new String[]{"flip", controller.getLatestKey(), "VERTICAL".toLowerCase()},
-        Direction.VERTICAL));
-    redComponentButton.addActionListener(e -> controller.applyOperation(
-        new String[]{"red-component", controller.getLatestKey(), "red-component"}));
-    greenComponentButton.addActionListener(e -> controller.applyOperation(
-        new String[]{"green-component", controller.getLatestKey(), "green-component"}));
-    blueComponentButton.addActionListener(e -> controller.applyOperation(
-        new String[]{"blue-component", controller.getLatestKey(), "blue-component"}));
+    horizontalFlipButton.addActionListener(e -> submit("Horizontal Flip",
+        () -> controller.handleFlip(
+            new String[]{"flip", controller.getLatestKey(), "HORIZONTAL".toLowerCase()},
+            Direction.HORIZONTAL)));
+    verticalFlipButton.addActionListener(e -> submit("Vertical Flip",
+        () -> controller.handleFlip(
+            new String[]{"flip", controller.getLatestKey(), "VERTICAL".toLowerCase()},
+            Direction.VERTICAL)));
+    redComponentButton.addActionListener(e -> submit("Red Component",
+        () -> controller.applyOperation(
+            new String[]{"red-component", controller.getLatestKey(), "red-component"})));
+    greenComponentButton.addActionListener(e -> submit("Green Component",
+        () -> controller.applyOperation(
+            new String[]{"green-component", controller.getLatestKey(), "green-component"})));
+    blueComponentButton.addActionListener(e -> submit("Blue Component",
+        () -> controller.applyOperation(
+            new String[]{"blue-component", controller.getLatestKey(), "blue-component"})));
     compressButton.addActionListener(e -> handleCompression());
     blurButton.addActionListener(e -> handleOperationWithPreview("Blur"));
     sharpenButton.addActionListener(e -> handleOperationWithPreview("Sharpen"));
     greyscaleButton.addActionListener(e -> handleOperationWithPreview("Greyscale"));
     sepiaButton.addActionListener(e -> handleOperationWithPreview("Sepia"));
     levelsAdjustButton.addActionListener(e -> handleLevelAdjustWithPreview());
-    colorCorrectionButton.addActionListener(e -> controller.applyOperation(
-        new String[]{"color-correction", controller.getLatestKey(), "color-correction"}));
+    colorCorrectionButton.addActionListener(e -> submit("Color Correction",
+        () -> controller.applyOperation(
+            new String[]{"color-correction", controller.getLatestKey(), "color-correction"})));
     downscale.addActionListener(e -> handleDownscale());
     exitButton.addActionListener(e -> handleExit());
 
@@ -160,6 +185,11 @@ public class ImageProcessorGUI extends JFrame implements ImageProcessorGUIInterf
 
     add(imagePanel, BorderLayout.CENTER);
 
+    JPanel statusPanel = new JPanel(new BorderLayout(10, 0));
+    statusPanel.add(progressBar, BorderLayout.CENTER);
+    statusPanel.add(cancelButton, BorderLayout.EAST);
+    add(statusPanel, BorderLayout.SOUTH);
+
     setVisible(true);
   }
 
@@ -192,24 +222,61 @@ public class ImageProcessorGUI extends JFrame implements ImageProcessorGUIInterf
 
 
   /**
-   * Displays an error message in a dialog box.
+   * Runs an operation in the background, and hands the key of the latest image over to the event
+   * dispatch thread once it is done, whether or not it succeeded.
+   *
+   * @param name The name of the operation.
+   * @param work The operation.
+   */
+  private void submit(String name, Runnable work) {
+    runner.submit(name, () -> {
+      try {
+        work.run();
+      } finally {
+        String key = controller.getLatestKey();
+        SwingUtilities.invokeLater(() -> latestKey = key);
+      }
+    });
+  }
+
+  /**
+   * Runs an update of the window on the event dispatch thread, straight away if this is it.
+   *
+   * @param update The update to run.
+   */
+  private static void onEdt(Runnable update) {
+    if (SwingUtilities.isEventDispatchThread()) {
+      update.run();
+    } else {
+      SwingUtilities.invokeLater(update);
+    }
+  }
+
+  /**
+   * Displays an error message in a dialog box. Errors reported by an operation the user has
+   * cancelled are only the consequence of cancelling it, so they are not shown.
    *
    * @param message The error message to display.
    */
 
   @Override
   public void showError(String message) {
-    JOptionPane.showMessageDialog(null, message, "Error", JOptionPane.ERROR_MESSAGE);
+    if (TaskContext.current().isCancelled()) {
+      return;
+    }
+    onEdt(() -> JOptionPane.showMessageDialog(null, message, "Error",
+        JOptionPane.ERROR_MESSAGE));
   }
 
   /**
-   * Displays the given image in the main image display area of the GUI.
+   * Displays the given image in the main image display area of the GUI. The histogram is worked
+   * out on the calling thread, so it does not hold up the event dispatch thread.
    *
    * @param image The BufferedImage to be displayed.
    */
   @Override
   public void displayImage(BufferedImage image) {
-    imageLabel.setIcon(new ImageIcon(image));
+    onEdt(() -> imageLabel.setIcon(new ImageIcon(image)));
     controller.applyHistogram(new String[]{"histogram"});
   }
 
@@ -220,7 +287,7 @@ public class ImageProcessorGUI extends JFrame implements ImageProcessorGUIInterf
    */
   @Override
   public void displayHistogram(BufferedImage histogram) {
-    histogramLabel.setIcon(new ImageIcon(histogram));
+    onEdt(() -> histogramLabel.setIcon(new ImageIcon(histogram)));
   }
 
 
@@ -231,8 +298,8 @@ public class ImageProcessorGUI extends JFrame implements ImageProcessorGUIInterf
   private void handleBrighten() {
     String factor = JOptionPane.showInputDialog("Enter brightness factor:");
     if (factor != null) {
-      controller.handleBrighten(
-          new String[]{"brighten", factor, controller.getLatestKey(), "brightened"});
+      submit("Brighten", () -> controller.handleBrighten(
+          new String[]{"brighten", factor, controller.getLatestKey(), "brightened"}));
     }
   }
 
@@ -241,7 +308,7 @@ public class ImageProcessorGUI extends JFrame implements ImageProcessorGUIInterf
    * before exiting or directly closes the application.
    */
   private void handleExit() {
-    String latest = controller.getLatestKey(); // Retrieve the latest image key
+    String latest = latestKey; // Retrieve the latest image key
     if (latest != null && !latest.isEmpty()) {
       int option = JOptionPane.showConfirmDialog(
           this,
@@ -252,8 +319,8 @@ public class ImageProcessorGUI extends JFrame implements ImageProcessorGUIInterf
       );
 
       if (option == JOptionPane.YES_OPTION) {
-        handleSave(new String[]{"save", "output.png", latest}); // Save the current image
-        System.exit(0); // Exit the application
+        // Save the current image, and exit once it is saved
+        handleSave(new String[]{"save", "output.png", latest}, () -> System.exit(0));
       } else if (option == JOptionPane.NO_OPTION) {
         System.exit(0); // Exit without saving
       }
@@ -279,7 +346,7 @@ public class ImageProcessorGUI extends JFrame implements ImageProcessorGUIInterf
   private void handleDownscale() {
     String width = JOptionPane.showInputDialog("Enter new width:");
     String height = JOptionPane.showInputDialog("Enter new height:");
-    controller.handleDownscale(width, height);
+    submit("Downscale", () -> controller.handleDownscale(width, height));
   }
 
   /**
@@ -293,14 +360,15 @@ public class ImageProcessorGUI extends JFrame implements ImageProcessorGUIInterf
     if (previewCheckbox.isSelected()) {
       int splitPercentage = getSplitPercentage();
       if (splitPercentage != -1) {
-        controller.handleSplit(
-            new String[]{operation.toLowerCase(), String.valueOf(splitPercentage)});
+        submit(operation + " Preview", () -> controller.handleSplit(
+            new String[]{operation.toLowerCase(), String.valueOf(splitPercentage)}));
       } else {
         JOptionPane.showMessageDialog(this, "Operation canceled", "Error",
             JOptionPane.ERROR_MESSAGE);
       }
     } else {
-      controller.applyOperation(new String[]{operation.toLowerCase()});
+      submit(operation,
+          () -> controller.applyOperation(new String[]{operation.toLowerCase()}));
     }
   }
 
@@ -406,17 +474,19 @@ public class ImageProcessorGUI extends JFrame implements ImageProcessorGUIInterf
    */
   @Override
   public void addWindowListenerToGUI() {
-    addWindowListener(new WindowAdapter() {
+    onEdt(() -> addWindowListener(new WindowAdapter() {
       @Override
       public void windowClosing(WindowEvent e) {
-        String latest = controller.getLatestKey();
+        String latest = latestKey;
         if (latest != null && !latest.isEmpty()) {
           int option = JOptionPane.showConfirmDialog(null,
               "Do you want to save the current image before closing?",
               "Save Image", JOptionPane.YES_NO_OPTION);
 
           if (option == JOptionPane.YES_OPTION) {
-            handleSave(new String[]{"save", "output.png", latest});
+            // The image is saved in the background, so exit once it is saved
+            setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+            handleSave(new String[]{"save", "output.png", latest}, () -> System.exit(0));
           } else if (option == JOptionPane.NO_OPTION) {
             dispose();
           }
@@ -424,18 +494,29 @@ public class ImageProcessorGUI extends JFrame implements ImageProcessorGUIInterf
           dispose();
         }
       }
-    });
+    }));
   }
 
 
   /**
    * Shows a preview of the specified image and operation in a dialog, with options to apply,
-   * cancel, or go back to adjust settings.
+   * cancel, or go back to adjust settings. The dialog is opened on the event dispatch thread.
    *
    * @param image     The preview image to display.
    * @param operation The operation associated with the preview.
    */
+  @Override
   public void showPreview(BufferedImage image, String operation) {
+    onEdt(() -> showPreviewDialog(image, operation));
+  }
+
+  /**
+   * Shows the dialog of {@link #showPreview(BufferedImage, String)}.
+   *
+   * @param image     The preview image to display.
+   * @param operation The operation associated with the preview.
+   */
+  private void showPreviewDialog(BufferedImage image, String operation) {
     if (image != null) {
       JLabel previewLabel = new JLabel(new ImageIcon(image));
       JScrollPane scrollPane = new JScrollPane(previewLabel);
@@ -461,14 +542,15 @@ public class ImageProcessorGUI extends JFrame implements ImageProcessorGUIInterf
 
       if (!Objects.equals(operation, "levels-adjust")) {
         applyButton.addActionListener(e -> {
-          controller.applyOperation(new String[]{
+          submit(operation, () -> controller.applyOperation(new String[]{
               operation.toLowerCase(), controller.getLatestKey(), operation.toLowerCase()
-          });
+          }));
           dialog.dispose();
         });
       } else {
         applyButton.addActionListener(e -> {
-          controller.handleLevelsAdjust(new String[]{black, mid, white});
+          String[] levels = {black, mid, white};
+          submit(operation, () -> controller.handleLevelsAdjust(levels));
           dialog.dispose();
         });
       }
@@ -477,8 +559,8 @@ public class ImageProcessorGUI extends JFrame implements ImageProcessorGUIInterf
         dialog.dispose();
         int splitPercentage = getSplitPercentage();
         if (splitPercentage != -1) {
-          controller.handleSplit(
-              new String[]{operation.toLowerCase(), String.valueOf(splitPercentage)});
+          submit(operation + " Preview", () -> controller.handleSplit(
+              new String[]{operation.toLowerCase(), String.valueOf(splitPercentage)}));
         }
       });
 
@@ -501,7 +583,8 @@ public class ImageProcessorGUI extends JFrame implements ImageProcessorGUIInterf
     white = JOptionPane.showInputDialog("Enter white level (0-255):");
 
     if (black != null && mid != null && white != null) {
-      controller.handleLevelsAdjust(new String[]{black, mid, white});
+      String[] levels = {black, mid, white};
+      submit("Levels Adjust", () -> controller.handleLevelsAdjust(levels));
     }
   }
 
@@ -516,29 +599,114 @@ public class ImageProcessorGUI extends JFrame implements ImageProcessorGUIInterf
     String white = JOptionPane.showInputDialog("Enter white level (0-255):");
     String percentageStr = String.valueOf(percentage);
     if (black != null && mid != null && white != null) {
-      controller.handleLevelsAdjust(new String[]{black, mid, white, percentageStr});
+      submit("Levels Adjust Preview", () -> controller.handleLevelsAdjust(
+          new String[]{black, mid, white, percentageStr}));
     }
   }
 
   /**
-   * Handles image compression by prompting the user for a compression ratio and applying the
-   * compression operation through the controller.
+   * Handles image compression by showing a slider for the compression ratio together with a live
+   * preview, and applying the compression operation through the controller once confirmed. While
+   * the slider is dragged the preview is rendered at a reduced resolution and scaled up, and it is
+   * refined to full resolution when the slider is released. Previews are rendered in the
+   * background, and only the latest position of the slider is rendered while one is running.
    */
   private void handleCompression() {
-    String ratio = JOptionPane.showInputDialog("Enter compression ratio (0-100):");
-    if (ratio != null) {
-      controller.handleCompression(
-          new String[]{"compress", ratio, controller.getLatestKey(), "compressed"});
-    }
+    runner.submit("Compression Preview", () -> {
+      try {
+        return controller.previewCompression(50, false);
+      } catch (IllegalArgumentException e) {
+        return null;
+      }
+    }, initialPreview -> {
+      if (initialPreview == null) {
+        showError("No image loaded to compress. Please load an image first.");
+      } else {
+        showCompressionDialog(initialPreview);
+      }
+    });
+  }
+
+  /**
+   * Shows the dialog of {@link #handleCompression()}, starting from a preview at a ratio of 50.
+   *
+   * @param initialPreview The preview of the image compressed at a ratio of 50.
+   */
+  private void showCompressionDialog(BufferedImage initialPreview) {
+    int previewWidth = initialPreview.getWidth();
+    int previewHeight = initialPreview.getHeight();
+
+    JSlider slider = new JSlider(0, 100, 50);
+    slider.setMajorTickSpacing(10);
+    slider.setPaintTicks(true);
+    slider.setPaintLabels(true);
+
+    JLabel previewLabel = new JLabel(new ImageIcon(initialPreview));
+    JScrollPane scrollPane = new JScrollPane(previewLabel);
+    scrollPane.setPreferredSize(new Dimension(600, 600));
+
+    slider.addChangeListener(e -> {
+      int ratio = slider.getValue();
+      boolean draft = slider.getValueIsAdjusting();
+      runner.submit("Compression Preview", () -> controller.previewCompression(ratio, draft),
+          preview -> {
+            if (preview.getWidth() == previewWidth && preview.getHeight() == previewHeight) {
+              previewLabel.setIcon(new ImageIcon(preview));
+            } else {
+              previewLabel.setIcon(new ImageIcon(
+                  preview.getScaledInstance(previewWidth, previewHeight, Image.SCALE_FAST)));
+            }
+          });
+    });
+
+    JButton applyButton = new JButton("Apply");
+    JButton cancelButton = new JButton("Cancel");
+
+    JPanel buttonPanel = new JPanel();
+    buttonPanel.add(applyButton);
+    buttonPanel.add(cancelButton);
+
+    JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
+    mainPanel.add(scrollPane, BorderLayout.CENTER);
+    mainPanel.add(slider, BorderLayout.NORTH);
+    mainPanel.add(buttonPanel, BorderLayout.SOUTH);
+
+    JDialog dialog = new JDialog(this, "Select Compression Ratio", true);
+    dialog.getContentPane().add(mainPanel);
+    dialog.pack();
+    dialog.setLocationRelativeTo(this);
+
+    applyButton.addActionListener(e -> {
+      String ratio = String.valueOf(slider.getValue());
+      submit("Compress", () -> controller.handleCompression(
+          new String[]{"compress", ratio, controller.getLatestKey(), "compressed"}));
+      dialog.dispose();
+    });
+
+    cancelButton.addActionListener(e -> dialog.dispose());
+
+    dialog.setVisible(true);
   }
 
   /**
-   * Displays a preview of levels adjustment, allowing the user to apply, go back, or cancel.
+   * Displays a preview of levels adjustment, allowing the user to apply, go back, or cancel. The
+   * dialog is opened on the event dispatch thread.
    *
    * @param image The preview image to display.
    * @param args  The levels adjustment parameters (black, mid, white).
    */
+  @Override
   public void showPreviewLevelAdj(BufferedImage image, String[] args) {
+    onEdt(() -> showPreviewLevelAdjDialog(image, args));
+  }
+
+  /**
+   * Shows the dialog of {@link #showPreviewLevelAdj(BufferedImage, String[])}.
+   *
+   * @param image The preview image to display.
+   * @param args  The levels adjustment parameters (black, mid, white).
+   */
+  private void showPreviewLevelAdjDialog(BufferedImage image, String[] args) {
     if (image == null) {
       JOptionPane.showMessageDialog(this, "Unable to generate preview. Image is null.",
           "Error", JOptionPane.ERROR_MESSAGE);
@@ -568,7 +736,7 @@ public class ImageProcessorGUI extends JFrame implements ImageProcessorGUIInterf
     dialog.setLocationRelativeTo(this);
     String[] updatedString = new String[]{args[0], args[1], args[2]};
     applyButton.addActionListener(e -> {
-      controller.handleLevelsAdjust(updatedString);
+      submit("Levels Adjust", () -> controller.handleLevelsAdjust(updatedString));
       dialog.dispose();
     });
 
@@ -578,7 +746,8 @@ public class ImageProcessorGUI extends JFrame implements ImageProcessorGUIInterf
       String[] backButtonString = new String[]{args[0], args[1], args[2],
           String.valueOf(splitPercentage)};
       if (splitPercentage != -1) {
-        controller.handleLevelsAdjust(backButtonString);
+        submit("Levels Adjust Preview",
+            () -> controller.handleLevelsAdjust(backButtonString));
       }
     });
 
@@ -600,7 +769,7 @@ public class ImageProcessorGUI extends JFrame implements ImageProcessorGUIInterf
     if (returnValue == JFileChooser.APPROVE_OPTION) {
       File selectedFile = fileChooser.getSelectedFile();
       String filename = selectedFile.getAbsolutePath();
-      controller.handleLoad(this, "load1", filename);
+      submit("Load", () -> controller.handleLoad(this, "load1", filename));
     }
   }
 
@@ -617,8 +786,22 @@ public class ImageProcessorGUI extends JFrame implements ImageProcessorGUIInterf
    * @param args Optional arguments (currently unused) for specifying save configurations.
    */
   private void handleSave(String[] args) {
-    if (controller.getLatestKey() == null || controller.getLatestKey().isEmpty()) {
+    handleSave(args, () -> {
+    });
+  }
+
+  /**
+   * Handles the process of saving an image to a file, as {@link #handleSave(String[])} does, and
+   * runs an action on the event dispatch thread once the image is saved in the background, or if
+   * no image is loaded.
+   *
+   * @param args      Optional arguments (currently unused) for specifying save configurations.
+   * @param afterSave The action to run once the save is done.
+   */
+  private void handleSave(String[] args, Runnable afterSave) {
+    if (latestKey == null || latestKey.isEmpty()) {
       showError("No image loaded to save. Please load an image first.");
+      afterSave.run();
       return;
     }
 
@@ -642,7 +825,10 @@ public class ImageProcessorGUI extends JFrame implements ImageProcessorGUIInterf
     fileChooser.setFileFilter(pngFilter);
 
     int userSelection = fileChooser.showSaveDialog(null);
-    controller.handleSave(userSelection, fileChooser, pngFilter, jpgFilter, ppmFilter);
+    runner.submit("Save", () -> {
+      controller.handleSave(userSelection, fileChooser, pngFilter, jpgFilter, ppmFilter);
+      return null;
+    }, result -> afterSave.run());
 
   }
 }
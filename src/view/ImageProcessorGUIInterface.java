@@ -43,4 +43,12 @@ public interface ImageProcessorGUIInterface {
    *                  "sharpen").
    */
   void showPreview(BufferedImage image, String operation);
+
+  /**
+   * Displays a preview of a levels adjustment in the GUI.
+   *
+   * @param image The {@link BufferedImage} representing the image preview.
+   * @param args  The levels adjustment parameters (black, mid, white).
+   */
+  void showPreviewLevelAdj(BufferedImage image, String[] args);
 }
@@ -5,6 +5,7 @@ import static org.junit.Assert.assertEquals;
 import java.io.StringReader;
 import model.EnhancedImageModel;
 import model.colorscheme.Pixels;
+import model.imagetransformation.advancedoperations.Downscale;
 import model.imagetransformation.basicoperation.Flip.Direction;
 import org.junit.Before;
 import org.junit.Test;
@@ -179,6 +180,14 @@ public class ImageControllerMockTest {
           .append("\n");
     }
 
+    @Override
+    public void downscale(String key, int newWidth, int newHeight, String saveKey,
+        Downscale.Mode mode) {
+      output.append("Downscaled ").append(key).append(" to width: ").append(newWidth)
+          .append(" and height: ").append(newHeight).append(" with ").append(mode)
+          .append(" saved as ").append(saveKey).append("\n");
+    }
+
     @Override
     public void maskedOperation(String key, String operation, String maskKey, String saveKey) {
       output.append("Retrieved pixels with key: ").append(key).append("\n")
@@ -188,6 +197,27 @@ public class ImageControllerMockTest {
           .append(" saved as ").append(saveKey).append("\n");
     }
 
+    @Override
+    public void compress(String key, String saveKey, double compressionRatio, int levels) {
+      output.append("Applying compression to ").append(key).append(" with ratio ")
+          .append(compressionRatio).append(" and ").append(levels).append(" levels\n");
+    }
+
+    @Override
+    public void compressYCbCr(String key, String saveKey, double lumaRatio, double chromaRatio,
+        int levels) {
+      output.append("Applying YCbCr compression to ").append(key).append(" with luma ratio ")
+          .append(lumaRatio).append(", chroma ratio ").append(chromaRatio).append(" and ")
+          .append(levels).append(" levels\n");
+    }
+
+    @Override
+    public Pixels[][] previewCompression(String key, double compressionRatio, int levels,
+        int reduction) {
+      output.append("Previewing compression of ").append(key).append("\n");
+      return new Pixels[0][0];
+    }
+
     @Override
     public String getLatestKey() {
       return "";
@@ -390,5 +420,36 @@ public class ImageControllerMockTest {
         output.toString());
   }
 
+  @Test
+  public void testDownscaleWithAreaMode() {
+    String input = "downscale test1 200 150 test2 area\nexit";
+    runControllerWithInput(input);
+    assertEquals("Downscaled test1 to width: 200 and height: 150 with AREA saved as test2\n",
+        output.toString());
+  }
+
+  @Test
+  public void testDownscaleWithInvalidMode() {
+    String input = "downscale test1 200 150 test2 nearest\nexit";
+    runControllerWithInput(input);
+    assertEquals("", output.toString());
+  }
+
+  @Test
+  public void testCompressionWithLevels() {
+    String input = "compress 10 test1 test2 3\nexit";
+    runControllerWithInput(input);
+    assertEquals("Applying compression to test1 with ratio 10.0 and 3 levels\n",
+        output.toString());
+  }
+
+  @Test
+  public void testYCbCrCompression() {
+    String input = "compress-ycbcr 50 80 test1 test2 2\nexit";
+    runControllerWithInput(input);
+    assertEquals("Applying YCbCr compression to test1 with luma ratio 50.0, chroma ratio 80.0"
+        + " and 2 levels\n", output.toString());
+  }
+
 
 }
\ No newline at end of file
@@ -2,14 +2,23 @@ package controller;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
 import model.EnhancedImage;
 import model.EnhancedImageModel;
+import model.MetricsRegistry;
 import model.colorscheme.Pixels;
 import model.colorscheme.RGBPixel;
 import org.junit.Before;
@@ -42,6 +51,17 @@ public class ImageControllerTest {
     }
   }
 
+  private static void writeWaveletFile(File file, int... data) throws IOException {
+    try (OutputStream out = new FileOutputStream(file)) {
+      out.write(new byte[] {'H', 'A', 'A', 'R', 1});
+      try (OutputStream deflated = new DeflaterOutputStream(out)) {
+        for (int b : data) {
+          deflated.write(b);
+        }
+      }
+    }
+  }
+
   private void runControllerWithInput(String input) {
     output = new StringBuilder(); // Reset the output
     System.setOut(new PrintStream(new OutputStream() {
@@ -194,6 +214,86 @@ public class ImageControllerTest {
     assertImageEquals(expectedPixels, operationPixels); // Remove the casts
   }
 
+  @Test
+  public void testSaveAndLoadWaveletImage() {
+    String input = source + "compress 90 testKey compressed-test\n"
+        + "save test/Test_Image/landscape-compressed-90.haar compressed-test\n"
+        + "save test/Test_Image/landscape-uncompressed.haar testKey\n"
+        + "load test/Test_Image/landscape-compressed-90.haar loaded-test\nexit";
+    File compressed = new File("test/Test_Image/landscape-compressed-90.haar");
+    File uncompressed = new File("test/Test_Image/landscape-uncompressed.haar");
+    try {
+      runControllerWithInput(input);
+      operationPixels = image.getStoredPixels("loaded-test");
+      expectedPixels = image.getStoredPixels("compressed-test");
+      assertNotNull(operationPixels);
+      assertEquals(expectedPixels.length, operationPixels.length);
+      assertEquals(expectedPixels[0].length, operationPixels[0].length);
+      assertImageEquals(expectedPixels, operationPixels);
+      assertTrue(compressed.length() < uncompressed.length() / 2);
+    } finally {
+      compressed.delete();
+      uncompressed.delete();
+    }
+  }
+
+  @Test
+  public void testLoadCorruptWaveletImage() throws Exception {
+    File file = new File("test/Test_Image/corrupt.haar");
+    try {
+      // A header of 2^30 x 2^30 pixels
+      writeWaveletFile(file, 0x80, 0x80, 0x80, 0x80, 0x04, 0x80, 0x80, 0x80, 0x80, 0x04, 0x01);
+      assertNull(ImageUtil.loadImage(file.getPath()));
+
+      // A 1 x 1 image whose first channel has a run length of 2^32 - 1
+      writeWaveletFile(file, 0x01, 0x01, 0x01, 0x01, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F);
+      assertNull(ImageUtil.loadImage(file.getPath()));
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testLoadAtTargetSize() {
+    String input = source + "load test/Test_Image/Landscape.png small 50 50\n"
+        + "downscale testKey 50 50 expected\nexit";
+    runControllerWithInput(input);
+    operationPixels = image.getStoredPixels("small");
+    expectedPixels = image.getStoredPixels("expected");
+    assertEquals(50, operationPixels.length);
+    assertEquals(50, operationPixels[0].length);
+    assertImageEquals(expectedPixels, operationPixels);
+  }
+
+  @Test
+  public void testLoadWaveletImageAtTargetSize() {
+    File file = new File("test/Test_Image/landscape-target.haar");
+    String input = source + "save test/Test_Image/landscape-target.haar testKey\n"
+        + "load test/Test_Image/landscape-target.haar small 60 60\nexit";
+    runControllerWithInput(input);
+    file.delete();
+    operationPixels = image.getStoredPixels("small");
+    assertEquals(100, operationPixels.length);
+    assertEquals(100, operationPixels[0].length);
+  }
+
+  @Test
+  public void testScriptLoadsAtDownscaleSize() throws Exception {
+    File script = new File("test/Test_Image/load-downscale-script.txt");
+    Files.write(script.toPath(), Arrays.asList(
+        "load test/Test_Image/Landscape.png planned",
+        "downscale planned 40 40 planned-small"));
+    String input = source + "run-script test/Test_Image/load-downscale-script.txt\n"
+        + "downscale testKey 40 40 expected\nexit";
+    runControllerWithInput(input);
+    script.delete();
+    assertEquals(40, image.getStoredPixels("planned").length);
+    operationPixels = image.getStoredPixels("planned-small");
+    expectedPixels = image.getStoredPixels("expected");
+    assertEquals(40, operationPixels.length);
+    assertImageEquals(expectedPixels, operationPixels);
+  }
+
   @Test
   public void testLevelsAdjust() {
     String input = source + "levels-adjust 50 128 200 testKey adjusted-test\nexit";
@@ -1064,4 +1164,61 @@ public class ImageControllerTest {
       fail("Test failed with exception: " + e.getMessage());
     }
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testProfilerRecordsCommandsAndImageSizes() throws Exception {
+    in = new StringReader(source
+        + "brighten 10 testKey bright\n"
+        + "brighten 10 bright bright\n"
+        + "exit\n");
+    controller = new ImageController(image, in, output);
+    CommandProfiler profiler = new CommandProfiler(image);
+    profiler.attach(controller);
+    controller.run();
+
+    File csv = File.createTempFile("profile", ".csv");
+    csv.deleteOnExit();
+    profiler.write(csv.getPath());
+    List<String> lines = Files.readAllLines(csv.toPath());
+    int[] size = image.getStoredSize("testKey");
+    String dimensions = size[0] + "x" + size[1];
+
+    assertEquals(5, lines.size());
+    assertTrue(lines.get(1).startsWith("1,load,load test/Test_Image/Landscape.png testKey,"));
+    assertTrue(lines.get(1).endsWith(",,testKey=" + dimensions));
+    assertTrue(lines.get(2).endsWith(",testKey=" + dimensions + ",bright=" + dimensions));
+    assertTrue(lines.get(3).endsWith(",bright=" + dimensions + ",bright=" + dimensions));
+    assertTrue(lines.get(4).startsWith("4,exit,exit,"));
+  }
+
+  @Test
+  public void testMetricsCountLoadsAndOperations() throws Exception {
+    MetricsRegistry metrics = MetricsRegistry.global();
+    String brighten = "operation=\"brighten\"";
+    long loads = metrics.getCount(MetricsRegistry.IMAGES_LOADED, "format=\"png\"");
+    long brightens = metrics.getCount(MetricsRegistry.OPERATION_DURATION, brighten);
+    long pixels = metrics.getCount(MetricsRegistry.PIXELS_PROCESSED, brighten);
+
+    File file = File.createTempFile("metrics", ".txt");
+    file.deleteOnExit();
+    in = new StringReader(source
+        + "brighten 10 testKey bright\n"
+        + "metrics " + file.getPath() + "\n"
+        + "exit\n");
+    controller = new ImageController(image, in, output);
+    controller.run();
+    int[] size = image.getStoredSize("testKey");
+
+    assertEquals(loads + 1, metrics.getCount(MetricsRegistry.IMAGES_LOADED, "format=\"png\""));
+    assertEquals(brightens + 1, metrics.getCount(MetricsRegistry.OPERATION_DURATION, brighten));
+    assertEquals(pixels + (long) size[0] * size[1],
+        metrics.getCount(MetricsRegistry.PIXELS_PROCESSED, brighten));
+
+    List<String> lines = Files.readAllLines(file.toPath());
+    assertTrue(lines.contains("# TYPE imageprocessing_operation_duration_seconds histogram"));
+    assertTrue(lines.contains("imageprocessing_operation_duration_seconds_count{" + brighten
+        + "} " + (brightens + 1)));
+    assertTrue(lines.stream().anyMatch(
+        line -> line.startsWith("imageprocessing_store_resident_bytes ")));
+  }
+}
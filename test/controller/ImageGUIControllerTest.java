@@ -1,14 +1,23 @@
 package controller;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
 
+import java.awt.image.BufferedImage;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.function.Consumer;
 
+import model.EnhancedImage;
+import model.TaskContext;
+import model.colorscheme.Pixels;
+import model.colorscheme.RGBPixel;
 import model.imagetransformation.basicoperation.Flip.Direction;
 
 import org.junit.Before;
 import org.junit.Test;
+import view.ImageProcessorGUIInterface;
 
 /**
  * Tests ImageGUIController class.
@@ -211,4 +220,90 @@ public class ImageGUIControllerTest {
     assertEquals("Running run\n", output.toString());
   }
 
+  @Test
+  public void testPreviewsUseCachedDisplayResolutionProxy() {
+    EnhancedImage model = new EnhancedImage();
+    ImageGUIController controller = new ImageGUIController(model, new ImageController(model));
+    model.storePixels("large", pixels(1500, 1000));
+    controller.latest = "large";
+
+    String proxy = controller.proxyKey();
+    assertArrayEquals(new int[]{600, 400}, model.getStoredSize(proxy));
+    long version = model.getStoredVersion(proxy);
+    assertEquals(proxy, controller.proxyKey());
+    assertEquals(version, model.getStoredVersion(proxy));
+    assertEquals(600, controller.previewCompression(50, false).getWidth());
+
+    model.storePixels("large", pixels(1000, 2000));
+    assertArrayEquals(new int[]{300, 600}, model.getStoredSize(controller.proxyKey()));
+
+    model.storePixels("small", pixels(40, 30));
+    controller.latest = "small";
+    assertEquals("small", controller.proxyKey());
+  }
+
+  @Test
+  public void testCancelledSplitPreviewIsNotShown() {
+    EnhancedImage model = new EnhancedImage();
+    ImageGUIController controller = new ImageGUIController(model, new ImageController(model));
+    RecordingGui gui = new RecordingGui();
+    controller.gui = gui;
+    model.storePixels("large", pixels(1500, 1000));
+    controller.latest = "large";
+    controller.handleSplit(new String[]{"blur", "50"});
+    assertEquals(1, gui.previews);
+
+    TaskContext context = new TaskContext(null);
+    context.cancel();
+    assertThrows(CancellationException.class,
+        () -> context.run(() -> controller.handleSplit(new String[]{"sharpen", "50"})));
+    assertThrows(CancellationException.class,
+        () -> context.run(() -> controller.handleSplit(new String[]{"blur", "50"})));
+    assertEquals(1, gui.previews);
+    assertEquals(0, gui.errors);
+  }
+
+  private static Pixels[][] pixels(int width, int height) {
+    Pixels[][] pixels = new RGBPixel[height][width];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        pixels[i][j] = new RGBPixel(i % 256, j % 256, 128);
+      }
+    }
+    return pixels;
+  }
+
+
+  private static class RecordingGui implements ImageProcessorGUIInterface {
+
+    private int previews;
+    private int errors;
+
+    @Override
+    public void showError(String error) {
+      errors++;
+    }
+
+    @Override
+    public void displayImage(BufferedImage image) {
+    }
+
+    @Override
+    public void displayHistogram(BufferedImage histogram) {
+    }
+
+    @Override
+    public void addWindowListenerToGUI() {
+    }
+
+    @Override
+    public void showPreview(BufferedImage image, String operation) {
+      previews++;
+    }
+
+    @Override
+    public void showPreviewLevelAdj(BufferedImage image, String[] args) {
+      previews++;
+    }
+  }
 }
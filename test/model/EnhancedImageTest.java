@@ -1,14 +1,38 @@
 package model;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import controller.ImageUtil;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import model.colorscheme.Pixels;
 import model.colorscheme.RGBPixel;
+import model.imagetransformation.Region;
+import model.imagetransformation.Transformation;
+import model.imagetransformation.advancedoperations.ColorCorrection;
+import model.imagetransformation.advancedoperations.Compression;
+import model.imagetransformation.advancedoperations.Downscale;
+import model.imagetransformation.advancedoperations.Histogram;
+import model.imagetransformation.basicoperation.Brighten;
+import model.imagetransformation.basicoperation.Flip;
+import model.imagetransformation.basicoperation.Luma;
+import model.imagetransformation.colortransformation.Sepia;
+import model.imagetransformation.filtering.Blur;
+import model.imageview.GreyscaleImage;
 import org.junit.Test;
 
 /**
@@ -657,5 +681,533 @@ public class EnhancedImageTest {
     assertImageEquals((RGBPixel[][]) lumaExpected, (RGBPixel[][]) lumaResult);
   }
 
+  @Test
+  public void testCompressWithLevelsIsLosslessAtZeroRatio() {
+    RGBPixel[][] pixels = new RGBPixel[5][7];
+    for (int y = 0; y < pixels.length; y++) {
+      for (int x = 0; x < pixels[0].length; x++) {
+        pixels[y][x] = new RGBPixel(y * 50, x * 37, (x * y * 13) % 256);
+      }
+    }
+    enhancedImage.storePixels("test", pixels);
+
+    enhancedImage.compress("test", "compressed", 0, 3);
+    Pixels[][] compressed = enhancedImage.getStoredPixels("compressed");
+
+    assertEquals(5, compressed.length);
+    assertEquals(7, compressed[0].length);
+    for (int y = 0; y < pixels.length; y++) {
+      for (int x = 0; x < pixels[0].length; x++) {
+        RGBPixel pixel = (RGBPixel) compressed[y][x];
+        assertEquals(pixels[y][x].getRed(), pixel.getRed());
+        assertEquals(pixels[y][x].getGreen(), pixel.getGreen());
+        assertEquals(pixels[y][x].getBlue(), pixel.getBlue());
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCompressWithNoLevels() {
+    enhancedImage.storePixels("test", new Pixels[][]{{new RGBPixel(1, 2, 3)}});
+    enhancedImage.compress("test", "compressed", 50, 0);
+  }
+
+  @Test
+  public void testCompressReusesCoefficientsAcrossRatios() {
+    Pixels[][] pixels = ImageUtil.loadImage("test/Test_Image/Landscape.png");
+    enhancedImage.storePixels("test", pixels);
+
+    for (double ratio : new double[]{90, 20, 60}) {
+      enhancedImage.compress("test", "compressed", ratio, 2);
+      assertPixelsEqual(new Compression(ratio, 2).apply(pixels),
+          enhancedImage.getStoredPixels("compressed"));
+    }
+  }
+
+  @Test
+  public void testCompressAfterSourceReplaced() {
+    Pixels[][] first = new Pixels[][]{{new RGBPixel(10, 20, 30), new RGBPixel(40, 50, 60)}};
+    Pixels[][] second = new Pixels[][]{{new RGBPixel(200, 100, 0), new RGBPixel(0, 100, 200)}};
+    enhancedImage.storePixels("test", first);
+    enhancedImage.compress("test", "compressed", 0);
+
+    enhancedImage.storePixels("test", second);
+    enhancedImage.compress("test", "compressed", 0);
+
+    assertPixelsEqual(second, enhancedImage.getStoredPixels("compressed"));
+  }
+
+  @Test
+  public void testPreviewCompression() {
+    Pixels[][] pixels = ImageUtil.loadImage("test/Test_Image/Landscape.png");
+    enhancedImage.storePixels("test", pixels);
+
+    Pixels[][] full = enhancedImage.previewCompression("test", 70, 1, 0);
+    assertPixelsEqual(new Compression(70).apply(pixels), full);
+
+    Pixels[][] draft = enhancedImage.previewCompression("test", 70, 1, 1);
+    assertEquals((pixels.length + 1) / 2, draft.length);
+    assertEquals((pixels[0].length + 1) / 2, draft[0].length);
+    assertNull(enhancedImage.getStoredPixels("compressed"));
+  }
+
+  @Test
+  public void testCompressYCbCr() {
+    RGBPixel[][] pixels = new RGBPixel[9][11];
+    for (int y = 0; y < pixels.length; y++) {
+      for (int x = 0; x < pixels[0].length; x++) {
+        pixels[y][x] = new RGBPixel(100 + y * 10, 50 + x * 12, 200 - x * 5 - y * 5);
+      }
+    }
+    enhancedImage.storePixels("test", pixels);
+
+    enhancedImage.compressYCbCr("test", "compressed", 0, 0, 2);
+    Pixels[][] compressed = enhancedImage.getStoredPixels("compressed");
+
+    assertEquals(9, compressed.length);
+    assertEquals(11, compressed[0].length);
+    for (int y = 0; y < pixels.length; y++) {
+      for (int x = 0; x < pixels[0].length; x++) {
+        RGBPixel pixel = (RGBPixel) compressed[y][x];
+        assertEquals(pixels[y][x].getRed(), pixel.getRed(), 12);
+        assertEquals(pixels[y][x].getGreen(), pixel.getGreen(), 12);
+        assertEquals(pixels[y][x].getBlue(), pixel.getBlue(), 12);
+      }
+    }
+  }
+
+  @Test
+  public void testCompressYCbCrFullChromaRatioIsGrey() {
+    Pixels[][] pixels = ImageUtil.loadImage("test/Test_Image/Landscape.png");
+    enhancedImage.storePixels("test", pixels);
+
+    enhancedImage.compressYCbCr("test", "compressed", 0, 100, 1);
+    Pixels[][] compressed = enhancedImage.getStoredPixels("compressed");
+
+    for (Pixels[] row : compressed) {
+      for (Pixels value : row) {
+        RGBPixel pixel = (RGBPixel) value;
+        assertEquals(pixel.getRed(), pixel.getGreen());
+        assertEquals(pixel.getGreen(), pixel.getBlue());
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCompressYCbCrInvalidChromaRatio() {
+    enhancedImage.storePixels("test", new Pixels[][]{{new RGBPixel(1, 2, 3)}});
+    enhancedImage.compressYCbCr("test", "compressed", 50, 101, 1);
+  }
+
+  @Test
+  public void testDownscaleNonSquare() {
+    Pixels[][] pixels = new Pixels[4][8];
+    for (int y = 0; y < pixels.length; y++) {
+      for (int x = 0; x < pixels[0].length; x++) {
+        pixels[y][x] = new RGBPixel(x * 30, y * 60, 0);
+      }
+    }
+    enhancedImage.storePixels("test", pixels);
+
+    enhancedImage.downscale("test", 4, 2, "downscaled");
+    Pixels[][] downscaled = enhancedImage.getStoredPixels("downscaled");
+
+    assertEquals(2, downscaled.length);
+    assertEquals(4, downscaled[0].length);
+  }
+
+  @Test
+  public void testDownscaleAreaAveragesBlocks() {
+    Pixels[][] pixels = new Pixels[8][8];
+    for (int y = 0; y < pixels.length; y++) {
+      for (int x = 0; x < pixels[0].length; x++) {
+        pixels[y][x] = (x + y) % 2 == 0 ? new RGBPixel(255, 255, 255) : new RGBPixel(0, 0, 0);
+      }
+    }
+    enhancedImage.storePixels("test", pixels);
+
+    enhancedImage.downscale("test", 2, 2, "downscaled", Downscale.Mode.AREA);
+    Pixels[][] downscaled = enhancedImage.getStoredPixels("downscaled");
+
+    for (Pixels[] row : downscaled) {
+      for (Pixels value : row) {
+        assertEquals(128, ((RGBPixel) value).getRed());
+      }
+    }
+  }
+
+  @Test
+  public void testDownscaleAreaPowerOfTwo() {
+    Pixels[][] pixels = ImageUtil.loadImage("test/Test_Image/Landscape.png");
+    enhancedImage.storePixels("test", pixels);
+
+    enhancedImage.downscale("test", 50, 50, "downscaled", Downscale.Mode.AREA);
+    Pixels[][] downscaled = enhancedImage.getStoredPixels("downscaled");
+
+    assertEquals(50, downscaled.length);
+    assertEquals(50, downscaled[0].length);
+    RGBPixel corner = (RGBPixel) downscaled[0][0];
+    int red = 0;
+    for (int y = 0; y < 4; y++) {
+      for (int x = 0; x < 4; x++) {
+        red += ((RGBPixel) pixels[y][x]).getRed();
+      }
+    }
+    assertEquals((red + 8) / 16, corner.getRed());
+  }
+
+  @Test
+  public void testRegionBlurMatchesFullBlurInsideRegion() {
+    Pixels[][] pixels = ImageUtil.loadImage("test/Test_Image/Landscape.png");
+    Region region = new Region(10, 20, 30, 15);
+
+    Pixels[][] full = new Blur().apply(pixels);
+    Pixels[][] partial = new Blur().apply(pixels, region);
+
+    for (int y = 0; y < pixels.length; y++) {
+      for (int x = 0; x < pixels[0].length; x++) {
+        boolean inside = x >= 10 && x < 40 && y >= 20 && y < 35;
+        RGBPixel expected = (RGBPixel) (inside ? full[y][x] : pixels[y][x]);
+        RGBPixel actual = (RGBPixel) partial[y][x];
+        assertEquals(expected.getRed(), actual.getRed());
+        assertEquals(expected.getGreen(), actual.getGreen());
+        assertEquals(expected.getBlue(), actual.getBlue());
+      }
+    }
+  }
+
+  @Test
+  public void testRegionSharesRowsOutsideRegion() {
+    Pixels[][] pixels = ImageUtil.loadImage("test/Test_Image/Landscape.png");
+
+    Pixels[][] result = new Brighten(20).apply(pixels, new Region(0, 5, pixels[0].length, 2));
+
+    assertTrue(result instanceof RGBPixel[][]);
+    assertTrue(result[0] == pixels[0]);
+    assertTrue(result[5] != pixels[5]);
+    assertEquals(Math.min(255, ((RGBPixel) pixels[5][0]).getRed() + 20),
+        ((RGBPixel) result[5][0]).getRed());
+    assertTrue(result[7] == pixels[7]);
+  }
+
+  @Test
+  public void testRegionIsClippedToImage() {
+    Pixels[][] pixels = ImageUtil.loadImage("test/Test_Image/Landscape.png");
+    int width = pixels[0].length;
+    int height = pixels.length;
+
+    Pixels[][] clipped = new Sepia().apply(pixels, new Region(-10, -10, width + 20, height + 20));
+
+    assertPixelsEqual(new Sepia().apply(pixels), clipped);
+    assertEquals(new Region(0, 0, 5, 5), new Region(-5, -5, 10, 10).clip(pixels));
+    assertTrue(new Region(width, 0, 5, 5).clip(pixels).isEmpty());
+  }
+
+  @Test
+  public void testRegionDefaultImplementation() {
+    Pixels[][] pixels = ImageUtil.loadImage("test/Test_Image/Landscape.png");
+    Region region = new Region(0, 0, 8, 8);
+
+    Pixels[][] full = new ColorCorrection().apply(pixels);
+    Pixels[][] partial = new ColorCorrection().apply(pixels, region);
+
+    for (int y = 0; y < 8; y++) {
+      for (int x = 0; x < 8; x++) {
+        assertEquals(((RGBPixel) full[y][x]).getRed(), ((RGBPixel) partial[y][x]).getRed());
+        assertEquals(((RGBPixel) full[y][x]).getGreen(), ((RGBPixel) partial[y][x]).getGreen());
+        assertEquals(((RGBPixel) full[y][x]).getBlue(), ((RGBPixel) partial[y][x]).getBlue());
+      }
+    }
+    assertTrue(partial[10][10] == pixels[10][10]);
+  }
+
+  @Test
+  public void testRegionRejectsResizingTransformations() {
+    Pixels[][] pixels = ImageUtil.loadImage("test/Test_Image/Landscape.png");
+    Region region = new Region(0, 0, 8, 8);
+    Transformation downscale = new Downscale(4, 4);
+
+    assertThrows(IllegalArgumentException.class, () -> downscale.apply(pixels, region));
+    assertThrows(IllegalArgumentException.class, () -> new Histogram().apply(pixels, region));
+    assertThrows(IllegalArgumentException.class, () -> new Region(0, 0, -1, 2));
+  }
+
+  @Test
+  public void testSplitAndTransformMatchesFullTransformAcrossSeam() {
+    Pixels[][] pixels = ImageUtil.loadImage("test/Test_Image/Landscape.png");
+    enhancedImage.storePixels("test", pixels);
+    int splitIndex = pixels[0].length / 2;
+
+    enhancedImage.splitAndTransform("test", "split", 50, "blur");
+    enhancedImage.blur("test", "full");
+    Pixels[][] split = enhancedImage.getStoredPixels("split");
+    Pixels[][] full = enhancedImage.getStoredPixels("full");
+
+    for (int y = 0; y < pixels.length; y++) {
+      RGBPixel seam = (RGBPixel) split[y][splitIndex - 1];
+      assertEquals(((RGBPixel) full[y][splitIndex - 1]).getRed(), seam.getRed());
+      assertSame(pixels[y][splitIndex], split[y][splitIndex]);
+    }
+    assertNull(enhancedImage.getStoredPixels("splitPart1"));
+  }
+
+  @Test
+  public void testFlipAndChannelAreComputedTogether() {
+    Pixels[][] pixels = ImageUtil.loadImage("test/Test_Image/Landscape.png");
+    enhancedImage.storePixels("test", pixels);
+
+    enhancedImage.flip("test", "flipped", Flip.Direction.HORIZONTAL);
+    enhancedImage.getRedChannel("flipped", "red");
+    Pixels[][] red = enhancedImage.getStoredPixels("red");
+
+    int width = pixels[0].length;
+    for (int y = 0; y < pixels.length; y++) {
+      for (int x = 0; x < width; x++) {
+        int expected = ((RGBPixel) pixels[y][width - 1 - x]).getRed();
+        RGBPixel actual = (RGBPixel) red[y][x];
+        assertEquals(expected, actual.getRed());
+        assertEquals(expected, actual.getGreen());
+        assertEquals(expected, actual.getBlue());
+      }
+    }
+    assertTrue(red == enhancedImage.getStoredPixels("red"));
+    assertTrue(red instanceof RGBPixel[][]);
+  }
+
+  @Test
+  public void testFlipViewMatchesFlip() {
+    Pixels[][] pixels = ImageUtil.loadImage("test/Test_Image/Landscape.png");
+    enhancedImage.storePixels("test", pixels);
+
+    enhancedImage.flip("test", "vertical", Flip.Direction.VERTICAL);
+
+    assertPixelsEqual(new Flip().apply(pixels, Flip.Direction.VERTICAL),
+        enhancedImage.getStoredPixels("vertical"));
+  }
+
+  @Test
+  public void testSplitReadsGivenKey() {
+    Pixels[][] pixels = ImageUtil.loadImage("test/Test_Image/Landscape.png");
+    enhancedImage.storePixels("test", pixels);
+    enhancedImage.brighten(50, "test", "bright");
+
+    enhancedImage.split("test", "r", "g", "b");
+
+    assertEquals(((RGBPixel) pixels[3][4]).getGreen(),
+        ((RGBPixel) enhancedImage.getStoredPixels("g")[3][4]).getRed());
+    assertEquals(((RGBPixel) pixels[3][4]).getBlue(),
+        ((RGBPixel) enhancedImage.getStoredPixels("b")[3][4]).getBlue());
+  }
+
+  @Test
+  public void testComponentsAreStoredAsGreyscaleImages() {
+    Pixels[][] pixels = ImageUtil.loadImage("test/Test_Image/Landscape.png");
+    enhancedImage.storePixels("test", pixels);
+
+    enhancedImage.luma("test", "luma");
+
+    assertTrue(enhancedImage.getStoredView("luma") instanceof GreyscaleImage);
+    assertPixelsEqual(new Luma().apply(pixels), enhancedImage.getStoredPixels("luma"));
+    assertTrue(enhancedImage.getStoredView("luma") instanceof GreyscaleImage);
+  }
+
+  @Test
+  public void testCombineGreyscaleChannels() {
+    Pixels[][] pixels = ImageUtil.loadImage("test/Test_Image/Landscape.png");
+    enhancedImage.storePixels("test", pixels);
+
+    enhancedImage.split("test", "r", "g", "b");
+    enhancedImage.combine("combined", "r", "g", "b");
+
+    assertPixelsEqual(pixels, enhancedImage.getStoredPixels("combined"));
+  }
+
+  @Test
+  public void testSaveGreyscaleImage() {
+    Pixels[][] pixels = ImageUtil.loadImage("test/Test_Image/Landscape.png");
+    enhancedImage.storePixels("test", pixels);
+    enhancedImage.getGreenChannel("test", "green");
+    String path = "test/Test_Image/green-greyscale.png";
+
+    try {
+      ImageUtil.saveImage(path, enhancedImage.getStoredView("green"));
+      assertPixelsEqual(enhancedImage.getStoredPixels("green"), ImageUtil.loadImage(path));
+    } finally {
+      new File(path).delete();
+    }
+  }
+
+  @Test
+  public void testMaskedOperationWithGreyscaleMask() {
+    Pixels[][] pixels = ImageUtil.loadImage("test/Test_Image/Landscape.png");
+    enhancedImage.storePixels("test", pixels);
+    Pixels[][] maskPixels = ImageUtil.loadImage("res/Landscape-L-shaped-masked-image.png");
+    enhancedImage.storePixels("maskSource", maskPixels);
+    enhancedImage.getRedChannel("maskSource", "mask");
+    enhancedImage.storePixels("rgbMask", enhancedImage.getStoredPixels("mask"));
+
+    enhancedImage.maskedOperation("test", "sepia", "mask", "greyMasked");
+    enhancedImage.maskedOperation("test", "sepia", "rgbMask", "rgbMasked");
 
+    assertPixelsEqual(enhancedImage.getStoredPixels("rgbMasked"),
+        enhancedImage.getStoredPixels("greyMasked"));
+  }
+
+  @Test
+  public void testGreyPixelsAreShared() {
+    assertTrue(RGBPixel.of(17, 17, 17) == RGBPixel.of(17, 17, 17));
+    assertTrue(RGBPixel.of(300, 300, 300) == RGBPixel.of(255, 255, 255));
+    assertEquals(0, RGBPixel.of(-5, -5, -5).getRed());
+    RGBPixel color = RGBPixel.of(300, 20, -4);
+    assertEquals(255, color.getRed());
+    assertEquals(20, color.getGreen());
+    assertEquals(0, color.getBlue());
+
+    Pixels[][] pixels = ImageUtil.loadImage("test/Test_Image/Landscape.png");
+    enhancedImage.storePixels("test", pixels);
+    enhancedImage.value("test", "value");
+    Pixels[][] value = enhancedImage.getStoredPixels("value");
+    int grey = ((RGBPixel) value[0][0]).getRed();
+    assertTrue(value[0][0] == RGBPixel.of(grey, grey, grey));
+  }
+
+  @Test
+  public void testInPlaceBrightenLeavesReturnedPixelsAlone() {
+    Pixels[][] pixels = ImageUtil.loadImage("test/Test_Image/Landscape.png");
+    Pixels[][] once = new Brighten(10).apply(pixels);
+    Pixels[][] thrice = new Brighten(10).apply(new Brighten(10).apply(once));
+
+    enhancedImage.storePixels("test", pixels);
+    enhancedImage.brighten(10, "test", "bright");
+    Pixels[][] returned = enhancedImage.getStoredPixels("bright");
+    enhancedImage.brighten(10, "bright", "bright");
+    enhancedImage.brighten(10, "bright", "bright");
+
+    assertPixelsEqual(once, returned);
+    assertPixelsEqual(thrice, enhancedImage.getStoredPixels("bright"));
+  }
+
+  @Test
+  public void testImageStoreReusesReplacedBuffers() {
+    ImageStore store = new ImageStore();
+    Pixels[][] buffer = store.acquire(2, 3);
+    store.putOwned("owned", buffer);
+    assertTrue(store.isOwned(buffer));
+    store.put("owned", new RGBPixel[2][3]);
+    assertTrue(store.acquire(2, 3) == buffer);
+
+    Pixels[][] viewed = store.acquire(2, 3);
+    store.putOwned("viewed", viewed);
+    assertNotNull(store.findView("viewed"));
+    assertFalse(store.isOwned(viewed));
+    store.remove("viewed");
+    assertFalse(store.acquire(2, 3) == viewed);
+  }
+
+  @Test
+  public void testTransformationEventRecordsOperationKeysAndSizes() throws Exception {
+    EnhancedImage image = new EnhancedImage();
+    image.storePixels("source", new RGBPixel[][]{
+        {new RGBPixel(10, 20, 30), new RGBPixel(40, 50, 60), new RGBPixel(70, 80, 90)},
+        {new RGBPixel(15, 25, 35), new RGBPixel(45, 55, 65), new RGBPixel(75, 85, 95)}});
+
+    Path file = Files.createTempFile("transformation-events", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("imageprocessing.Transformation");
+      recording.start();
+      image.blur("source", "blurred");
+      recording.stop();
+      recording.dump(file);
+
+      List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+      assertEquals(1, events.size());
+      RecordedEvent event = events.get(0);
+      assertEquals("blur", event.getString("operation"));
+      assertEquals("source", event.getString("sourceKey"));
+      assertEquals("blurred", event.getString("resultKey"));
+      assertEquals(3, event.getInt("sourceWidth"));
+      assertEquals(2, event.getInt("sourceHeight"));
+      assertEquals(3, event.getInt("resultWidth"));
+      assertEquals(2, event.getInt("resultHeight"));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testTracerRecordsOperationSpans() throws Exception {
+    EnhancedImage image = new EnhancedImage();
+    image.storePixels("source", new RGBPixel[][]{
+        {new RGBPixel(10, 20, 30), new RGBPixel(40, 50, 60)},
+        {new RGBPixel(15, 25, 35), new RGBPixel(45, 55, 65)}});
+
+    Tracer tracer = Tracer.global();
+    tracer.start();
+    try {
+      image.sepia("source", "sepia");
+      image.blur("sepia", "blurred");
+    } finally {
+      tracer.stop();
+    }
+    image.sharpen("source", "sharpened");
+
+    StringBuilder trace = new StringBuilder();
+    tracer.write(trace);
+    assertEquals(2, tracer.size());
+    assertTrue(trace.toString().startsWith("{\"displayTimeUnit\": \"ms\", \"traceEvents\": ["));
+    assertTrue(trace.toString().contains("\"name\": \"sepia\", \"cat\": \"transform\", "
+        + "\"ph\": \"X\""));
+    assertTrue(trace.toString().contains("\"args\": {\"source\": \"sepia\", "
+        + "\"result\": \"blurred\", \"sourceSize\": \"2x2\", \"resultSize\": \"2x2\"}"));
+    assertFalse(trace.toString().contains("sharpened"));
+    assertTrue(trace.toString().contains("\"name\": \"thread_name\""));
+  }
+
+  @Test
+  public void testTaskContextReportsProgressAndCancelsWithoutChangingTheSource() {
+    EnhancedImage image = new EnhancedImage();
+    Pixels[][] original = new RGBPixel[50][4];
+    for (int i = 0; i < original.length; i++) {
+      for (int j = 0; j < original[0].length; j++) {
+        original[i][j] = new RGBPixel(i, j, 100);
+      }
+    }
+    image.storePixels("source", original);
+
+    List<Long> rows = new ArrayList<>();
+    new TaskContext((task, done, total) -> {
+      if (task.equals("Brighten")) {
+        rows.add(done);
+      }
+    }).run(() -> image.brighten(10, "source", "bright"));
+    assertEquals(50, rows.size());
+    assertEquals(Long.valueOf(50), rows.get(rows.size() - 1));
+
+    // Only arrays the store owns are written in place, which "source" is not
+    image.brighten(0, "source", "img");
+    assertTrue(image.h1.isOwned(image.h1.get("img")));
+    TaskContext[] context = new TaskContext[1];
+    context[0] = new TaskContext((task, done, total) -> {
+      if (done == 10) {
+        context[0].cancel();
+      }
+    });
+    assertThrows(CancellationException.class,
+        () -> context[0].run(() -> image.brighten(10, "img", "img")));
+    assertPixelsEqual(original, image.getStoredPixels("img"));
+  }
+
+  private void assertPixelsEqual(Pixels[][] expected, Pixels[][] actual) {
+    assertEquals(expected.length, actual.length);
+    assertEquals(expected[0].length, actual[0].length);
+    for (int y = 0; y < expected.length; y++) {
+      for (int x = 0; x < expected[0].length; x++) {
+        RGBPixel expectedPixel = (RGBPixel) expected[y][x];
+        RGBPixel actualPixel = (RGBPixel) actual[y][x];
+        assertEquals(expectedPixel.getRed(), actualPixel.getRed());
+        assertEquals(expectedPixel.getGreen(), actualPixel.getGreen());
+        assertEquals(expectedPixel.getBlue(), actualPixel.getBlue());
+      }
+    }
+  }
 }
@@ -4,7 +4,7 @@ import static org.junit.Assert.assertEquals;
 
 import controller.ImageController;
 import controller.ImageUtil;
-import java.util.HashMap;
+import java.util.Arrays;
 import model.colorscheme.Pixels;
 import model.colorscheme.RGBPixel;
 import model.imagetransformation.basicoperation.Brighten;
@@ -12,7 +12,6 @@ import model.imagetransformation.basicoperation.Combine;
 import model.imagetransformation.basicoperation.Flip;
 import model.imagetransformation.basicoperation.Flip.Direction;
 import model.imagetransformation.basicoperation.Luma;
-import model.imagetransformation.basicoperation.Split;
 import model.imagetransformation.colortransformation.GreyScale;
 import model.imagetransformation.colortransformation.Sepia;
 import model.imagetransformation.filtering.Blur;
@@ -31,7 +30,6 @@ public class ImagePNGModelTest {
   private Image image;
   Pixels[][] operationPixels;
   Pixels[][] expectedPixels;
-  HashMap<String, Pixels[][]> t1 = new HashMap<>();
 
   String load = "test/Test_Image/Landscape.png";
   Pixels[][] pixels = ImageUtil.loadImage(load);
@@ -154,15 +152,11 @@ public class ImagePNGModelTest {
 
   @Test
   public void testCombine() {
-    Split split = new Split();
-    t1.put("testKey", image.getStoredPixels("testKey"));
-
-    HashMap<String, Pixels[][]> splitResult = split.apply(t1, t1.get("testKey"),
-        "testKey", "red-Key", "green-Key", "blue-Key");
-    t1.putAll(splitResult);
+    image.split("testKey", "red-Key", "green-Key", "blue-Key");
 
     Combine combine = new Combine();
-    operationPixels = combine.apply(t1.get("red-Key"), t1.get("green-Key"), t1.get("blue-Key"));
+    operationPixels = combine.apply(image.getStoredPixels("red-Key"),
+        image.getStoredPixels("green-Key"), image.getStoredPixels("blue-Key"));
     image.storePixels("expected-combine-Key", ImageUtil.loadImage("test/Test_Image/Landscape.png"));
     expectedPixels = image.getStoredPixels("expected-combine-Key");
 
@@ -171,26 +165,21 @@ public class ImagePNGModelTest {
 
   @Test
   public void testSplit() {
-    Split split = new Split();
-    HashMap<String, Pixels[][]> t1 = new HashMap<>();
-    t1.put("testKey", image.getStoredPixels("testKey"));
-
-    HashMap<String, Pixels[][]> splitResult = split.apply(t1, t1.get("testKey"),
-        "testKey", "red-Key", "green-Key", "blue-Key");
+    image.split("testKey", "red-Key", "green-Key", "blue-Key");
 
-    Pixels[][] operationPixels = splitResult.get("red-Key");
+    Pixels[][] operationPixels = image.getStoredPixels("red-Key");
     image.storePixels("expected-red-Key",
         ImageUtil.loadImage("test/Test_Image/png_op/landscape-red-component.png"));
     Pixels[][] expectedPixels = image.getStoredPixels("expected-red-Key");
     assertImageEquals((RGBPixel[][]) expectedPixels, (RGBPixel[][]) operationPixels);
 
-    operationPixels = splitResult.get("green-Key");
+    operationPixels = image.getStoredPixels("green-Key");
     image.storePixels("expected-green-split-Key",
         ImageUtil.loadImage("test/Test_Image/png_op/landscape-green-component.png"));
     expectedPixels = image.getStoredPixels("expected-green-split-Key");
     assertImageEquals((RGBPixel[][]) expectedPixels, (RGBPixel[][]) operationPixels);
 
-    operationPixels = splitResult.get("blue-Key");
+    operationPixels = image.getStoredPixels("blue-Key");
     image.storePixels("expected-blue-split-Key",
         ImageUtil.loadImage("test/Test_Image/png_op/landscape-blue-component.png"));
     expectedPixels = image.getStoredPixels("expected-blue-split-Key");
@@ -250,6 +239,28 @@ public class ImagePNGModelTest {
     assertImageEquals((RGBPixel[][]) expectedPixels, (RGBPixel[][]) operationPixels);
   }
 
+  @Test
+  public void testHistogramOfSingleColourImage() {
+    RGBPixel[][] black = new RGBPixel[4][4];
+    for (RGBPixel[] row : black) {
+      Arrays.fill(row, new RGBPixel(0, 0, 0));
+    }
+    image.storePixels("black", black);
+    image.histogram("black", "histogram-key");
+    RGBPixel[][] histogram = (RGBPixel[][]) image.getStoredPixels("histogram-key");
+
+    assertEquals(256, histogram.length);
+    assertEquals(256, histogram[0].length);
+    assertEquals(255, histogram[1][1].getGreen());
+    assertEquals(220, histogram[16][1].getRed());
+    assertEquals(220, histogram[1][32].getBlue());
+    // Every channel peaks at value 0 and is empty elsewhere, blue is drawn last.
+    assertEquals(0, histogram[0][0].getRed());
+    assertEquals(255, histogram[0][0].getBlue());
+    assertEquals(0, histogram[255][200].getRed());
+    assertEquals(255, histogram[255][200].getBlue());
+  }
+
   @Test
   public void testColorCorrection() {
     image.colorCorrection("testKey", "cc-key");
@@ -4,14 +4,12 @@ import static org.junit.Assert.assertEquals;
 
 import controller.ImageController;
 import controller.ImageUtil;
-import java.util.HashMap;
 import model.colorscheme.Pixels;
 import model.colorscheme.RGBPixel;
 import model.imagetransformation.basicoperation.Brighten;
 import model.imagetransformation.basicoperation.Combine;
 import model.imagetransformation.basicoperation.Flip;
 import model.imagetransformation.basicoperation.Luma;
-import model.imagetransformation.basicoperation.Split;
 import model.imagetransformation.colortransformation.GreyScale;
 import model.imagetransformation.colortransformation.Sepia;
 import model.imagetransformation.filtering.Blur;
@@ -34,7 +32,6 @@ public class ImagePPMModelTest {
   private Image image;
   Pixels[][] operationPixels;
   Pixels[][] expectedPixels;
-  HashMap<String, Pixels[][]> t1 = new HashMap<>();
 
   String load = "test/Test_Image/P3.ppm"; // Path to the test PPM file
   Pixels[][] pixels = ImageUtil.loadImage(load); // Load the PPM image
@@ -220,18 +217,12 @@ public class ImagePPMModelTest {
    */
   @Test
   public void testCombine() {
-    Split split = new Split(); // Create a Split object
-    t1.put("testKey",
-        image.getStoredPixels("testKey")); // Store the original image pixels in the map
-
     // Split the image into red, green, and blue channels
-    HashMap<String, Pixels[][]> splitResult = split.apply(t1, t1.get("testKey"),
-        "testKey", "red-Key", "green-Key", "blue-Key");
-    t1.putAll(splitResult);
+    image.split("testKey", "red-Key", "green-Key", "blue-Key");
 
     Combine combine = new Combine(); // Create a Combine object
-    operationPixels = combine.apply(t1.get("red-Key"), t1.get("green-Key"),
-        t1.get("blue-Key")); // Combine the channels
+    operationPixels = combine.apply(image.getStoredPixels("red-Key"),
+        image.getStoredPixels("green-Key"), image.getStoredPixels("blue-Key")); // Combine the channels
     image.storePixels("expected-combine-Key", ImageUtil.loadImage("test/Test_Image/P3.ppm"));
     expectedPixels = image.getStoredPixels("expected-combine-Key");
 
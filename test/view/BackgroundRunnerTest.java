@@ -0,0 +1,118 @@
+package view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JButton;
+import javax.swing.JProgressBar;
+import javax.swing.SwingUtilities;
+import model.TaskContext;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests BackgroundRunner class.
+ */
+public class BackgroundRunnerTest {
+
+  private List<String> errors;
+  private JProgressBar progressBar;
+  private JButton cancelButton;
+  private BackgroundRunner runner;
+
+  @Before
+  public void setUp() {
+    errors = Collections.synchronizedList(new ArrayList<>());
+    progressBar = new JProgressBar(0, 100);
+    cancelButton = new JButton("Cancel");
+    runner = new BackgroundRunner(progressBar, cancelButton, errors::add);
+  }
+
+  @Test
+  public void testRunsOneAtATimeAndCoalescesWaitingRequests() throws Exception {
+    List<String> ran = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch release = new CountDownLatch(1);
+    SwingUtilities.invokeAndWait(() -> {
+      runner.submit("blur", () -> {
+        awaitQuietly(release);
+        ran.add("blur");
+      });
+      for (int i = 1; i <= 3; i++) {
+        int attempt = i;
+        runner.submit("sharpen", () -> ran.add("sharpen " + attempt));
+      }
+      runner.submit("sepia", () -> ran.add("sepia"));
+      assertTrue(runner.isBusy());
+      assertTrue(cancelButton.isEnabled());
+    });
+    release.countDown();
+    awaitIdle();
+
+    assertEquals(List.of("blur", "sharpen 3", "sepia"), ran);
+    assertTrue(errors.isEmpty());
+    assertFalse(cancelButton.isEnabled());
+  }
+
+  @Test
+  public void testCancelStopsTheRunningOperationAndDropsWaitingOnes() throws Exception {
+    List<String> ran = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch started = new CountDownLatch(1);
+    SwingUtilities.invokeAndWait(() -> {
+      runner.submit("blur", () -> {
+        TaskContext.Task task = TaskContext.current().begin("blur", 100);
+        started.countDown();
+        while (true) {
+          task.advance(0);
+          Thread.onSpinWait();
+        }
+      }, result -> ran.add("blur"));
+      runner.submit("sharpen", () -> ran.add("sharpen"));
+    });
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+    SwingUtilities.invokeAndWait(runner::cancel);
+    awaitIdle();
+
+    assertTrue(ran.isEmpty());
+    assertTrue(errors.isEmpty());
+    assertEquals("blur cancelled", progressBar.getString());
+  }
+
+  @Test
+  public void testFailureIsReportedAndTheNextRequestStillRuns() throws Exception {
+    List<String> ran = Collections.synchronizedList(new ArrayList<>());
+    SwingUtilities.invokeAndWait(() -> {
+      runner.submit("load", () -> {
+        throw new IllegalStateException("disk on fire");
+      });
+      runner.submit("blur", () -> ran.add("blur"));
+    });
+    awaitIdle();
+
+    assertEquals(List.of("An unexpected error occurred: disk on fire"), errors);
+    assertEquals(List.of("blur"), ran);
+  }
+
+  private void awaitIdle() throws Exception {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    boolean[] busy = {true};
+    while (busy[0] && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+      SwingUtilities.invokeAndWait(() -> busy[0] = runner.isBusy());
+    }
+    assertFalse("runner did not finish", busy[0]);
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}